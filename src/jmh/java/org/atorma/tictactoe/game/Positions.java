@@ -0,0 +1,49 @@
+package org.atorma.tictactoe.game;
+
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible game positions for benchmarks: the same seed
+ * always gives the same position.
+ */
+public final class Positions {
+
+    public static final long SEED = 20160101L;
+
+    private Positions() {}
+
+    /**
+     * Returns a square board of the given size with a quarter of the cells filled
+     * by random moves that do not end the game. Connect 5, or fewer on a smaller board.
+     */
+    public static GameState midGame(int size, GameState.BoardType boardType, long seed) {
+        GameState state = GameState.builder()
+                .setConnectHowMany(Math.min(size, 5))
+                .setBoard(new Piece[size][size])
+                .setBoardType(boardType)
+                .setNextPlayer(Piece.X)
+                .build();
+
+        Random random = new Random(seed);
+        int numMoves = size*size/4;
+        for (int attempt = 0; state.getNumPieces() < numMoves && attempt < 10*numMoves; attempt++) {
+            Cell move = pickRandomMove(state, random);
+            state.makeMove(move);
+            if (state.isAtEnd()) {
+                state.undo(move);
+            }
+        }
+        return state;
+    }
+
+    /** Returns an allowed move in the state, the same one for the same random sequence. */
+    public static Cell pickRandomMove(GameState state, Random random) {
+        List<Cell> allowedMoves = state.getAllowedMoves();
+        return allowedMoves.get(random.nextInt(allowedMoves.size()));
+    }
+}
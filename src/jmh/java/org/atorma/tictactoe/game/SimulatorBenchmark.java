@@ -0,0 +1,74 @@
+package org.atorma.tictactoe.game;
+
+import org.atorma.tictactoe.game.player.Player;
+import org.atorma.tictactoe.game.player.naive.NaivePlayer;
+import org.atorma.tictactoe.game.player.random.RandomAdjacentPlayer;
+import org.atorma.tictactoe.game.player.random.RandomPlayer;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single game simulated from an empty board to the end between two players
+ * of the same kind, as the simulation strategies of the MCTS player once did.
+ *
+ * @see org.atorma.tictactoe.game.player.mcts.PlayoutBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatorBenchmark {
+
+    public enum PlayerType {RANDOM, RANDOM_ADJACENT, NAIVE}
+
+    @Param({"3", "18", "50"})
+    private int size;
+
+    @Param({"RANDOM", "RANDOM_ADJACENT", "NAIVE"})
+    private PlayerType playerType;
+
+    private Simulator simulator;
+
+    @Setup
+    public void setUp() {
+        GameState startState = GameState.builder()
+                .setConnectHowMany(Math.min(size, 5))
+                .setBoard(new Piece[size][size])
+                .setBoardType(GameState.BoardType.BIT)
+                .setNextPlayer(Piece.X)
+                .build();
+        Player player1 = createPlayer(Piece.X);
+        Player player2 = createPlayer(Piece.O);
+        simulator = new Simulator(startState, player1, player2);
+        simulator.setCopyBoard(false);
+    }
+
+    private Player createPlayer(Piece piece) {
+        Player player;
+        switch (playerType) {
+            case RANDOM:
+                player = new RandomPlayer();
+                break;
+            case RANDOM_ADJACENT:
+                player = new RandomAdjacentPlayer();
+                break;
+            case NAIVE:
+                player = new NaivePlayer();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown player type " + playerType);
+        }
+        player.setPiece(piece);
+        return player;
+    }
+
+    @Benchmark
+    public GameState run() {
+        return simulator.run();
+    }
+}
@@ -0,0 +1,54 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.Positions;
+import org.atorma.tictactoe.game.Utils;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tree part of an MCTS rollout: selecting a path by UCT, expanding a node
+ * and propagating a result back to the root, without the simulation. The tree
+ * grows through the iteration, so later rollouts select along longer paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveNodeBenchmark {
+
+    @Param({"3", "18", "50"})
+    private int size;
+
+    private GameState startState;
+    private MoveNode root;
+
+    @Setup
+    public void setUp() {
+        startState = Positions.midGame(size, GameState.BoardType.BIT, Positions.SEED);
+    }
+
+    @Setup(Level.Iteration)
+    public void createTree() {
+        root = new MoveNode(startState, null, new WinLossDrawScheme());
+    }
+
+    @Benchmark
+    public MoveNode selectExpandPropagate() {
+        MoveNode node = root;
+        while (!node.isEndState()) {
+            MoveNode child = node.expandRandom();
+            if (child != null) {
+                node = child;
+                break;
+            }
+            node = Utils.pickRandom(node.getBestExploratoryMoves());
+        }
+        node.propagateSimulatedResult(null, 1, 1);
+        return node;
+    }
+}
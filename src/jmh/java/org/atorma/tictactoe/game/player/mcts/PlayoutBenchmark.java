@@ -0,0 +1,40 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.Positions;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single MCTS simulation from a board a quarter full to the end, per strategy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+    @Param({"3", "18", "50"})
+    private int size;
+
+    @Param({"UNIFORM_RANDOM", "RANDOM_ADJACENT", "NAIVE"})
+    private MCTSParameters.SimulationStrategy strategy;
+
+    private GameState startState;
+
+    @Setup
+    public void setUp() {
+        startState = Positions.midGame(size, GameState.BoardType.BIT, Positions.SEED);
+    }
+
+    @Benchmark
+    public Piece run() {
+        Playout playout = Playout.forCurrentThread();
+        playout.run(startState, strategy, Long.MAX_VALUE, Integer.MAX_VALUE);
+        return playout.getWinner();
+    }
+}
@@ -0,0 +1,77 @@
+package org.atorma.tictactoe.game.player.naive;
+
+import org.atorma.tictactoe.game.Positions;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking for a mandatory move after the opponent's move, and a whole
+ * naive move, as done in each turn of a game against the naive player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MandatoryMoveBenchmark {
+
+    @Param({"3", "18", "50"})
+    private int size;
+
+    private GameState state;
+    private Cell opponentsMove;
+    private MandatoryMoveOnlyPlayer mandatoryMovePlayer;
+    private NaivePlayer naivePlayer;
+
+    @Setup
+    public void setUp() {
+        state = Positions.midGame(size, GameState.BoardType.BIT, Positions.SEED);
+        opponentsMove = Positions.pickRandomMove(state, new Random(Positions.SEED));
+        mandatoryMovePlayer = new MandatoryMoveOnlyPlayer();
+        mandatoryMovePlayer.setPiece(state.getNextPlayer().other());
+        naivePlayer = new NaivePlayer();
+        naivePlayer.setPiece(state.getNextPlayer().other());
+    }
+
+    @Benchmark
+    public Cell getMandatoryMove() {
+        state.makeMove(opponentsMove);
+        Cell move = mandatoryMovePlayer.move(state, opponentsMove);
+        state.undo(opponentsMove);
+        return move;
+    }
+
+    @Benchmark
+    public Cell naiveMove() {
+        state.makeMove(opponentsMove);
+        Cell move = naivePlayer.move(state, opponentsMove);
+        state.undo(opponentsMove);
+        return move;
+    }
+
+
+    private static class MandatoryMoveOnlyPlayer extends MandatoryMovePlayer {
+        private Piece piece;
+
+        @Override
+        protected Cell planMove() {
+            return getMandatoryMove().orElse(null);
+        }
+
+        @Override
+        public void setPiece(Piece p) {
+            this.piece = p;
+        }
+
+        @Override
+        public Piece getPiece() {
+            return piece;
+        }
+    }
+}
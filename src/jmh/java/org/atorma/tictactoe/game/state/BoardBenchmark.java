@@ -0,0 +1,84 @@
+package org.atorma.tictactoe.game.state;
+
+import org.atorma.tictactoe.game.Positions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading, writing and copying each {@link Board} implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"3", "18", "50"})
+    private int size;
+
+    @Param({"DENSE_ARRAY", "DENSE_MATRIX", "HASH_MAP", "BIT"})
+    private GameState.BoardType boardType;
+
+    private Board board;
+    private Cell[] cells;
+    private Cell emptyCell;
+
+    @Setup
+    public void setUp() {
+        GameState state = Positions.midGame(size, boardType, Positions.SEED);
+        Piece[][] pieces = new Piece[size][size];
+        cells = new Cell[size*size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                pieces[i][j] = state.getPiece(i, j);
+                cells[i*size + j] = new Cell(i, j);
+                if (pieces[i][j] == null) {
+                    emptyCell = cells[i*size + j];
+                }
+            }
+        }
+        board = createBoard(pieces);
+    }
+
+    private Board createBoard(Piece[][] pieces) {
+        switch (boardType) {
+            case DENSE_ARRAY:
+                return new DenseArrayBoard(pieces);
+            case DENSE_MATRIX:
+                return new DenseMatrixBoard(pieces);
+            case HASH_MAP:
+                return new HashMapBoard(pieces);
+            case BIT:
+                return new BitBoard(pieces);
+            default:
+                throw new IllegalArgumentException("Unknown board type " + boardType);
+        }
+    }
+
+    /** Reads every cell of the board. */
+    @Benchmark
+    public int getAll() {
+        int numX = 0;
+        for (Cell cell : cells) {
+            if (board.get(cell) == Piece.X) {
+                numX++;
+            }
+        }
+        return numX;
+    }
+
+    @Benchmark
+    public int setAndClear() {
+        board.set(emptyCell, Piece.X);
+        board.set(emptyCell, null);
+        return board.getNumPieces();
+    }
+
+    @Benchmark
+    public Board copy() {
+        return board.copy();
+    }
+}
@@ -0,0 +1,65 @@
+package org.atorma.tictactoe.game.state;
+
+import org.atorma.tictactoe.game.Positions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameState operations on a board a quarter full, for each board implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+    @Param({"3", "18", "50"})
+    private int size;
+
+    @Param({"DENSE_ARRAY", "DENSE_MATRIX", "HASH_MAP", "BIT"})
+    private GameState.BoardType boardType;
+
+    private GameState state;
+    private Cell move;
+
+    @Setup
+    public void setUp() {
+        state = Positions.midGame(size, boardType, Positions.SEED);
+        move = Positions.pickRandomMove(state, new Random(Positions.SEED));
+    }
+
+    @Benchmark
+    public GameState next() {
+        return state.next(move);
+    }
+
+    @Benchmark
+    public Piece makeMoveAndUndo() {
+        state.makeMove(move);
+        Piece winner = state.getWinner();
+        state.undo(move);
+        return winner;
+    }
+
+    @Benchmark
+    public GameState getCopy() {
+        return state.getCopy();
+    }
+
+    /** Allowed moves are cached in a state, so this includes {@link #getCopy()}. */
+    @Benchmark
+    public List<Cell> getAllowedMovesOfCopy() {
+        return state.getCopy().getAllowedMoves();
+    }
+
+    @Benchmark
+    public Map<Piece, List<Sequence>> getAllSequences() {
+        return state.getAllSequences();
+    }
+}
@@ -2,7 +2,9 @@ package org.atorma.tictactoe;
 
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.atorma.tictactoe.game.player.mcts.PlanningExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ApplicationContext;
@@ -10,6 +12,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @SpringBootApplication
 public class TicTacToeApplication {
 
@@ -26,6 +31,20 @@ public class TicTacToeApplication {
         return objectMapper;
     }
 
+    /** Threads shared by all AI players for planning their moves */
+    @Bean(destroyMethod = "shutdown")
+    public PlanningExecutor planningExecutor(@Value("${mcts.planningThreads}") int numThreads,
+                                             @Value("${mcts.ponderingTasks}") int numPonderingTasks) {
+        numThreads = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+        return new PlanningExecutor(numThreads, numPonderingTasks >= 0 ? numPonderingTasks : Math.max(1, numThreads/2));
+    }
+
+    /** Threads that play turns, so that request threads are not held while AI players think */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService turnExecutor(@Value("${game.turnThreads}") int numThreads) {
+        return Executors.newFixedThreadPool(numThreads);
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(TicTacToeApplication.class, args);
     }
@@ -4,6 +4,7 @@ import org.atorma.tictactoe.controller.TurnParams;
 import org.atorma.tictactoe.exception.TicTacToeException;
 import org.atorma.tictactoe.game.player.Player;
 import org.atorma.tictactoe.game.player.human.HumanPlayer;
+import org.atorma.tictactoe.game.player.mcts.MCTSPlayer;
 import org.atorma.tictactoe.game.state.Cell;
 import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
@@ -14,12 +15,15 @@ import org.springframework.util.Assert;
 import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Provides a thread-safe access for playing turns and accessing the game state.
@@ -29,17 +33,44 @@ import java.util.concurrent.atomic.AtomicReference;
 public class Game {
     private static final Logger LOGGER = LoggerFactory.getLogger(Game.class);
 
-    private final String id = UUID.randomUUID().toString();
+    private final String id;
+    private final GameParams params;
     private final Map<Piece, Player> players;
+    private final GameMetrics metrics;
     private AtomicReference<GameState> state = new AtomicReference<>();
+    private GameState playersState; // same position as state, given to the players, see playTurnLocked()
     private AtomicReference<Move> lastMove = new AtomicReference<>();
     private AtomicInteger turnNumber = new AtomicInteger(1);
     private AtomicBoolean deleted = new AtomicBoolean(false);
     private AtomicReference<ZonedDateTime> timeLastPlayed = new AtomicReference<>();
+    private final List<Move> moves = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Game>> turnListeners = new CopyOnWriteArrayList<>();
 
     public Game(Player player1, Player player2, GameState initialState) {
+        this(player1, player2, initialState, GameMetrics.NONE);
+    }
+
+    public Game(Player player1, Player player2, GameState initialState, GameMetrics metrics) {
+        this(UUID.randomUUID().toString(), null, player1, player2, initialState, Collections.emptyList(), ZonedDateTime.now(), metrics);
+    }
+
+    /**
+     * Creates a game that continues after the given moves.
+     *
+     * @param params
+     *  The parameters the game was created with, or null if not known
+     * @param moves
+     *  Moves played from the initial state
+     */
+    Game(String id, GameParams params, Player player1, Player player2, GameState initialState,
+         List<Cell> moves, ZonedDateTime timeLastPlayed, GameMetrics metrics) {
+        Assert.hasText(id);
         Assert.isTrue(player1 != player2);
         Assert.notNull(initialState);
+        Assert.notNull(metrics);
+        this.id = id;
+        this.params = params;
+        this.metrics = metrics;
 
         assignPieces(player1, player2);
 
@@ -48,9 +79,21 @@ public class Game {
         players.put(player2.getPiece(), player2);
         this.players = Collections.unmodifiableMap(players);
 
-        state.set(initialState.getCopy());
+        GameState state = initialState.getCopy();
+        for (Cell cell : moves) {
+            if (state.isAtEnd() || !state.isAllowed(cell)) {
+                throw new IllegalArgumentException("Move " + cell + " not allowed in game " + id);
+            }
+            Move move = new Move(state.getNextPlayer(), cell);
+            state = state.next(cell);
+            this.moves.add(move);
+            this.lastMove.set(move);
+        }
+        this.state.set(state);
+        this.playersState = state.getCopy();
+        this.turnNumber.set(moves.size() + 1);
 
-        timeLastPlayed.set(ZonedDateTime.now());
+        this.timeLastPlayed.set(timeLastPlayed);
 
         LOGGER.debug("New game created. {}: {}, {}: {}", player1.getPiece(), player1, player2.getPiece(), player2);
     }
@@ -73,6 +116,11 @@ public class Game {
         return id;
     }
 
+    /** Returns the parameters the game was created with, or null if not known. */
+    public GameParams getParams() {
+        return params;
+    }
+
     public Map<Piece, Player> getPlayers() {
         return players;
     }
@@ -85,39 +133,93 @@ public class Game {
         return lastMove.get();
     }
 
+    /** Returns the moves played so far, in order. */
+    public List<Move> getMoves() {
+        return Collections.unmodifiableList(moves);
+    }
+
     public int getTurnNumber() {
         return turnNumber.get();
     }
 
-    public synchronized void playTurn(TurnParams turnParams) {
+    /**
+     * Lets the next player move. The turn listeners are notified after the turn,
+     * outside the lock that serializes turns.
+     */
+    public void playTurn(TurnParams turnParams) {
+        synchronized (this) {
+            playTurnLocked(turnParams);
+        }
+        if (hasMCTSPlayer() && getState().isAtEnd()) {
+            stopPondering();
+        }
+        turnListeners.forEach(listener -> listener.accept(this));
+    }
+
+    /**
+     * The players are given states of their own, which they may ask for indexes that are
+     * created lazily and not thread-safe, such as {@link GameState#getThreats()}. The
+     * indexes are handed over to the players' next state, while the state returned by
+     * {@link #getState()} is a plain copy that is only read.
+     */
+    private void playTurnLocked(TurnParams turnParams) {
         if (turnParams.turnNumber != getTurnNumber()) {
             throw new TicTacToeException("Trying to play wrong turn");
         }
 
-        GameState state = getState();
         Move lastMove = getLastMove();
-        Piece nextPlayerPiece = state.getNextPlayer();
+        Piece nextPlayerPiece = playersState.getNextPlayer();
         Player nextPlayer = players.get(nextPlayerPiece);
 
         if (nextPlayer instanceof HumanPlayer) {
             ((HumanPlayer) nextPlayer).setNextMove(turnParams.getMove());
         }
 
-        Cell moveCell = players.get(nextPlayerPiece).move(state, lastMove != null ? lastMove.getCell() : null);
-        this.state.set(state.next(moveCell));
-        this.lastMove.set(new Move(nextPlayerPiece, moveCell));
+        long startTime = System.nanoTime();
+        Cell moveCell = nextPlayer.move(playersState, lastMove != null ? lastMove.getCell() : null);
+        metrics.turnPlayed(nextPlayer, System.nanoTime() - startTime);
+        Move move = new Move(nextPlayerPiece, moveCell);
+        playersState = playersState.nextWithIndexes(moveCell);
+        this.state.set(playersState.getCopy());
+        this.moves.add(move);
+        this.lastMove.set(move);
         LOGGER.debug("Turn {}: {} to {}", turnNumber, nextPlayerPiece, moveCell);
         turnNumber.incrementAndGet();
 
         timeLastPlayed.set(ZonedDateTime.now());
     }
 
+    /** Adds a listener that is called with this game after each turn. */
+    public void addTurnListener(Consumer<Game> listener) {
+        turnListeners.add(listener);
+    }
+
+    public void removeTurnListener(Consumer<Game> listener) {
+        turnListeners.remove(listener);
+    }
+
     public boolean isDeleted() {
         return deleted.get();
     }
 
     public void setDeleted(boolean deleted) {
         this.deleted.set(deleted);
+        if (deleted) {
+            players.values().stream()
+                    .filter(player -> player instanceof MCTSPlayer)
+                    .forEach(player -> ((MCTSPlayer) player).disablePondering());
+        }
+    }
+
+    private boolean hasMCTSPlayer() {
+        return players.values().stream().anyMatch(player -> player instanceof MCTSPlayer);
+    }
+
+    /** Stops AI players from searching in the background when there is no next turn for them. */
+    private void stopPondering() {
+        players.values().stream()
+                .filter(player -> player instanceof MCTSPlayer)
+                .forEach(player -> ((MCTSPlayer) player).stopPondering());
     }
 
     public ZonedDateTime getTimeLastPlayed() {
@@ -1,26 +1,43 @@
 package org.atorma.tictactoe.application;
 
 import org.atorma.tictactoe.game.player.Player;
+import org.atorma.tictactoe.game.state.Cell;
 import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 public class GameFactory {
 
     private PlayerRegistry playerRegistry;
+    private GameMetrics gameMetrics;
 
     @Autowired
-    public GameFactory(PlayerRegistry playerRegistry) {
+    public GameFactory(PlayerRegistry playerRegistry, GameMetrics gameMetrics) {
         this.playerRegistry = playerRegistry;
+        this.gameMetrics = gameMetrics;
     }
 
     public Game createGame(GameParams gameParams) {
+        return restoreGame(UUID.randomUUID().toString(), gameParams, Collections.emptyList(), ZonedDateTime.now());
+    }
+
+    /**
+     * Creates a game that was created earlier with the given id and parameters,
+     * continuing after the moves played in it. New players are created.
+     *
+     * @throws IllegalArgumentException
+     *  If the moves cannot be played in the game
+     */
+    public Game restoreGame(String id, GameParams gameParams, List<Cell> moves, ZonedDateTime timeLastPlayed) {
         Assert.isTrue(gameParams.players.size() == 2, "Must have 2 players");
         Assert.isTrue(!gameParams.players.keySet().contains(null), "Null piece assignment not allowed");
 
@@ -29,6 +46,7 @@ public class GameFactory {
         GameState initialState = GameState.builder()
                 .setConnectHowMany(gameParams.connectHowMany)
                 .setBoard(board)
+                .setBoardType(GameState.BoardType.BIT)
                 .setNextPlayer(gameParams.firstPlayer)
                 .build();
 
@@ -39,7 +57,7 @@ public class GameFactory {
             players.add(player);
         }
 
-        Game game = new Game(players.get(0), players.get(1), initialState);
+        Game game = new Game(id, gameParams, players.get(0), players.get(1), initialState, moves, timeLastPlayed, gameMetrics);
 
         return game;
     }
@@ -0,0 +1,20 @@
+package org.atorma.tictactoe.application;
+
+import org.atorma.tictactoe.game.player.Player;
+
+/**
+ * Receives measurements of the turns played in {@link Game}s.
+ */
+public interface GameMetrics {
+
+    /** Discards the measurements */
+    GameMetrics NONE = (player, elapsedNanos) -> {};
+
+    /**
+     * Called after a player has moved.
+     *
+     * @param elapsedNanos
+     *  how long the player took to choose the move
+     */
+    void turnPlayed(Player player, long elapsedNanos);
+}
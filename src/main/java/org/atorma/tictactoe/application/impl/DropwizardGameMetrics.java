@@ -0,0 +1,66 @@
+package org.atorma.tictactoe.application.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.atorma.tictactoe.application.GameMetrics;
+import org.atorma.tictactoe.game.player.Player;
+import org.atorma.tictactoe.game.player.mcts.MCTSPlayer;
+import org.atorma.tictactoe.game.player.mcts.MoveNode;
+import org.atorma.tictactoe.game.player.mcts.PlanningStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records turn and MCTS planning metrics in the Dropwizard metric registry,
+ * which Spring Boot Actuator publishes at /metrics. The planning metrics come from
+ * {@link MCTSPlayer#getLastPlanningStats()}, so they are recorded whatever the
+ * game tree store, not from {@link MCTSPlayer#getLastMove()}, which is null for an arena:
+ * <ul>
+ * <li>game.turn.[player class]: timer of the time taken to move, per type of player</li>
+ * <li>mcts.moves, mcts.moves.mandatory: counts of all MCTS moves and those chosen without searching</li>
+ * <li>mcts.rolloutsPerSecond, mcts.treeSize, mcts.maxDepth: histograms per MCTS move</li>
+ * <li>mcts.selection, mcts.simulation, mcts.backpropagation: timers of the time spent in
+ * each phase of the search per MCTS move, summed over the planning threads</li>
+ * <li>mcts.stateReconstructions: gauge of game states replayed after garbage collection,
+ * see {@link MoveNode#getGameState()}. Only trees of MoveNode objects replay states this way.</li>
+ * </ul>
+ */
+@Service
+public class DropwizardGameMetrics implements GameMetrics {
+
+    private final MetricRegistry registry;
+
+    @Autowired
+    public DropwizardGameMetrics(MetricRegistry registry) {
+        this.registry = registry;
+        registry.register("mcts.stateReconstructions", (Gauge<Long>) MoveNode::getNumStateReconstructions);
+    }
+
+    @Override
+    public void turnPlayed(Player player, long elapsedNanos) {
+        registry.timer(MetricRegistry.name("game.turn", player.getClass().getSimpleName()))
+                .update(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (player instanceof MCTSPlayer) {
+            PlanningStats stats = ((MCTSPlayer) player).getLastPlanningStats();
+            if (stats != null) {
+                recordPlanning(stats);
+            }
+        }
+    }
+
+    private void recordPlanning(PlanningStats stats) {
+        registry.counter("mcts.moves").inc();
+        if (stats.isMandatoryMove()) {
+            registry.counter("mcts.moves.mandatory").inc();
+        }
+        registry.histogram("mcts.rolloutsPerSecond").update(Math.round(stats.getRolloutsPerSecond()));
+        registry.histogram("mcts.treeSize").update(stats.getTreeSize());
+        registry.histogram("mcts.maxDepth").update(stats.getMaxDepth());
+        registry.timer("mcts.selection").update(stats.getSelectionNanos(), TimeUnit.NANOSECONDS);
+        registry.timer("mcts.simulation").update(stats.getSimulationNanos(), TimeUnit.NANOSECONDS);
+        registry.timer("mcts.backpropagation").update(stats.getBackpropagationNanos(), TimeUnit.NANOSECONDS);
+    }
+}
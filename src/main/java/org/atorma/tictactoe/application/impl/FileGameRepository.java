@@ -0,0 +1,150 @@
+package org.atorma.tictactoe.application.impl;
+
+import org.atorma.tictactoe.application.Game;
+import org.atorma.tictactoe.application.GameFactory;
+import org.atorma.tictactoe.application.GameParams;
+import org.atorma.tictactoe.application.PlayerRegistry;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.Piece;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the games in memory like {@link InMemoryGameRepository}, and also stores them
+ * in files with {@link GameFileStore}, so that they survive restarts. On startup the games
+ * are restored by replaying their moves with new players, see {@link GameFactory#restoreGame}.
+ * <p/>
+ * Only games created with {@link GameFactory} are stored, as only they know their parameters.
+ * Enabled with game.repository=file.
+ */
+@Repository
+@ConditionalOnProperty(name = "game.repository", havingValue = "file")
+public class FileGameRepository extends InMemoryGameRepository {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileGameRepository.class);
+
+    private final GameFactory gameFactory;
+    private final PlayerRegistry playerRegistry;
+    private final GameFileStore store;
+    private final ConcurrentHashMap<String, Integer> numStoredMoves = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FileGameRepository(GameFactory gameFactory, PlayerRegistry playerRegistry,
+                              @Value("${game.storageDirectory}") String storageDirectory,
+                              @Value("${game.compactAfterEvents}") int compactAfterEvents) {
+        this.gameFactory = gameFactory;
+        this.playerRegistry = playerRegistry;
+        this.store = new GameFileStore(Paths.get(storageDirectory), compactAfterEvents);
+    }
+
+    @PostConstruct
+    public void restoreGames() throws IOException {
+        List<GameFileStore.GameRecord> records = store.open();
+        for (GameFileStore.GameRecord record : records) {
+            try {
+                Game game = gameFactory.restoreGame(record.id, toGameParams(record), toCells(record.moves),
+                        ZonedDateTime.ofInstant(Instant.ofEpochMilli(record.timeLastPlayed), ZoneId.systemDefault()));
+                super.save(game);
+                numStoredMoves.put(game.getId(), record.moves.size());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Cannot restore game " + record.id, e);
+                store.deleted(record.id);
+            }
+        }
+        LOGGER.info("{} of {} stored games restored", numStoredMoves.size(), records.size());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        store.close();
+    }
+
+    /**
+     * Keeps the game in memory, and queues the moves played since the game was last saved
+     * to be stored.
+     */
+    @Override
+    public Game save(Game game) {
+        Game savedGame = super.save(game);
+        if (game.getParams() != null) {
+            numStoredMoves.compute(game.getId(), (id, numStored) -> storeNewMoves(game, numStored));
+        }
+        return savedGame;
+    }
+
+    private Integer storeNewMoves(Game game, Integer numStored) {
+        List<Game.Move> moves = game.getMoves();
+        long time = game.getTimeLastPlayed().toInstant().toEpochMilli();
+        if (numStored == null) {
+            GameFileStore.GameRecord record = toGameRecord(game);
+            record.moves = toRowsAndColumns(moves);
+            record.timeLastPlayed = time;
+            store.created(record);
+        } else {
+            for (int i = numStored; i < moves.size(); i++) {
+                Cell cell = moves.get(i).getCell();
+                store.moved(game.getId(), i + 1, new int[] {cell.getRow(), cell.getColumn()}, time);
+            }
+        }
+        return moves.size();
+    }
+
+    @Override
+    public void delete(Game game) {
+        super.delete(game);
+        if (game != null && numStoredMoves.remove(game.getId()) != null) {
+            store.deleted(game.getId());
+        }
+    }
+
+
+    private static GameFileStore.GameRecord toGameRecord(Game game) {
+        GameParams params = game.getParams();
+        GameFileStore.GameRecord record = new GameFileStore.GameRecord();
+        record.id = game.getId();
+        record.rows = params.board.rows;
+        record.columns = params.board.columns;
+        record.connectHowMany = params.connectHowMany;
+        record.firstPlayer = params.firstPlayer;
+        params.players.forEach((piece, playerInfo) -> record.players.put(piece, playerInfo.getId()));
+        return record;
+    }
+
+    private GameParams toGameParams(GameFileStore.GameRecord record) {
+        GameParams params = new GameParams();
+        params.board.rows = record.rows;
+        params.board.columns = record.columns;
+        params.connectHowMany = record.connectHowMany;
+        params.firstPlayer = record.firstPlayer;
+        for (Piece piece : Piece.values()) {
+            params.players.put(piece, playerRegistry.getPlayerInfoById(record.players.get(piece)));
+        }
+        return params;
+    }
+
+    private static List<int[]> toRowsAndColumns(List<Game.Move> moves) {
+        return moves.stream()
+                .map(move -> new int[] {move.getCell().getRow(), move.getCell().getColumn()})
+                .collect(Collectors.toList());
+    }
+
+    private static List<Cell> toCells(List<int[]> moves) {
+        return moves.stream()
+                .map(move -> new Cell(move[0], move[1]))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,291 @@
+package org.atorma.tictactoe.application.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.atorma.tictactoe.game.state.Piece;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Keeps games in a directory as a snapshot of the games and a log of the events
+ * after the snapshot, one JSON object per line: game created, move played, game deleted.
+ * <p/>
+ * Events are queued and written by a background thread in batches, one flush and sync
+ * to disk per batch, so that storing does not slow down playing. An event that cannot
+ * be applied is logged and skipped, and the rest of its batch is still written. When enough events have been written,
+ * the log is compacted: the games are written into a new snapshot and the log is emptied.
+ * The snapshot is replaced atomically, and replaying a move already in the snapshot has
+ * no effect, so the games survive a crash at any point, except for events not yet written.
+ */
+class GameFileStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameFileStore.class);
+
+    static final String SNAPSHOT_FILE = "games-snapshot.json";
+    static final String LOG_FILE = "games-log.jsonl";
+
+    private final Path directory;
+    private final int compactAfterEvents;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private final Map<String, GameRecord> games = new LinkedHashMap<>(); // as written, accessed by the writer thread after opening
+    private FileOutputStream logStream;
+    private BufferedWriter logWriter;
+    private int numEventsInLog;
+    private Thread writerThread;
+
+
+    /**
+     * @param compactAfterEvents
+     *  Number of events written to the log before it is compacted into a snapshot
+     */
+    GameFileStore(Path directory, int compactAfterEvents) {
+        if (compactAfterEvents < 1) throw new IllegalArgumentException("Invalid number of events " + compactAfterEvents + ". Must be >= 1.");
+        this.directory = directory;
+        this.compactAfterEvents = compactAfterEvents;
+    }
+
+    /**
+     * Reads the stored games, compacts the log and starts writing events.
+     *
+     * @return
+     *  The stored games, in the order they were created
+     */
+    synchronized List<GameRecord> open() throws IOException {
+        if (writerThread != null) throw new IllegalStateException("Already open");
+
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            List<GameRecord> snapshot = objectMapper.readValue(snapshotFile.toFile(), new TypeReference<List<GameRecord>>() {});
+            snapshot.forEach(game -> games.put(game.id, game));
+        }
+        Path logFile = directory.resolve(LOG_FILE);
+        if (Files.exists(logFile)) {
+            replayLog(logFile);
+        }
+        compact();
+
+        List<GameRecord> result = new ArrayList<>();
+        games.values().forEach(game -> result.add(game.copy()));
+
+        writerThread = new Thread(this::writeEvents, "game-file-store");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        return result;
+    }
+
+    private void replayLog(Path logFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    apply(objectMapper.readValue(line, Event.class));
+                } catch (JsonProcessingException e) { // a line cut short by a crash
+                    LOGGER.warn("Skipping unreadable line in {}: {}", logFile, line);
+                }
+            }
+        }
+    }
+
+    /** Stores a new game. */
+    void created(GameRecord game) {
+        Event event = new Event();
+        event.type = Event.CREATED;
+        event.game = game.copy();
+        event.game.moves = new ArrayList<>();
+        queue.add(event);
+        for (int i = 0; i < game.moves.size(); i++) {
+            moved(game.id, i + 1, game.moves.get(i), game.timeLastPlayed);
+        }
+    }
+
+    /**
+     * Stores a move.
+     *
+     * @param turnNumber
+     *  Number of the move, 1 for the first move
+     * @param move
+     *  Row and column of the move
+     */
+    void moved(String gameId, int turnNumber, int[] move, long time) {
+        Event event = new Event();
+        event.type = Event.MOVED;
+        event.gameId = gameId;
+        event.turnNumber = turnNumber;
+        event.move = move;
+        event.time = time;
+        queue.add(event);
+    }
+
+    /** Removes a game. */
+    void deleted(String gameId) {
+        Event event = new Event();
+        event.type = Event.DELETED;
+        event.gameId = gameId;
+        queue.add(event);
+    }
+
+    /**
+     * Writes the events stored so far, compacts the log and stops the writer thread.
+     */
+    synchronized void close() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        Event event = new Event();
+        event.type = Event.CLOSED;
+        queue.add(event);
+        writerThread.join();
+        writerThread = null;
+    }
+
+    private void writeEvents() {
+        List<Event> batch = new ArrayList<>();
+        boolean closed = false;
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Event event : batch) {
+                    if (Event.CLOSED.equals(event.type)) {
+                        closed = true;
+                    } else {
+                        String line;
+                        try {
+                            line = objectMapper.writeValueAsString(event);
+                            apply(event);
+                        } catch (JsonProcessingException | RuntimeException e) {
+                            LOGGER.error("Skipping game event that could not be stored: {} {}", event.type, event.gameId, e);
+                            continue;
+                        }
+                        logWriter.write(line);
+                        logWriter.newLine();
+                        numEventsInLog++;
+                    }
+                }
+                logWriter.flush();
+                logStream.getChannel().force(false);
+                if (closed || numEventsInLog >= compactAfterEvents) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("Interrupted, {} game events not stored", queue.size());
+                closed = true;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Failed to store game events", e);
+            }
+            batch.clear();
+        }
+        try {
+            logWriter.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close game log", e);
+        }
+    }
+
+    private void apply(Event event) {
+        switch (event.type) {
+            case Event.CREATED:
+                games.putIfAbsent(event.game.id, event.game.copy());
+                break;
+            case Event.MOVED:
+                GameRecord game = games.get(event.gameId);
+                if (game != null && event.turnNumber == game.moves.size() + 1) {
+                    game.moves.add(event.move);
+                    game.timeLastPlayed = event.time;
+                }
+                break;
+            case Event.DELETED:
+                games.remove(event.gameId);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event type " + event.type);
+        }
+    }
+
+    /** Writes the games into a new snapshot and empties the log. */
+    private void compact() throws IOException {
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        Path newSnapshotFile = directory.resolve(SNAPSHOT_FILE + ".new");
+        try (FileOutputStream out = new FileOutputStream(newSnapshotFile.toFile())) {
+            out.write(objectMapper.writeValueAsBytes(games.values()));
+            out.getChannel().force(false);
+        }
+        Files.move(newSnapshotFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (logWriter != null) {
+            logWriter.close();
+        }
+        logStream = new FileOutputStream(directory.resolve(LOG_FILE).toFile()); // emptied
+        logWriter = new BufferedWriter(new OutputStreamWriter(logStream, StandardCharsets.UTF_8));
+        numEventsInLog = 0;
+        LOGGER.debug("Game log compacted, {} games in snapshot", games.size());
+    }
+
+
+    /** A game as stored: the parameters it was created with, and the moves played. */
+    static class GameRecord {
+        public String id;
+        public int rows;
+        public int columns;
+        public int connectHowMany;
+        public Piece firstPlayer;
+        /** Player info ids */
+        public Map<Piece, String> players = new EnumMap<>(Piece.class);
+        /** Row and column of each move */
+        public List<int[]> moves = new ArrayList<>();
+        /** Epoch milliseconds */
+        public long timeLastPlayed;
+
+        GameRecord copy() {
+            GameRecord copy = new GameRecord();
+            copy.id = id;
+            copy.rows = rows;
+            copy.columns = columns;
+            copy.connectHowMany = connectHowMany;
+            copy.firstPlayer = firstPlayer;
+            copy.players.putAll(players);
+            copy.moves = new ArrayList<>(moves);
+            copy.timeLastPlayed = timeLastPlayed;
+            return copy;
+        }
+    }
+
+    static class Event {
+        static final String CREATED = "created";
+        static final String MOVED = "moved";
+        static final String DELETED = "deleted";
+        static final String CLOSED = "closed"; // not written
+
+        public String type;
+        public GameRecord game;
+        public String gameId;
+        public int turnNumber;
+        public int[] move;
+        public long time;
+    }
+}
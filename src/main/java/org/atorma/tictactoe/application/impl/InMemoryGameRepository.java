@@ -7,6 +7,7 @@ import org.atorma.tictactoe.application.Game;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
@@ -16,6 +17,7 @@ import java.time.ZonedDateTime;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
+@ConditionalOnProperty(name = "game.repository", havingValue = "memory", matchIfMissing = true)
 public class InMemoryGameRepository implements GameRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryGameRepository.class);
 
@@ -8,11 +8,15 @@ import org.atorma.tictactoe.game.player.Player;
 import org.atorma.tictactoe.game.player.human.HumanPlayer;
 import org.atorma.tictactoe.game.player.mcts.MCTSParameters;
 import org.atorma.tictactoe.game.player.mcts.MCTSPlayer;
+import org.atorma.tictactoe.game.player.mcts.PlanningExecutor;
+import org.atorma.tictactoe.game.player.mcts.RaveScheme;
+import org.atorma.tictactoe.game.player.mcts.WinLossDrawScheme;
 import org.atorma.tictactoe.game.player.naive.NaivePlayer;
 import org.atorma.tictactoe.game.player.random.RandomAdjacentPlayer;
 import org.atorma.tictactoe.game.player.random.RandomPlayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -26,20 +30,27 @@ public class InMemoryPlayerRegistry implements PlayerRegistry {
     private List<PlayerInfo> playerInfoList = new ArrayList<>();
     private Map<String, Class<? extends Player>> playerClasses = new HashMap<>();
     private Map<String, Object> playerConfigs = new HashMap<>();
+    private PlanningExecutor planningExecutor;
+
+    @Autowired
+    public InMemoryPlayerRegistry(PlanningExecutor planningExecutor) {
+        this.planningExecutor = planningExecutor;
 
-    public InMemoryPlayerRegistry() {
         addPlayerInfo("Human", PlayerInfo.Type.HUMAN, HumanPlayer.class);
 
         MCTSParameters naiveParams = new MCTSParameters();
         naiveParams.simulationStrategy = MCTSParameters.SimulationStrategy.NAIVE;
+        naiveParams.ponder = true;
         addPlayerInfo("MCTS naive heuristics", PlayerInfo.Type.AI, MCTSPlayer.class, naiveParams);
 
         MCTSParameters randomAdjacentParams = new MCTSParameters();
         randomAdjacentParams.simulationStrategy = MCTSParameters.SimulationStrategy.RANDOM_ADJACENT;
+        randomAdjacentParams.ponder = true;
         addPlayerInfo("MCTS random adjacent", PlayerInfo.Type.AI, MCTSPlayer.class, randomAdjacentParams);
 
         MCTSParameters uniformRandomParams = new MCTSParameters();
         uniformRandomParams.simulationStrategy = MCTSParameters.SimulationStrategy.UNIFORM_RANDOM;
+        uniformRandomParams.ponder = true;
         addPlayerInfo("MCTS uniform random", PlayerInfo.Type.AI, MCTSPlayer.class, uniformRandomParams);
 
         addPlayerInfo("Naive heuristics", PlayerInfo.Type.AI, NaivePlayer.class);
@@ -47,6 +58,13 @@ public class InMemoryPlayerRegistry implements PlayerRegistry {
         addPlayerInfo("Random adjacent", PlayerInfo.Type.AI, RandomAdjacentPlayer.class);
 
         addPlayerInfo("Uniform random", PlayerInfo.Type.AI, RandomPlayer.class);
+
+        // Added last so that the ids of the other players, kept in stored games, do not change
+        MCTSParameters raveParams = new MCTSParameters();
+        raveParams.simulationStrategy = MCTSParameters.SimulationStrategy.NAIVE;
+        raveParams.rewardScheme = new RaveScheme(new WinLossDrawScheme());
+        raveParams.ponder = true;
+        addPlayerInfo("MCTS naive heuristics with RAVE", PlayerInfo.Type.AI, MCTSPlayer.class, raveParams);
     }
 
     private PlayerInfo addPlayerInfo(String name, PlayerInfo.Type type, Class<? extends Player> playerClass, Object configuration) {
@@ -93,6 +111,9 @@ public class InMemoryPlayerRegistry implements PlayerRegistry {
                 Configurable configurable = (Configurable) player;
                 configurable.configure(playerConfigs.get(playerInfo.getId()));
             }
+            if (player instanceof MCTSPlayer) {
+                ((MCTSPlayer) player).setPlanningExecutor(planningExecutor);
+            }
             // TODO configure with user input
             return player;
         } catch (InstantiationException | IllegalAccessException e) {
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import org.atorma.tictactoe.application.GameFactory;
 import org.atorma.tictactoe.application.GameParams;
 import org.atorma.tictactoe.application.GameRepository;
-import org.atorma.tictactoe.exception.GameDeletedException;
 import org.atorma.tictactoe.exception.NotFoundException;
 import org.atorma.tictactoe.exception.TicTacToeException;
 import org.atorma.tictactoe.application.Game;
@@ -13,12 +12,18 @@ import org.atorma.tictactoe.game.state.Sequence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping(value = "/games")
@@ -27,6 +32,7 @@ public class GameController {
 
     private GameRepository gameRepository;
     private GameFactory gameFactory;
+    private ExecutorService turnExecutor;
 
 
     @RequestMapping(method = RequestMethod.POST)
@@ -42,21 +48,59 @@ public class GameController {
         return new GameDetailDTO(gameRepository.findById(gameId));
     }
 
+    /**
+     * Plays the turn in the turn executor, so that the request thread is freed while
+     * an AI player thinks. The response is sent when the turn has been played.
+     */
     @RequestMapping(value = "/{gameId}/turns", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public GameDTO playTurn(@PathVariable("gameId") String gameId,
-                            @RequestBody TurnParams turnParams,
-                            HttpServletResponse response) {
+    public DeferredResult<GameDTO> playTurn(@PathVariable("gameId") String gameId,
+                                            @RequestBody TurnParams turnParams) {
         Game game = gameRepository.findById(gameId);
-        game.playTurn(turnParams);
 
+        DeferredResult<GameDTO> result = new DeferredResult<>();
         try {
-            game = gameRepository.save(game);
-        } catch (GameDeletedException e) {
-            response.setStatus(HttpStatus.BAD_REQUEST.value());
-            return null;
+            turnExecutor.execute(() -> {
+                try {
+                    game.playTurn(turnParams);
+                    result.setResult(new GameDTO(gameRepository.save(game)));
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new TicTacToeException("Cannot play turns now", e);
         }
+        return result;
+    }
 
-        return new GameDTO(game);
+    /**
+     * Streams the game as server-sent events, first as it is now and then after each turn,
+     * until the game ends.
+     */
+    @RequestMapping(value = "/{gameId}/turns", method = RequestMethod.GET, produces = "text/event-stream")
+    public SseEmitter subscribeToTurns(@PathVariable("gameId") String gameId) {
+        Game game = gameRepository.findById(gameId);
+
+        SseEmitter emitter = new SseEmitter();
+        Consumer<Game> listener = new Consumer<Game>() {
+            @Override
+            public void accept(Game game) {
+                try {
+                    emitter.send(new GameDTO(game), MediaType.APPLICATION_JSON);
+                    if (game.getState().isAtEnd()) {
+                        game.removeTurnListener(this);
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) { // client gone or emitter already completed
+                    game.removeTurnListener(this);
+                }
+            }
+        };
+        emitter.onCompletion(() -> game.removeTurnListener(listener));
+        emitter.onTimeout(() -> game.removeTurnListener(listener));
+        game.addTurnListener(listener);
+        listener.accept(game);
+        return emitter;
     }
 
     @RequestMapping(value = "/{gameId}", method = RequestMethod.DELETE)
@@ -94,6 +138,11 @@ public class GameController {
         this.gameFactory = gameFactory;
     }
 
+    @Autowired
+    public void setTurnExecutor(@Qualifier("turnExecutor") ExecutorService turnExecutor) {
+        this.turnExecutor = turnExecutor;
+    }
+
 
 
     @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.NONE)
@@ -0,0 +1,802 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.Utils;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.Frontier;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.atorma.tictactoe.game.state.Threats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link SearchTree} that stores nodes in parallel primitive arrays instead of
+ * one {@link MoveNode} object per node. A node handle is an index to the arrays,
+ * and the root is always at index 0. The arrays are allocated in chunks of
+ * {@value #CHUNK_SIZE} nodes as the tree grows, up to a fixed capacity.
+ * <p/>
+ * A node takes about 50 bytes: its parent, first child and next sibling indexes,
+ * its move as a cell index, a few flags and its simulation statistics. Game states
+ * are not stored but replayed from the root state when needed, and the moves of
+ * a node that are still unexpanded are the empty cells that none of its children
+ * occupy. So tens of millions of nodes fit into a fixed amount of memory. Each
+ * thread keeps the state it replayed last, so that the state of its child is
+ * found with one more move.
+ * All-Moves-As-First results take 20 more bytes per node, but only if the reward
+ * scheme uses {@link RAVE}.
+ * <p/>
+ * Pruning compacts the remaining nodes to the beginning of the arrays and drops
+ * the chunks no longer used. Expansion stops when the arena is full, except for
+ * a couple of slots reserved for {@link #findMoveTo(Integer, Cell)} to follow
+ * the actual moves of the game.
+ * <p/>
+ * Statistics are updated lock free, and so is expansion: a slot is reserved by
+ * incrementing the size, its chunk is allocated by a compare-and-set if it is the
+ * first node there, and the child is published by a compare-and-set of the
+ * parent's first child index, which fails if another thread added a child meanwhile.
+ * The cells to expand are chosen from a thread-local bitset of the node's free cells.
+ * Pruning is not thread safe.
+ */
+class ArenaTree implements SearchTree<Integer> {
+
+    private static final int NONE = -1;
+    private static final int RESERVED_FOR_MOVES = 2;
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final ThreadLocal<long[]> FREE_CELLS = ThreadLocal.withInitial(() -> new long[0]);
+
+    private static final byte O_TO_MOVE = 1;
+    private static final byte END_STATE_KNOWN = 2;
+    private static final byte END_STATE = 4;
+
+    private final RewardScheme rewardScheme;
+    private final int numRows;
+    private final int numCols;
+    private final int numWords; // of a bitset of cells
+    private final int capacity;
+
+    private GameState rootState;
+    private long[] rootFree; // bitset of empty cells in the root state
+
+    private final boolean isAmafRecorded;
+    private final AtomicReferenceArray<Chunk> chunks;
+    private final AtomicInteger size = new AtomicInteger();
+    private int version; // changed when nodes move, see compact()
+    private final ThreadLocal<Replay> replays = ThreadLocal.withInitial(Replay::new);
+
+    /** Nodes CHUNK_SIZE*i ... CHUNK_SIZE*(i + 1) - 1 */
+    private static class Chunk {
+        final int[] parent = new int[CHUNK_SIZE];
+        final AtomicIntegerArray firstChild = new AtomicIntegerArray(CHUNK_SIZE);
+        final int[] nextSibling = new int[CHUNK_SIZE];
+        final short[] move = new short[CHUNK_SIZE]; // row*numCols + column, or NONE for the root of an empty board
+        final byte[] flags = new byte[CHUNK_SIZE];
+        final AtomicIntegerArray numPlays = new AtomicIntegerArray(CHUNK_SIZE);
+        final AtomicIntegerArray numVirtualLosses = new AtomicIntegerArray(CHUNK_SIZE);
+        final AtomicIntegerArray xWins = new AtomicIntegerArray(CHUNK_SIZE);
+        final AtomicIntegerArray oWins = new AtomicIntegerArray(CHUNK_SIZE);
+        final AtomicLongArray xRewardSums = new AtomicLongArray(CHUNK_SIZE); // double bits
+        final AtomicLongArray oRewardSums = new AtomicLongArray(CHUNK_SIZE);
+        final AtomicIntegerArray numAmafPlays; // null if no RAVE
+        final AtomicLongArray xAmafRewardSums;
+        final AtomicLongArray oAmafRewardSums;
+
+        Chunk(boolean isAmafRecorded) {
+            numAmafPlays = isAmafRecorded ? new AtomicIntegerArray(CHUNK_SIZE) : null;
+            xAmafRewardSums = isAmafRecorded ? new AtomicLongArray(CHUNK_SIZE) : null;
+            oAmafRewardSums = isAmafRecorded ? new AtomicLongArray(CHUNK_SIZE) : null;
+        }
+    }
+
+    /** The state a thread replayed last */
+    private static class Replay {
+        int version = -1;
+        int node = NONE;
+        GameState state;
+        short[] path = new short[0];
+    }
+
+    /**
+     * @param gameState
+     *  starting state
+     * @param cell
+     *  the move that lead to the starting state, or null if no move (empty board)
+     * @param rewardScheme
+     *  the reward scheme to use for scoring moves
+     * @param capacity
+     *  maximum number of nodes
+     */
+    ArenaTree(GameState gameState, Cell cell, RewardScheme rewardScheme, int capacity) {
+        if (capacity <= RESERVED_FOR_MOVES) throw new IllegalArgumentException("Capacity must be > " + RESERVED_FOR_MOVES + ", was " + capacity);
+        if (gameState.getBoardRows()*gameState.getBoardCols() > Short.MAX_VALUE) throw new IllegalArgumentException("Board too large for arena tree");
+
+        this.rewardScheme = rewardScheme;
+        this.numRows = gameState.getBoardRows();
+        this.numCols = gameState.getBoardCols();
+        this.numWords = (numRows*numCols + 63) >>> 6;
+        this.capacity = capacity;
+
+        this.isAmafRecorded = rewardScheme.getRaveEquivalence() > 0;
+        this.chunks = new AtomicReferenceArray<>((capacity + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+        this.chunks.set(0, new Chunk(isAmafRecorded));
+
+        this.size.set(1);
+        Chunk root = chunks.get(0);
+        root.parent[0] = NONE;
+        root.firstChild.set(0, NONE);
+        root.nextSibling[0] = NONE;
+        root.move[0] = cell != null ? (short) getCellIndex(cell) : NONE;
+        root.flags[0] = gameState.getNextPlayer() == Piece.O ? O_TO_MOVE : 0;
+        setRootState(gameState.getCopy());
+    }
+
+    /** Returns the number of nodes in the tree. */
+    public int size() {
+        return size.get();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /** Returns the number of nodes the allocated chunks have room for. */
+    int getAllocatedCapacity() {
+        int numChunks = 0;
+        for (int i = 0; i < chunks.length(); i++) {
+            if (chunks.get(i) != null) {
+                numChunks++;
+            }
+        }
+        return numChunks*CHUNK_SIZE;
+    }
+
+    public Integer getRoot() {
+        return 0;
+    }
+
+    public Integer getParent(Integer node) {
+        int p = parent(node);
+        return p != NONE ? p : null;
+    }
+
+    public Cell getMove(Integer node) {
+        short m = move(node);
+        return m != NONE ? getCell(m) : null;
+    }
+
+    Piece getNextPlayer(int node) {
+        return (flags(node) & O_TO_MOVE) != 0 ? Piece.O : Piece.X;
+    }
+
+    public boolean isEndState(Integer node) {
+        byte f = flags(node);
+        if ((f & END_STATE_KNOWN) == 0) {
+            getGameState(node); // updates flags
+            f = flags(node);
+        }
+        return (f & END_STATE) != 0;
+    }
+
+    /**
+     * Returns the state of the game at the node. Except for the root, the state is
+     * replayed from the root state, or from the state of the node's parent if the
+     * calling thread replayed that last. The returned state must not be modified, and
+     * the calling thread's next call may change it.
+     */
+    public GameState getGameState(Integer node) {
+        if (node == 0) {
+            return rootState;
+        }
+
+        Replay replay = replays.get();
+        if (replay.version == version && replay.node == node) {
+            return replay.state;
+        }
+        if (replay.version == version && replay.node != NONE && replay.node == parent(node)) {
+            replay.state.update(getCell(move(node)));
+        } else {
+            int depth = 0;
+            for (int n = node; n != 0; n = parent(n)) {
+                depth++;
+            }
+            if (replay.path.length < depth) {
+                replay.path = new short[2*depth];
+            }
+            for (int n = node, i = depth - 1; n != 0; n = parent(n), i--) {
+                replay.path[i] = move(n);
+            }
+
+            replay.state = rootState.getCopy();
+            for (int i = 0; i < depth; i++) {
+                replay.state.update(getCell(replay.path[i]));
+            }
+            replay.version = version;
+        }
+        replay.node = node;
+        setEndState(node, replay.state.isAtEnd());
+        return replay.state;
+    }
+
+    public boolean hasChildren(Integer node) {
+        return firstChild(node) != NONE;
+    }
+
+    public int getNumChildren(Integer node) {
+        int numChildren = 0;
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            numChildren++;
+        }
+        return numChildren;
+    }
+
+    /** Returns the currently expanded next moves. */
+    List<Integer> getChildren(int node) {
+        List<Integer> children = new ArrayList<>();
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            children.add(child);
+        }
+        return children;
+    }
+
+    public boolean isFull() {
+        return size.get() >= capacity - RESERVED_FOR_MOVES;
+    }
+
+    public Integer findMoveTo(Integer node, Cell nextPosition) {
+        int cellIndex = getCellIndex(nextPosition);
+        int child = findChild(node, cellIndex);
+        if (child != NONE) {
+            return child;
+        }
+        if (isEndState(node) || isOccupied(node, cellIndex)) {
+            return null;
+        }
+        child = addChild(node, cellIndex, capacity);
+        if (child == NONE) { // expanded meanwhile, or the arena is full
+            child = findChild(node, cellIndex);
+        }
+        return child != NONE ? child : null;
+    }
+
+    private int findChild(int node, int cellIndex) {
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            if (move(child) == cellIndex) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /** Checks whether the cell is occupied in the node's state. */
+    private boolean isOccupied(int node, int cellIndex) {
+        if (!isSet(rootFree, cellIndex)) {
+            return true;
+        }
+        for (int n = node; n != 0; n = parent(n)) {
+            if (move(n) == cellIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Integer expandRandom(Integer node) {
+        return expandRandomIn(node, null);
+    }
+
+    /**
+     * Expands the node by one random move within the given area.
+     *
+     * @param area
+     *  the area, or null for the whole board
+     */
+    public Integer expandRandomIn(Integer node, Frontier area) {
+        if (isEndState(node)) {
+            return null;
+        }
+
+        while (!isFull()) {
+            long[] free = getFreeCells(node);
+            int chosen = NONE;
+            int numCandidates = 0;
+            for (int word = 0; word < numWords; word++) {
+                for (long bits = free[word]; bits != 0; bits &= bits - 1) {
+                    int cellIndex = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if ((area == null || area.contains(cellIndex / numCols, cellIndex % numCols))
+                            && ThreadLocalRandom.current().nextInt(++numCandidates) == 0) {
+                        chosen = cellIndex;
+                    }
+                }
+            }
+
+            if (chosen == NONE) {
+                return null;
+            }
+            int child = addChild(node, chosen, capacity - RESERVED_FOR_MOVES);
+            if (child != NONE) {
+                return child;
+            } // else expanded concurrently, try again
+        }
+        return null;
+    }
+
+    /**
+     * Expands the node by the most promising move within the given area according
+     * to {@link MovePrior}. Ties are broken randomly.
+     *
+     * @param area
+     *  the area, or null for the whole board
+     */
+    public Integer expandBestIn(Integer node, Frontier area) {
+        if (isEndState(node)) {
+            return null;
+        }
+        GameState state = getGameState(node);
+        Threats threats = state.findThreats(); // not kept, the root state is shared by the searching threads
+
+        while (!isFull()) {
+            long[] free = getFreeCells(node);
+            int chosen = NONE;
+            int bestPrior = Integer.MIN_VALUE;
+            int numBest = 0;
+            for (int word = 0; word < numWords; word++) {
+                for (long bits = free[word]; bits != 0; bits &= bits - 1) {
+                    int cellIndex = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (area == null || area.contains(cellIndex / numCols, cellIndex % numCols)) {
+                        int prior = MovePrior.getPrior(state, threats, getCell(cellIndex));
+                        if (prior > bestPrior) {
+                            bestPrior = prior;
+                            numBest = 1;
+                            chosen = cellIndex;
+                        } else if (prior == bestPrior && ThreadLocalRandom.current().nextInt(++numBest) == 0) {
+                            chosen = cellIndex;
+                        }
+                    }
+                }
+            }
+
+            if (chosen == NONE) {
+                return null;
+            }
+            int child = addChild(node, chosen, capacity - RESERVED_FOR_MOVES);
+            if (child != NONE) {
+                return child;
+            } // else expanded concurrently, try again
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cells that are empty in the node's state and not yet expanded as its
+     * children, as a bitset in an array of the calling thread that the next call reuses.
+     */
+    private long[] getFreeCells(int node) {
+        long[] free = FREE_CELLS.get();
+        if (free.length < numWords) {
+            free = new long[numWords];
+            FREE_CELLS.set(free);
+        }
+        System.arraycopy(rootFree, 0, free, 0, numWords);
+        for (int n = node; n != 0; n = parent(n)) {
+            clearBit(free, move(n));
+        }
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            clearBit(free, move(child));
+        }
+        return free;
+    }
+
+    /**
+     * Adds a child with the given move, unless another thread has added one meanwhile.
+     *
+     * @param maxSize
+     *  the number of nodes up to which the child may be added
+     * @return
+     *  the new child, or NONE if the move was already expanded or there is no room
+     */
+    private int addChild(int node, int cellIndex, int maxSize) {
+        int child;
+        do {
+            child = size.get();
+            if (child >= maxSize) {
+                return NONE;
+            }
+        } while (!size.compareAndSet(child, child + 1));
+
+        Chunk c = chunks.get(child >>> CHUNK_BITS);
+        if (c == null) {
+            chunks.compareAndSet(child >>> CHUNK_BITS, null, new Chunk(isAmafRecorded));
+            c = chunks.get(child >>> CHUNK_BITS);
+        }
+        int i = child & CHUNK_MASK;
+        c.parent[i] = node;
+        c.firstChild.set(i, NONE);
+        c.move[i] = (short) cellIndex;
+        c.flags[i] = (byte) ((flags(node) & O_TO_MOVE) ^ O_TO_MOVE);
+        c.numPlays.set(i, 0);
+        c.numVirtualLosses.set(i, 0);
+        c.xWins.set(i, 0);
+        c.oWins.set(i, 0);
+        c.xRewardSums.set(i, 0);
+        c.oRewardSums.set(i, 0);
+        if (isAmafRecorded) {
+            c.numAmafPlays.set(i, 0);
+            c.xAmafRewardSums.set(i, 0);
+            c.oAmafRewardSums.set(i, 0);
+        }
+
+        Chunk p = chunk(node);
+        int head;
+        do {
+            head = p.firstChild.get(node & CHUNK_MASK);
+            if (findChild(node, cellIndex) != NONE) {
+                size.compareAndSet(child + 1, child); // give the slot back unless others have reserved after it
+                return NONE;
+            }
+            c.nextSibling[i] = head;
+        } while (!p.firstChild.compareAndSet(node & CHUNK_MASK, head, child)); // publish
+        return child;
+    }
+
+    public List<Integer> getBestMoves(Integer node) throws IllegalStateException {
+        if (!hasChildren(node)) {
+            throw new IllegalStateException("Node has no children");
+        }
+        Piece player = getNextPlayer(node);
+        return Utils.max(getChildren(node), c -> getExpectedReward(c, player));
+    }
+
+    public List<Integer> getBestExploratoryMoves(Integer node) throws IllegalStateException {
+        if (!hasChildren(node)) {
+            throw new IllegalStateException("Node has no children");
+        }
+        Piece player = getNextPlayer(node);
+        double parentNumPlays = getNumPlays(node) + getNumVirtualLosses(node);
+        return Utils.max(getChildren(node), c -> getExplorationScore(c, player, parentNumPlays));
+    }
+
+    private double getExplorationScore(int node, Piece player, double parentNumPlays) {
+        int v = getNumVirtualLosses(node);
+        double n = getNumPlays(node) + v;
+        double R = getRewardSum(node, player) + v*rewardScheme.getLossReward();
+        double r = n > 0 ? R/n : R;
+        if (isAmafRecorded) {
+            r = RAVE.getBlendedReward(r, n, getAmafRewardSum(node, player), getNumAmafPlays(node), rewardScheme.getRaveEquivalence());
+        }
+        return r + rewardScheme.getExplorationBonus(player, parentNumPlays, n);
+    }
+
+    double getExpectedReward(int node, Piece player) {
+        double n = getNumPlays(node);
+        double R = getRewardSum(node, player);
+        return n > 0 ? R/n : R;
+    }
+
+    double getAmafExpectedReward(int node, Piece player) {
+        double n = getNumAmafPlays(node);
+        double R = isAmafRecorded ? getAmafRewardSum(node, player) : 0;
+        return n > 0 ? R/n : R;
+    }
+
+    int getNumAmafPlays(int node) {
+        return isAmafRecorded ? chunk(node).numAmafPlays.get(node & CHUNK_MASK) : 0;
+    }
+
+    private double getAmafRewardSum(int node, Piece player) {
+        Chunk c = chunk(node);
+        int i = node & CHUNK_MASK;
+        return Double.longBitsToDouble(player == Piece.X ? c.xAmafRewardSums.get(i) : c.oAmafRewardSums.get(i));
+    }
+
+    int getWins(int node, Piece player) {
+        Chunk c = chunk(node);
+        int i = node & CHUNK_MASK;
+        return player == Piece.X ? c.xWins.get(i) : c.oWins.get(i);
+    }
+
+    public int getNumPlays(Integer node) {
+        return chunk(node).numPlays.get(node & CHUNK_MASK);
+    }
+
+    int getNumVirtualLosses(int node) {
+        return chunk(node).numVirtualLosses.get(node & CHUNK_MASK);
+    }
+
+    private double getRewardSum(int node, Piece player) {
+        Chunk c = chunk(node);
+        int i = node & CHUNK_MASK;
+        return Double.longBitsToDouble(player == Piece.X ? c.xRewardSums.get(i) : c.oRewardSums.get(i));
+    }
+
+    public void addVirtualLoss(Integer node) {
+        chunk(node).numVirtualLosses.incrementAndGet(node & CHUNK_MASK);
+    }
+
+    public void removeVirtualLoss(Integer node) {
+        chunk(node).numVirtualLosses.decrementAndGet(node & CHUNK_MASK);
+    }
+
+    public void propagateSimulatedResult(Integer node, GameState endState) {
+        propagateSimulatedResult(node, endState.getWinner(),
+                endState.getLongestSequence(Piece.X).getLength(),
+                endState.getLongestSequence(Piece.O).getLength(),
+                endState::getPiece);
+    }
+
+    public void propagateSimulatedResult(Integer node, Piece winner, int xLongestSequence, int oLongestSequence) {
+        propagateSimulatedResult(node, winner, xLongestSequence, oLongestSequence, null);
+    }
+
+    public void propagateSimulatedResult(Integer node, Piece winner, int xLongestSequence, int oLongestSequence, RAVE.EndBoard endBoard) {
+        double xReward = rewardScheme.getReward(Piece.X, winner, xLongestSequence, oLongestSequence);
+        double oReward = rewardScheme.getReward(Piece.O, winner, oLongestSequence, xLongestSequence);
+
+        for (int n = node; n != NONE; n = parent(n)) {
+            Chunk c = chunk(n);
+            int i = n & CHUNK_MASK;
+            if (winner == Piece.X) {
+                c.xWins.incrementAndGet(i);
+            } else if (winner == Piece.O) {
+                c.oWins.incrementAndGet(i);
+            }
+            addReward(c.xRewardSums, i, xReward);
+            addReward(c.oRewardSums, i, oReward);
+            c.numPlays.incrementAndGet(i);
+            if (endBoard != null && isAmafRecorded) {
+                addAmafResults(n, endBoard, xReward, oReward);
+            }
+        }
+    }
+
+    /** @see MoveNode#propagateSimulatedResult(Piece, int, int, RAVE.EndBoard) */
+    private void addAmafResults(int node, RAVE.EndBoard endBoard, double xReward, double oReward) {
+        Piece player = getNextPlayer(node);
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            short m = move(child);
+            if (endBoard.getPiece(m / numCols, m % numCols) == player) {
+                Chunk c = chunk(child);
+                int i = child & CHUNK_MASK;
+                addReward(c.xAmafRewardSums, i, xReward);
+                addReward(c.oAmafRewardSums, i, oReward);
+                c.numAmafPlays.incrementAndGet(i);
+            }
+        }
+    }
+
+    public void propagateSimulatedResults(Integer node, SimulationResults results) {
+        boolean isAmafAdded = isAmafRecorded && results.isAmafRecorded();
+        for (int n = node; n != NONE; n = parent(n)) {
+            Chunk c = chunk(n);
+            int i = n & CHUNK_MASK;
+            c.xWins.addAndGet(i, results.getWins(Piece.X));
+            c.oWins.addAndGet(i, results.getWins(Piece.O));
+            addReward(c.xRewardSums, i, results.getRewardSum(Piece.X));
+            addReward(c.oRewardSums, i, results.getRewardSum(Piece.O));
+            c.numPlays.addAndGet(i, results.getNumPlays());
+            if (isAmafAdded) {
+                addAmafResults(n, results);
+            }
+        }
+    }
+
+    /** @see MoveNode#propagateSimulatedResults(SimulationResults) */
+    private void addAmafResults(int node, SimulationResults results) {
+        Piece player = getNextPlayer(node);
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+            short m = move(child);
+            int row = m / numCols;
+            int col = m % numCols;
+            int numPlays = results.getNumAmafPlays(player, row, col);
+            if (numPlays > 0) {
+                Chunk c = chunk(child);
+                int i = child & CHUNK_MASK;
+                addReward(c.xAmafRewardSums, i, results.getAmafRewardSum(Piece.X, player, row, col));
+                addReward(c.oAmafRewardSums, i, results.getAmafRewardSum(Piece.O, player, row, col));
+                c.numAmafPlays.addAndGet(i, numPlays);
+            }
+        }
+    }
+
+    private static void addReward(AtomicLongArray rewardSums, int i, double reward) {
+        long current;
+        long updated;
+        do {
+            current = rewardSums.get(i);
+            updated = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + reward);
+        } while (!rewardSums.compareAndSet(i, current, updated));
+    }
+
+    public Integer pruneOtherBranchesOnPathToRoot(Integer node) {
+        for (int child = node, p = parent(node); p != NONE; child = p, p = parent(p)) {
+            chunk(p).firstChild.set(p & CHUNK_MASK, child);
+            chunk(child).nextSibling[child & CHUNK_MASK] = NONE;
+        }
+        return compact(0, node);
+    }
+
+    public Integer makeRoot(Integer node) {
+        if (node != 0) {
+            GameState state = getGameState(node).getCopy();
+            chunk(node).nextSibling[node & CHUNK_MASK] = NONE;
+            int root = compact(node, node);
+            chunk(root).parent[root & CHUNK_MASK] = NONE;
+            setRootState(state);
+            return root;
+        }
+        return node;
+    }
+
+    public Integer pruneDescendantLevelsGreaterThan(Integer node, int targetLevel) {
+        if (targetLevel < 0) throw new IllegalArgumentException("Level must be >= 0");
+        pruneDescendantsIfLevelEqualsTarget(node, 0, targetLevel);
+        return compact(0, node);
+    }
+
+    private void pruneDescendantsIfLevelEqualsTarget(int node, int currentLevel, int targetLevel) {
+        if (currentLevel == targetLevel) {
+            chunk(node).firstChild.set(node & CHUNK_MASK, NONE);
+        } else {
+            for (int child = firstChild(node); child != NONE; child = nextSibling(child)) {
+                pruneDescendantsIfLevelEqualsTarget(child, currentLevel + 1, targetLevel);
+            }
+        }
+    }
+
+    /**
+     * Moves the subtree starting from newRoot to the beginning of the arrays,
+     * dropping all other nodes and the chunks left empty. Children are always at
+     * greater indexes than their parents, so the subtree's nodes in index order
+     * can be moved one by one to indexes 0, 1, 2... without overwriting nodes not
+     * yet moved.
+     *
+     * @return
+     *  the new index of the given node
+     */
+    private int compact(int newRoot, int node) {
+        int size = this.size.get();
+        int[] newIndex = new int[size];
+        Arrays.fill(newIndex, NONE);
+
+        // Mark the subtree
+        int[] stack = new int[size];
+        int stackSize = 0;
+        stack[stackSize++] = newRoot;
+        newIndex[newRoot] = 0;
+        while (stackSize > 0) {
+            int n = stack[--stackSize];
+            for (int child = firstChild(n); child != NONE; child = nextSibling(child)) {
+                newIndex[child] = 0;
+                stack[stackSize++] = child;
+            }
+        }
+
+        int newSize = 0;
+        for (int i = newRoot; i < size; i++) {
+            if (newIndex[i] != NONE) {
+                newIndex[i] = newSize++;
+            }
+        }
+
+        for (int i = newRoot; i < size; i++) {
+            int j = newIndex[i];
+            if (j == NONE) {
+                continue;
+            }
+            Chunk from = chunk(i);
+            Chunk to = chunk(j);
+            int fi = i & CHUNK_MASK;
+            int ti = j & CHUNK_MASK;
+            to.parent[ti] = i != newRoot ? newIndex[from.parent[fi]] : from.parent[fi];
+            int first = from.firstChild.get(fi);
+            to.firstChild.set(ti, first != NONE ? newIndex[first] : NONE);
+            int next = from.nextSibling[fi];
+            to.nextSibling[ti] = i != newRoot && next != NONE ? newIndex[next] : NONE;
+            to.move[ti] = from.move[fi];
+            to.flags[ti] = from.flags[fi];
+            to.numPlays.set(ti, from.numPlays.get(fi));
+            to.numVirtualLosses.set(ti, from.numVirtualLosses.get(fi));
+            to.xWins.set(ti, from.xWins.get(fi));
+            to.oWins.set(ti, from.oWins.get(fi));
+            to.xRewardSums.set(ti, from.xRewardSums.get(fi));
+            to.oRewardSums.set(ti, from.oRewardSums.get(fi));
+            if (isAmafRecorded) {
+                to.numAmafPlays.set(ti, from.numAmafPlays.get(fi));
+                to.xAmafRewardSums.set(ti, from.xAmafRewardSums.get(fi));
+                to.oAmafRewardSums.set(ti, from.oAmafRewardSums.get(fi));
+            }
+        }
+        for (int i = ((newSize - 1) >>> CHUNK_BITS) + 1; i < chunks.length(); i++) {
+            chunks.set(i, null);
+        }
+        this.size.set(newSize);
+        version++;
+        return newIndex[node];
+    }
+
+    public String printStatsFor(Integer node, Piece player) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("ArenaNode{");
+        Cell cell = getMove(node);
+        if (cell != null) {
+            sb.append("Move (").append(cell.getRow()).append(", ").append(cell.getColumn()).append(")");
+        } else {
+            sb.append("root");
+        }
+        sb.append(", ");
+        sb.append(player).append(" E[r]: ").append(Utils.round(getExpectedReward(node, player), 3));
+        sb.append(", ");
+        sb.append(player).append(" wins: ").append(getWins(node, player)).append(" out of ").append(getNumPlays(node));
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private void setRootState(GameState state) {
+        this.rootState = state;
+        this.rootFree = new long[numWords];
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                if (state.getPiece(i, j) == null) {
+                    int cellIndex = i*numCols + j;
+                    rootFree[cellIndex >>> 6] |= 1L << cellIndex;
+                }
+            }
+        }
+        setEndState(0, state.isAtEnd());
+    }
+
+    private void setEndState(int node, boolean isEndState) {
+        // Racing threads always write the same value
+        Chunk c = chunk(node);
+        int i = node & CHUNK_MASK;
+        c.flags[i] = (byte) (c.flags[i] | END_STATE_KNOWN | (isEndState ? END_STATE : 0));
+    }
+
+    private Chunk chunk(int node) {
+        return chunks.get(node >>> CHUNK_BITS);
+    }
+
+    private int parent(int node) {
+        return chunk(node).parent[node & CHUNK_MASK];
+    }
+
+    private int firstChild(int node) {
+        return chunk(node).firstChild.get(node & CHUNK_MASK);
+    }
+
+    private int nextSibling(int node) {
+        return chunk(node).nextSibling[node & CHUNK_MASK];
+    }
+
+    private short move(int node) {
+        return chunk(node).move[node & CHUNK_MASK];
+    }
+
+    private byte flags(int node) {
+        return chunk(node).flags[node & CHUNK_MASK];
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    private int getCellIndex(Cell cell) {
+        return cell.getRow()*numCols + cell.getColumn();
+    }
+
+    private Cell getCell(int cellIndex) {
+        return new Cell(cellIndex / numCols, cellIndex % numCols);
+    }
+}
@@ -1,7 +1,6 @@
 package org.atorma.tictactoe.game.player.mcts;
 
 
-import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
 
 public class LongestSequenceScheme implements RewardScheme {
@@ -18,17 +17,21 @@ public class LongestSequenceScheme implements RewardScheme {
         this.uctConstant = uctBias;
     }
 
-    public double getReward(Piece player, GameState gameState) {
-        if (gameState.getWinner() == player) {
+    public double getReward(Piece player, Piece winner, int playersLongestSequence, int opponentsLongestSequence) {
+        if (winner == player) {
             return 1000;
-        } else if (gameState.getWinner() == player.other()) {
+        } else if (winner == player.other()) {
             return -1000;
         } else {
-            return gameState.getLongestSequence(player).getLength();
+            return playersLongestSequence;
         }
     }
 
-    public double getExplorationBonus(Piece player, MoveNode candidate) {
-        return UCT.getUCTBonus(candidate, uctConstant);
+    public double getLossReward() {
+        return -1000;
+    }
+
+    public double getExplorationBonus(Piece player, double parentNumPlays, double numPlays) {
+        return UCT.getUCTBonus(parentNumPlays, numPlays, uctConstant);
     }
 }
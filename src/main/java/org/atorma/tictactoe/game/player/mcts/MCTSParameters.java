@@ -10,13 +10,79 @@ public class MCTSParameters {
 
     public enum SimulationStrategy {UNIFORM_RANDOM, RANDOM_ADJACENT, NAIVE}
 
+    public enum TreeStore {
+        /** Game tree of linked {@link MoveNode} objects */
+        OBJECTS,
+        /** Game tree packed into primitive arrays of fixed capacity, see {@link #arenaCapacity} */
+        ARENA
+    }
+
+    public enum Parallelism {
+        /** All planning tasks search the same game tree, spreading out with virtual losses */
+        SHARED_TREE,
+        /**
+         * Each planning task searches a private game tree from the current state, and the results
+         * of the next moves in all trees are merged to choose the move (root parallelization)
+         */
+        ROOT
+    }
+
 
     /** How to simulate games */
     public SimulationStrategy simulationStrategy = SimulationStrategy.NAIVE;
 
-    /** Number of planning threads */
+    /**
+     * Maximum number of nodes in the game tree. When the tree is full, the search continues
+     * without expanding new nodes, and before the next turn nodes are evicted: first those more
+     * than {@link MCTSPlayer#EVICTION_KEEP_LEVELS} levels below the current move, then earlier
+     * moves, and if that is not enough the tree is started anew.
+     *
+     * A node takes about 200 bytes when {@link #treeStore} is OBJECTS, plus its game state,
+     * which the garbage collector may clear when memory runs low, and about 50 bytes in an
+     * ARENA. Integer.MAX_VALUE for no limit.
+     */
+    public int maxTreeNodes = Integer.MAX_VALUE;
+
+    /** How to store the game tree */
+    public TreeStore treeStore = TreeStore.OBJECTS;
+
+    /**
+     * Maximum number of game tree nodes when {@link #treeStore} is ARENA. The arena takes
+     * about 50 bytes per node (70 with a {@link RaveScheme}), allocated in chunks of a few
+     * thousand nodes as the tree grows. A smaller {@link #maxTreeNodes} takes precedence.
+     */
+    public int arenaCapacity = 1 << 20;
+
+    /**
+     * Number of planning tasks run in parallel. The threads come from a {@link PlanningExecutor}
+     * shared by all players, so this is an upper limit: when many players think at the same time,
+     * they share the executor's threads in proportion to their numbers of tasks.
+     */
     public int numPlanningThreads = 3;
 
+    /**
+     * How the planning tasks search in parallel.
+     *
+     * With ROOT parallelism, the tasks share nothing but counters while searching, at the cost of
+     * shallower trees. The private trees are {@link MoveNode} trees of at most {@link #maxTreeNodes}
+     * divided by {@link #numPlanningThreads} nodes each, whatever the {@link #treeStore}, and without
+     * a transposition table. They are discarded after the move, so nothing is searched for a mandatory
+     * move, and there is no pondering.
+     */
+    public Parallelism parallelism = Parallelism.SHARED_TREE;
+
+    /**
+     * Number of games to simulate from the node selected in each rollout. The results are
+     * propagated up the tree together, so that selecting a node and walking up the tree
+     * is done once for all of them. This pays off when simulations are cheap compared to
+     * the tree walks, e.g. with a short {@link #maxSimulatedGameTurns}, at the cost of
+     * spending more simulations on each node before searching deeper.
+     *
+     * Parallel simulations come from {@link #numPlanningThreads}: the batch of one rollout is
+     * simulated in the thread that selected the node.
+     */
+    public int simulationsPerRollout = 1;
+
     /** Maximum number of planning rollouts (iterations) to perform */
     public int maxRolloutsNum = Integer.MAX_VALUE;
 
@@ -26,6 +92,22 @@ public class MCTSParameters {
     /** How long in wall clock milliseconds the player is allowed to plan the next move */
     public long maxThinkTimeMillis = 5000;
 
+    /**
+     * true: After choosing a move, keep searching in the background during the opponent's turn,
+     * until the opponent's move arrives, and then continue from the opponent's move in the tree.
+     * Pondering runs at most {@link #numPlanningThreads} tasks, and all pondering players together
+     * at most {@link PlanningExecutor#getMaxBackgroundTasks()}.
+     *
+     * false: Idle during the opponent's turn.
+     */
+    public boolean ponder = false;
+
+    /**
+     * How long in wall clock milliseconds pondering may continue, in case the opponent's move
+     * never arrives.
+     */
+    public long maxPonderTimeMillis = 60000;
+
     /**
      * true: maxThinkTimeMillis must be taken into account in game simulations
      *
@@ -41,12 +123,43 @@ public class MCTSParameters {
      */
     public int searchRadius = 1;
 
+    /**
+     * Progressive widening: when greater than 0, a node played n times may have at most
+     * max(1, ceil(progressiveWidening * n^{@link #progressiveWideningExponent})) children,
+     * and moves are expanded in the order of a cheap heuristic prior (winning, blocking,
+     * threatening, next to more pieces) instead of randomly. The search then spends its
+     * time on plausible moves, and considers more of them as a node is played more.
+     *
+     * 0: all moves within {@link #searchRadius} are expanded, in random order, before
+     * any of them is searched further.
+     */
+    public double progressiveWidening = 0;
+
+    /** @see #progressiveWidening */
+    public double progressiveWideningExponent = 0.5;
+
     /**
      * A scheme defining the players' reward when the game ends at some state, as well as
      * move exploration scores when searching moves.
+     *
+     * Wrap the scheme into a {@link RaveScheme} to also score moves by the results of
+     * simulations where they were played later, which gives usable scores with fewer plays
+     * per move on large boards.
      */
     public RewardScheme rewardScheme = new WinLossDrawScheme();
 
+    /**
+     * Maximum number of positions in a transposition table that lets game tree nodes
+     * of the same position share simulation results, no matter in which order the moves
+     * leading to it were played. The table is created anew for each game.
+     *
+     * 0 disables the table: each node keeps its own simulation results.
+     * Not supported when {@link #treeStore} is ARENA.
+     *
+     * @see TranspositionTable
+     */
+    public int transpositionTableSize = 0;
+
     /**
      * true: Prune the siblings of the chosen move in the game tree after each move. This
      * keeps a trail of played moves from the starting state to the current state, up
@@ -1,28 +1,25 @@
 package org.atorma.tictactoe.game.player.mcts;
 
 
-import org.atorma.tictactoe.game.Simulator;
 import org.atorma.tictactoe.game.Utils;
 import org.atorma.tictactoe.game.player.Configurable;
 import org.atorma.tictactoe.game.player.Player;
 import org.atorma.tictactoe.game.player.naive.MandatoryMovePlayer;
 import org.atorma.tictactoe.game.player.naive.NaivePlayer;
-import org.atorma.tictactoe.game.player.random.RandomAdjacentPlayer;
-import org.atorma.tictactoe.game.player.random.RandomPlayer;
 import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.Frontier;
 import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
-import org.atorma.tictactoe.game.state.Rectangle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * Monte Carlo Tree Search using a reinforcement learning
@@ -36,18 +33,33 @@ public class MCTSPlayer implements Player, Configurable {
     private static final Logger LOGGER = LoggerFactory.getLogger(MCTSPlayer.class);
 
     private static final MCTSParameters DEFAULT_PARAMS = new MCTSParameters();
+
+    /** Levels of the game tree below the current move kept when the tree is full */
+    public static final int EVICTION_KEEP_LEVELS = 2;
     private MCTSParameters params;
 
     private Piece mySide;
 
     private GameState currentState;
     private Cell opponentsLastMove;
-    private MoveNode lastMove; // Last move overall, may be my move or opponent's move, depending on algorithm progress
-    private List<Rectangle> searchAreas = new ArrayList<>();
+    private SearchTree<Object> tree;
+    private Object lastMove; // Last move overall, may be my move or opponent's move, depending on algorithm progress
+    private Frontier searchArea; // null to search the entire board
 
     private long planningStartTime;
     private AtomicInteger planningRollouts = new AtomicInteger();
-    private ExecutorService workerPool;
+    private AtomicInteger planningMaxDepth = new AtomicInteger();
+    private int planningTreeSize;
+    private LongAdder selectionNanos = new LongAdder();
+    private LongAdder simulationNanos = new LongAdder();
+    private LongAdder backpropagationNanos = new LongAdder();
+    private boolean isPlanningMandatoryMove;
+    private PlanningStats lastPlanningStats;
+    private PlanningExecutor planningExecutor;
+
+    private PlanningExecutor.BackgroundPlanning pondering; // guarded by this
+    private boolean isPonderingDisabled; // guarded by this
+    private AtomicInteger ponderingRollouts = new AtomicInteger();
 
 
     public MCTSPlayer() {
@@ -55,11 +67,18 @@ public class MCTSPlayer implements Player, Configurable {
     }
 
     public MCTSPlayer(MCTSParameters params) {
+        this(params, PlanningExecutor.getShared());
+    }
+
+    public MCTSPlayer(MCTSParameters params, PlanningExecutor planningExecutor) {
         if (params == null) throw new IllegalArgumentException("Parameters missing");
         if (params.numPlanningThreads < 1) throw new IllegalArgumentException("Invalid planning thread number " + params.numPlanningThreads + ". Must be >= 1.");
+        if (planningExecutor == null) throw new IllegalArgumentException("Planning executor missing");
+        if (params.progressiveWidening < 0) throw new IllegalArgumentException("Invalid progressive widening " + params.progressiveWidening + ". Must be >= 0.");
+        if (params.simulationsPerRollout < 1) throw new IllegalArgumentException("Invalid simulations per rollout " + params.simulationsPerRollout + ". Must be >= 1.");
 
         this.params = params;
-        this.workerPool =  Executors.newFixedThreadPool(params.numPlanningThreads);
+        this.planningExecutor = planningExecutor;
     }
 
 
@@ -78,13 +97,29 @@ public class MCTSPlayer implements Player, Configurable {
         this.params = (MCTSParameters) configuration;
     }
 
+    /**
+     * Sets the executor that runs rollouts, by default {@link PlanningExecutor#getShared()}.
+     */
+    public void setPlanningExecutor(PlanningExecutor planningExecutor) {
+        if (planningExecutor == null) throw new IllegalArgumentException("Planning executor missing");
+        this.planningExecutor = planningExecutor;
+    }
+
     @Override
     public Cell move(GameState updatedState, Cell opponentsLastMove) {
+        stopPondering();
+
         if (currentState == null || updatedState.getNumPieces() <= currentState.getNumPieces()) {
-            lastMove = new MoveNode(updatedState, opponentsLastMove, params.rewardScheme);
+            startNewTree(updatedState, opponentsLastMove);
             LOGGER.debug("New game started! Simulation strategy {}.", params.simulationStrategy.toString().toLowerCase());
         } else {
-            lastMove = lastMove.findMoveTo(opponentsLastMove);
+            lastMove = tree.findMoveTo(lastMove, opponentsLastMove);
+            if (lastMove == null) {
+                LOGGER.debug("No room for opponent's move in game tree, starting a new tree");
+                startNewTree(updatedState, opponentsLastMove);
+            } else if (tree.isFull()) {
+                evictNodes();
+            }
         }
         this.currentState = updatedState;
         this.opponentsLastMove = opponentsLastMove;
@@ -93,23 +128,115 @@ public class MCTSPlayer implements Player, Configurable {
 
         /* Main work */
         lastMove = planMove();
+        lastPlanningStats = new PlanningStats(System.currentTimeMillis() - planningStartTime,
+                planningRollouts.get(), planningTreeSize, planningMaxDepth.get(),
+                selectionNanos.sum(), simulationNanos.sum(), backpropagationNanos.sum(), isPlanningMandatoryMove);
 
         if (params.pruneSiblings) {
-            lastMove.pruneOtherBranchesOnPathToRoot();
+            lastMove = tree.pruneOtherBranchesOnPathToRoot(lastMove);
         }
         if (params.pruneParent) {
-            lastMove.makeRoot();
+            lastMove = tree.makeRoot(lastMove);
         }
         if (params.pruneDescendantLevelsGreaterThan < Integer.MAX_VALUE) {
-            lastMove.pruneDescendantLevelsGreaterThan(params.pruneDescendantLevelsGreaterThan);
+            lastMove = tree.pruneDescendantLevelsGreaterThan(lastMove, params.pruneDescendantLevelsGreaterThan);
+        }
+
+        if (params.ponder && params.parallelism == MCTSParameters.Parallelism.SHARED_TREE) {
+            startPondering();
+        }
+
+        return tree.getMove(lastMove);
+    }
+
+    /**
+     * Keeps searching from my move in the background until the opponent's move arrives.
+     * The opponent's move is then found in the tree with the rollouts done meanwhile.
+     * <p/>
+     * Synchronized with {@link #stopPondering()}, which may be called by another thread.
+     */
+    private synchronized void startPondering() {
+        if (isPonderingDisabled || tree.isEndState(lastMove)) {
+            return;
+        }
+        searchArea = null;
+        if (params.searchRadius < Integer.MAX_VALUE) {
+            // Of a new state rather than of the tree's, so that the tree's states keep no indexes
+            Frontier frontier = currentState.next(tree.getMove(lastMove)).getFrontier(params.searchRadius);
+            if (!frontier.isEmpty()) {
+                searchArea = frontier;
+            }
+        }
+
+        Object ponderingStartMove = lastMove;
+        long ponderingStartTime = System.currentTimeMillis();
+        ponderingRollouts.set(0);
+        pondering = planningExecutor.start(params.numPlanningThreads,
+                () -> System.currentTimeMillis() - ponderingStartTime < params.maxPonderTimeMillis,
+                () -> {
+                    ponderingRollouts.incrementAndGet();
+                    performRollout(tree, ponderingStartMove, true);
+                });
+        LOGGER.trace("Pondering in {} tasks", pondering.getNumTasks());
+    }
+
+    /**
+     * Stops searching during the opponent's turn, if pondering. Called when the opponent's move
+     * arrives, and should be called if the game ends or is abandoned on the opponent's turn,
+     * so that the threads are not kept busy until {@link MCTSParameters#maxPonderTimeMillis}.
+     */
+    public synchronized void stopPondering() {
+        if (pondering != null) {
+            pondering.stop();
+            pondering = null;
+            LOGGER.debug("{} rollouts while pondering", ponderingRollouts);
         }
+    }
+
+    /**
+     * Stops pondering for good, also after a move that is being planned. Called when the
+     * game is deleted, which may happen while this player is planning its move.
+     */
+    public synchronized void disablePondering() {
+        isPonderingDisabled = true;
+        stopPondering();
+    }
+
+    /**
+     * Frees room in a full game tree by pruning, from the least to the most valuable nodes:
+     * deep descendants of the current move, then the previous moves and their alternatives,
+     * and finally the whole tree.
+     */
+    private void evictNodes() {
+        LOGGER.debug("Game tree is full, evicting nodes more than {} levels down", EVICTION_KEEP_LEVELS);
+        lastMove = tree.pruneDescendantLevelsGreaterThan(lastMove, EVICTION_KEEP_LEVELS);
+        if (tree.isFull()) {
+            LOGGER.debug("Game tree is still full, evicting previous moves");
+            lastMove = tree.makeRoot(tree.pruneOtherBranchesOnPathToRoot(lastMove));
+        }
+        if (tree.isFull()) {
+            LOGGER.debug("Game tree is still full, starting a new tree");
+            startNewTree(tree.getGameState(lastMove), tree.getMove(lastMove));
+        }
+    }
 
-        return lastMove.getMove();
+    @SuppressWarnings("unchecked")
+    private void startNewTree(GameState state, Cell move) {
+        SearchTree<?> newTree;
+        if (params.treeStore == MCTSParameters.TreeStore.ARENA) {
+            newTree = new ArenaTree(state, move, params.rewardScheme, Math.min(params.arenaCapacity, params.maxTreeNodes));
+        } else {
+            TranspositionTable transpositionTable = params.transpositionTableSize > 0 ? new TranspositionTable(params.transpositionTableSize) : null;
+            newTree = new MoveNodeTree(new MoveNode(state, move, params.rewardScheme, transpositionTable), params.maxTreeNodes);
+        }
+        // Node handles only travel from the tree back to the same tree
+        this.tree = (SearchTree<Object>) newTree;
+        this.lastMove = tree.getRoot();
     }
 
 
-    private MoveNode planMove() {
-        MoveNode bestMove = null;
+    private Object planMove() {
+        Object bestMove = null;
 
         planningStartTime = System.currentTimeMillis();
 
@@ -129,109 +256,192 @@ public class MCTSPlayer implements Player, Configurable {
         };
         Cell mandatoryMove = mandatoryMovePlayer.move(currentState, opponentsLastMove);
         boolean isMandatoryMove = mandatoryMove != null;
+        isPlanningMandatoryMove = isMandatoryMove;
 
-        MoveNode rolloutStartMove;
+        Object rolloutStartMove;
         if (isMandatoryMove) { // If we have a mandatory move, use the time to plan ahead from that
-            bestMove = lastMove.findMoveTo(mandatoryMove);
+            bestMove = tree.findMoveTo(lastMove, mandatoryMove);
+            if (bestMove == null) {
+                LOGGER.debug("No room for mandatory move in game tree, starting a new tree");
+                startNewTree(currentState, opponentsLastMove);
+                bestMove = tree.findMoveTo(lastMove, mandatoryMove);
+            }
             rolloutStartMove = bestMove;
         } else {
             rolloutStartMove = lastMove;
         }
 
-        updateSearchAreas();
+        updateSearchArea();
         planningRollouts.set(0);
-        List<Future> results = new ArrayList<>();
-        for (int i = 0; i < params.numPlanningThreads ; i++) {
-            Runnable task = () -> {
-                while (isThinkTimeLeft() && planningRollouts.get() < params.maxRolloutsNum) {
-                    performRollout(rolloutStartMove);
-                }
-            };
-            results.add(workerPool.submit(task));
-        }
-        LOGGER.trace("Created {} planning tasks", results.size());
-        for (Future result : results) {
-            try {
-                result.get();
-            } catch (InterruptedException e) {
-                LOGGER.warn("Interrupted", e);
-            } catch (ExecutionException e) {
-                LOGGER.error("Rollout exception", e);
-                throw new RuntimeException(e);
+        planningMaxDepth.set(0);
+        selectionNanos.reset();
+        simulationNanos.reset();
+        backpropagationNanos.reset();
+        if (params.parallelism == MCTSParameters.Parallelism.ROOT) {
+            planningTreeSize = 0;
+            if (!isMandatoryMove) { // nothing to search, as the private trees are not kept
+                bestMove = planInPrivateTrees();
+            }
+        } else {
+            LOGGER.trace("Running {} planning tasks", params.numPlanningThreads);
+            planningExecutor.run(params.numPlanningThreads,
+                    () -> isThinkTimeLeft() && planningRollouts.get() < params.maxRolloutsNum,
+                    () -> {
+                        planningRollouts.incrementAndGet();
+                        performRollout(tree, rolloutStartMove, false);
+                    });
+            planningTreeSize = tree.size();
+            if (!isMandatoryMove) {
+                bestMove = selectNextMoveBasedOnExpectedReward();
             }
         }
-
-        if (!isMandatoryMove) {
-            bestMove = selectNextMoveBasedOnExpectedReward();
+        if (Thread.currentThread().isInterrupted()) {
+            LOGGER.warn("Interrupted");
         }
 
         LOGGER.debug("{} rollouts in {} ms", planningRollouts, System.currentTimeMillis() - planningStartTime);
-        LOGGER.debug("Chose {} {}", isMandatoryMove ? "mandatory" : "MCTS", bestMove.printStatsFor(mySide));
+        LOGGER.debug("Chose {} {}", isMandatoryMove ? "mandatory" : "MCTS", tree.printStatsFor(bestMove, mySide));
 
         return bestMove;
     }
 
 
+    /**
+     * Root parallelization: each planning task searches a private tree from the current
+     * state, so the tasks do not contend for the nodes. Then the results of each next move
+     * are summed over the trees, and the move is chosen by the summed results.
+     */
+    private Object planInPrivateTrees() {
+        int numTasks = params.numPlanningThreads;
+        List<MoveNodeTree> privateTrees = new ArrayList<>(numTasks);
+        for (int i = 0; i < numTasks; i++) {
+            MoveNode root = new MoveNode(currentState, opponentsLastMove, params.rewardScheme);
+            privateTrees.add(new MoveNodeTree(root, Math.max(1, params.maxTreeNodes/numTasks)));
+        }
+
+        LOGGER.trace("Running {} planning tasks in private trees", numTasks);
+        planningExecutor.run(numTasks,
+                () -> isThinkTimeLeft() && planningRollouts.get() < params.maxRolloutsNum,
+                task -> {
+                    @SuppressWarnings("unchecked") // node handles only travel from the tree back to the same tree
+                    SearchTree<Object> privateTree = (SearchTree<Object>) (SearchTree<?>) privateTrees.get(task);
+                    return () -> {
+                        planningRollouts.incrementAndGet();
+                        performRollout(privateTree, privateTree.getRoot(), false);
+                    };
+                });
+
+        for (MoveNodeTree privateTree : privateTrees) {
+            planningTreeSize += privateTree.size();
+        }
+        Map<Cell, MergedResults> mergedResults = mergeRootResults(privateTrees, mySide);
+
+        Cell naiveMove = getNaiveMove();
+        if (mergedResults.isEmpty()) { // trees too small to search anything
+            LOGGER.debug("No room in private game trees to search, choosing naive move");
+            return tree.findMoveTo(lastMove, naiveMove);
+        }
+        // These have the highest expected reward for me
+        List<Cell> candidates = Utils.max(mergedResults.keySet(), cell -> mergedResults.get(cell).getExpectedReward());
+        return tree.findMoveTo(lastMove, chooseAmongBestMoves(candidates, naiveMove));
+    }
+
+    /**
+     * Sums the plays and rewards of each move from the root over the trees,
+     * so that a move searched in several trees is scored by all its plays.
+     */
+    static Map<Cell, MergedResults> mergeRootResults(List<MoveNodeTree> trees, Piece player) {
+        Map<Cell, MergedResults> mergedResults = new HashMap<>();
+        for (MoveNodeTree tree : trees) {
+            for (MoveNode child : tree.getRoot().getChildren()) {
+                MergedResults results = mergedResults.computeIfAbsent(child.getMove(), cell -> new MergedResults());
+                results.numPlays += child.getNumPlays();
+                results.rewardSum += child.getExpectedReward(player)*child.getNumPlays();
+            }
+        }
+        return mergedResults;
+    }
+
+    /** Results of a move summed over private trees */
+    static class MergedResults {
+        int numPlays;
+        double rewardSum;
+
+        double getExpectedReward() {
+            return numPlays > 0 ? rewardSum/numPlays : rewardSum;
+        }
+    }
+
     private boolean isThinkTimeLeft() {
         return (System.currentTimeMillis() - planningStartTime) < params.maxThinkTimeMillis;
     }
 
 
-    private void updateSearchAreas() {
-        searchAreas.clear();
+    /**
+     * Searching is constrained to the cells within {@link MCTSParameters#searchRadius}
+     * of the pieces on the board, unless there are none yet. The frontier is created
+     * here, not concurrently by the planning threads.
+     */
+    private void updateSearchArea() {
+        searchArea = null;
         if (params.searchRadius < Integer.MAX_VALUE) {
-            for (int row = 0; row < currentState.getBoardRows(); row++) {
-                for (int col = 0; col < currentState.getBoardCols(); col++) {
-                    if (currentState.getPiece(row, col) != null) {
-                        Rectangle rectangle = new Rectangle(
-                                row - params.searchRadius, col - params.searchRadius,
-                                row + params.searchRadius, col + params.searchRadius);
-                        searchAreas.add(rectangle);
-                    }
-                }
+            Frontier frontier = currentState.getFrontier(params.searchRadius);
+            if (!frontier.isEmpty()) {
+                searchArea = frontier;
             }
         }
     }
 
-    private void performRollout(MoveNode startNode) {
-        planningRollouts.incrementAndGet();
-
+    /**
+     * @param pondering
+     *  true if searching during the opponent's turn: the search is not timed, and the
+     *  simulation is not limited by {@link MCTSParameters#maxThinkTimeIncludesSimulation}
+     */
+    private void performRollout(SearchTree<Object> searchTree, Object startNode, boolean pondering) {
         // Selection and expansion
         LOGGER.trace("{} starts selecting node", Thread.currentThread());
-        MoveNode selected;
-        synchronized (this) {
-            selected = selectMctsMove(startNode);
-            LOGGER.trace("{} selected node {}", Thread.currentThread(), selected);
-        }
+        long startTime = System.nanoTime();
+        Object selected = selectMctsMove(searchTree, startNode);
+        long selectionEndTime = System.nanoTime();
+        LOGGER.trace("{} selected node {}", Thread.currentThread(), selected);
 
-        // Simulation
+        // Simulation and back-propagation
         LOGGER.trace("{} starts simulating game...", Thread.currentThread());
-        Player player1, player2;
-        GameState endState;
-        if (params.simulationStrategy == MCTSParameters.SimulationStrategy.NAIVE) {
-            player1 = new NaivePlayer();
-            player2 = new NaivePlayer();
-        } else if (params.simulationStrategy == MCTSParameters.SimulationStrategy.RANDOM_ADJACENT) {
-            player1 = new RandomAdjacentPlayer();
-            player2 = new RandomAdjacentPlayer();
-        } else if (params.simulationStrategy == MCTSParameters.SimulationStrategy.UNIFORM_RANDOM) {
-            player1 = new RandomPlayer();
-            player2 = new RandomPlayer();
+        Playout playout = Playout.forCurrentThread();
+        GameState selectedState = searchTree.getGameState(selected);
+        long simulationEndTime;
+        if (params.simulationsPerRollout == 1) {
+            simulateGame(playout, selectedState, pondering);
+            simulationEndTime = System.nanoTime();
+            LOGGER.trace("{} done simulating game", Thread.currentThread());
+            searchTree.propagateSimulatedResult(selected, playout.getWinner(),
+                    playout.getLongestSequenceLength(Piece.X), playout.getLongestSequenceLength(Piece.O), playout);
         } else {
-            throw new IllegalArgumentException("Invalid simulation strategy " + params.simulationStrategy);
+            SimulationResults results = SimulationResults.forCurrentThread();
+            results.reset(params.rewardScheme, selectedState.getBoardRows(), selectedState.getBoardCols());
+            do { // the rest of the batch is dropped when planning time is up
+                simulateGame(playout, selectedState, pondering);
+                results.add(playout.getWinner(),
+                        playout.getLongestSequenceLength(Piece.X), playout.getLongestSequenceLength(Piece.O), playout);
+            } while (results.getNumPlays() < params.simulationsPerRollout && (pondering || isThinkTimeLeft()));
+            simulationEndTime = System.nanoTime();
+            LOGGER.trace("{} done simulating {} games", Thread.currentThread(), results.getNumPlays());
+            searchTree.propagateSimulatedResults(selected, results);
         }
-        player1.setPiece(mySide);
-        player2.setPiece(mySide.other());
-        Simulator simulator = new Simulator(selected.getGameState(), player1, player2);
-        simulator.setCopyBoard(false);
-        endState = simulateGame(simulator);
-        LOGGER.trace("{} done simulating game", Thread.currentThread());
-
-        // Back-propagation
-        synchronized (this) {
-            selected.propagateSimulatedResult(endState);
-            LOGGER.trace("{} done propagating results", Thread.currentThread());
+        int depth = 0;
+        for (Object node = selected; !node.equals(startNode); node = searchTree.getParent(node)) {
+            searchTree.removeVirtualLoss(node);
+            depth++;
         }
+        if (!pondering) {
+            selectionNanos.add(selectionEndTime - startTime);
+            simulationNanos.add(simulationEndTime - selectionEndTime);
+            backpropagationNanos.add(System.nanoTime() - simulationEndTime);
+            if (depth > planningMaxDepth.get()) {
+                planningMaxDepth.accumulateAndGet(depth, Math::max);
+            }
+        }
+        LOGGER.trace("{} done propagating results", Thread.currentThread());
     }
 
     /**
@@ -239,82 +449,144 @@ public class MCTSPlayer implements Player, Configurable {
      * trying to maximize her own expected reward (+ exploration bonus).
      *
      * Returns a promising move, or one that ends the game.
+     *
+     * Adds a virtual loss to each node on the way down from the start node,
+     * so that concurrent selections prefer other branches until the
+     * simulation result is propagated.
      */
-    private MoveNode selectMctsMove(MoveNode startNode) {
-        MoveNode moveNode = startNode;
-
-        while (!moveNode.isEndState()) {
-            if (searchAreas.isEmpty()) {
-                if (!moveNode.isFullyExpanded()) {
-                    return moveNode.expandRandom();
-                } else {
-                    moveNode = Utils.pickRandom(moveNode.getBestExploratoryMoves());
-                }
+    private Object selectMctsMove(SearchTree<Object> searchTree, Object startNode) {
+        Object moveNode = startNode;
+
+        while (!searchTree.isEndState(moveNode)) {
+            Object child = expand(searchTree, moveNode);
+            if (child != null) { // not yet fully expanded (in searchArea, or as wide as allowed)
+                searchTree.addVirtualLoss(child);
+                return child;
+            }
+
+            Object next;
+            if (searchTree.hasChildren(moveNode)) { // all children visited at least once, now continue to searching in the most promising branch
+                next = Utils.pickRandom(searchTree.getBestExploratoryMoves(moveNode));
+            } else if (searchArea != null) { // search area is fully occupied, pick one outside it
+                next = searchTree.expandRandom(moveNode);
             } else {
-                MoveNode child = moveNode.expandRandomIn(searchAreas);
-                if (child != null) { // not yet fully expanded in searchAreas
-                    return child;
-                } else { // all children visited at least once, now continue to searching in the most promising branch
-                    if (moveNode.getChildren().size() > 0) {
-                        moveNode = Utils.pickRandom(moveNode.getBestExploratoryMoves());
-                    } else { // search area is fully occupied, pick one outside it
-                        moveNode = moveNode.expandRandom();
-                    }
-                }
+                next = null;
+            }
+            if (next == null) { // no room to expand in the tree, simulate from here
+                return moveNode;
             }
+            searchTree.addVirtualLoss(next);
+            moveNode = next;
         }
 
         return moveNode;
     }
 
     /**
-     * Simulates a game until it ends, or time runs out, or maximum number of simulated turns is exceeded.
-     * This method could be used to simulate a game that is played "well", not just fully at random.
+     * Expands a new child of the node in the search area: the most promising one
+     * if the node is not yet as wide as {@link MCTSParameters#progressiveWidening}
+     * allows for its number of plays, or a random one without progressive widening.
+     * Concurrent expansions may widen a node a little beyond the limit.
      *
      * @return
-     *  state where the game ended
+     *  the new child, or null if none expanded
+     */
+    private Object expand(SearchTree<Object> searchTree, Object node) {
+        if (params.progressiveWidening > 0) {
+            double maxChildren = params.progressiveWidening*Math.pow(searchTree.getNumPlays(node), params.progressiveWideningExponent);
+            if (searchTree.getNumChildren(node) >= Math.max(1, Math.ceil(maxChildren))) {
+                return null;
+            }
+            return searchTree.expandBestIn(node, searchArea);
+        }
+        return searchArea == null ? searchTree.expandRandom(node) : searchTree.expandRandomIn(node, searchArea);
+    }
+
+    /**
+     * Simulates a game until it ends, or time runs out, or maximum number of simulated turns is exceeded.
+     * The moves are chosen by {@link MCTSParameters#simulationStrategy}. The result
+     * is left in the playout.
      */
-    private GameState simulateGame(Simulator simulator) {
+    private void simulateGame(Playout playout, GameState startState, boolean pondering) {
         long maxSimulationTime;
-        if (params.maxThinkTimeIncludesSimulation) {
+        if (params.maxThinkTimeIncludesSimulation && !pondering) {
             long elapsedTime = System.currentTimeMillis() - planningStartTime;
             maxSimulationTime =  params.maxThinkTimeMillis - elapsedTime;
         } else {
             maxSimulationTime = Long.MAX_VALUE;
         }
-        return simulator.run(maxSimulationTime, params.maxSimulatedGameTurns);
+        playout.run(startState, params.simulationStrategy, maxSimulationTime, params.maxSimulatedGameTurns);
     }
 
 
-    private MoveNode selectNextMoveBasedOnExpectedReward() {
+    private Object selectNextMoveBasedOnExpectedReward() {
+        Cell naiveMove = getNaiveMove();
+
+        if (!tree.hasChildren(lastMove)) { // tree too small to search anything
+            LOGGER.debug("No room in game tree to search, choosing naive move");
+            return tree.findMoveTo(lastMove, naiveMove);
+        }
+
         // These have the highest expected reward for me
-        List<MoveNode> candidates = lastMove.getBestMoves();
+        List<Cell> candidates = tree.getBestMoves(lastMove).stream().map(tree::getMove).collect(Collectors.toList());
+        return tree.findMoveTo(lastMove, chooseAmongBestMoves(candidates, naiveMove));
+    }
 
-        // NaivePlayer always tries to elongate its longest sequence, so among equally well
-        // rewarding moves, a naive move may be a good choice
+    private Cell getNaiveMove() {
         NaivePlayer naivePlayer = new NaivePlayer();
         naivePlayer.setPiece(mySide);
-        Cell naiveMove = naivePlayer.move(lastMove.getGameState(), lastMove.getMove());
-        for (MoveNode candidate : candidates) {
-            if (candidate.getMove().equals(naiveMove)) {
-                return candidate;
-            }
+        return naivePlayer.move(currentState, opponentsLastMove);
+    }
+
+    /**
+     * Chooses among moves with equal expected rewards.
+     */
+    private Cell chooseAmongBestMoves(List<Cell> candidates, Cell naiveMove) {
+        // NaivePlayer always tries to elongate its longest sequence, so among equally well
+        // rewarding moves, a naive move may be a good choice
+        if (candidates.contains(naiveMove)) {
+            return naiveMove;
         }
 
         // Otherwise choose one that is closest to my previous move.
         // A center move is a good first move.
         final Cell target;
-        if (lastMove.getParent() != null && lastMove.getParent().getMove() != null) {
-            target = lastMove.getParent().getMove();
+        Object previousMove = tree.getParent(lastMove);
+        if (previousMove != null && tree.getMove(previousMove) != null) {
+            target = tree.getMove(previousMove);
         } else {
             target = new Cell(currentState.getBoardRows()/2, currentState.getBoardCols()/2);
         }
-        candidates = Utils.max(candidates, element -> Cell.getDistance(element.getMove(), target));
+        candidates = Utils.max(candidates, element -> Cell.getDistance(element, target));
         return Utils.pickRandom(candidates);
     }
 
+    /**
+     * Returns the last move node of the game tree, for looking into the tree when it
+     * is stored as {@link MoveNode} objects. Use {@link #getLastPlanningStats()} for
+     * what was searched whatever the {@link MCTSParameters#treeStore}.
+     *
+     * @return
+     *  the last move node, or null before the first move or if the tree store is
+     *  {@link MCTSParameters.TreeStore#ARENA}, which has no node objects
+     */
     public MoveNode getLastMove() {
-        return lastMove;
+        return lastMove instanceof MoveNode ? (MoveNode) lastMove : null;
+    }
+
+    /** Returns the number of rollouts in planning the latest move. */
+    public int getNumRollouts() {
+        return planningRollouts.get();
+    }
+
+    /** Returns the number of nodes in the game tree after planning the latest move, before pruning. */
+    public int getTreeSize() {
+        return lastPlanningStats != null ? lastPlanningStats.getTreeSize() : 0;
+    }
+
+    /** Returns what was done in planning the latest move, or null if no move yet. */
+    public PlanningStats getLastPlanningStats() {
+        return lastPlanningStats;
     }
 
     @Override
@@ -9,6 +9,8 @@ import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Node in Monte Carlo Tree Search.
@@ -18,28 +20,39 @@ import java.util.concurrent.ThreadLocalRandom;
  * <li>a move and the game state it lead to</li>
  * <li>expected total reward each player will receive if this move is chosen (based on simulations done by other components)</li>
  * </ul>
+ * <p/>
+ * Expanding nodes and recording simulation results is thread safe and lock free,
+ * so several threads can search the same tree at once. Pruning is not thread safe.
+ * <p/>
+ * A node keeps only its expanded children, in an array that is replaced by a longer
+ * copy when a child is added. The moves not yet expanded are found in the game state.
  */
 public class MoveNode {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MoveNode.class);
 
-    private Reference<GameState> stateRef;
+    private static final LongAdder STATE_RECONSTRUCTIONS = new LongAdder();
+    private static final MoveNode[] NO_CHILDREN = new MoveNode[0];
+    private static final AtomicReferenceFieldUpdater<MoveNode, MoveNode[]> CHILDREN =
+            AtomicReferenceFieldUpdater.newUpdater(MoveNode.class, MoveNode[].class, "children");
+    private static final ThreadLocal<long[]> EXPANDED_MOVES = ThreadLocal.withInitial(() -> new long[0]);
+
+    private volatile Reference<GameState> stateRef;
     private final Cell cell;
     private final Piece nextPlayer;
     private final boolean isEndState;
 
     private MoveNode parent;
 
-    private List<Cell> unexpandedMoves;
-    private List<MoveNode> children = new ArrayList<>();
+    private final int numMoves; // allowed moves
+    private volatile MoveNode[] children = NO_CHILDREN; // replaced by a copy with the new child when expanding
 
-    private Map<Piece, Integer> wins = new EnumMap<>(Piece.class);
-    private Map<Piece, Double> rewardSums = new EnumMap<>(Piece.class);
-    private int numPlays = 0;
+    private MoveStatistics stats;
 
     private MoveNode root;
     /* Stored in root only */
     private RewardScheme rewardScheme;
+    private TranspositionTable transpositionTable;
     private GameState rootState;
 
     /**
@@ -53,36 +66,58 @@ public class MoveNode {
      *  the reward scheme to use for scoring moves
      */
     public MoveNode(GameState gameState, Cell cell, RewardScheme rewardScheme) {
-        init();
+        this(gameState, cell, rewardScheme, null);
+    }
 
+    /**
+     * Creates the root node of a game graph where nodes of the same position
+     * share their simulation statistics.
+     *
+     * @param gameState
+     *  starting state
+     * @param cell
+     *  the move that lead to the starting state, or null if no move (empty board)
+     * @param rewardScheme
+     *  the reward scheme to use for scoring moves
+     * @param transpositionTable
+     *  table of shared statistics, or null to keep separate statistics in each node
+     */
+    public MoveNode(GameState gameState, Cell cell, RewardScheme rewardScheme, TranspositionTable transpositionTable) {
         this.root = this;
         this.rewardScheme = rewardScheme;
+        this.transpositionTable = transpositionTable;
+        this.stats = createStatistics(gameState);
         this.parent = null;
         this.rootState = gameState.getCopy();
 
         this.cell = cell;
         this.isEndState = gameState.isAtEnd();
         this.nextPlayer = gameState.getNextPlayer();
-        this.unexpandedMoves = new ArrayList<>(gameState.getAllowedMoves()); // sorted by rows then columns
+        this.numMoves = countAllowedMoves(gameState);
     }
 
     private MoveNode(MoveNode parent, Cell cell) {
-        init();
         GameState myState = parent.getGameState().next(cell);
         this.parent = parent;
         this.root = parent.root;
+        this.stats = createStatistics(myState);
         this.cell = cell;
         this.isEndState = myState.isAtEnd();
         this.nextPlayer = myState.getNextPlayer();
         this.stateRef = new SoftReference<>(myState);
-        this.unexpandedMoves = new ArrayList<>(myState.getAllowedMoves()); // sorted by rows then columns
+        this.numMoves = countAllowedMoves(myState);
     }
 
-    private void init() {
-        this.wins.put(Piece.X, 0);
-        this.wins.put(Piece.O, 0);
-        this.rewardSums.put(Piece.X, (double) 0);
-        this.rewardSums.put(Piece.O, (double) 0);
+    private static int countAllowedMoves(GameState state) {
+        return state.isAtEnd() ? 0 : state.getBoardRows()*state.getBoardCols() - state.getNumPieces();
+    }
+
+    private MoveStatistics createStatistics(GameState state) {
+        if (root.transpositionTable != null) {
+            return root.transpositionTable.getStatistics(state.getHash());
+        } else {
+            return new MoveStatistics();
+        }
     }
 
     /**
@@ -122,6 +157,7 @@ public class MoveNode {
 
         GameState state = this.stateRef.get();
         if (state == null) {
+            STATE_RECONSTRUCTIONS.increment();
             state = reconstructState();
             this.stateRef = new SoftReference<>(state);
         }
@@ -137,6 +173,14 @@ public class MoveNode {
     }
 
 
+    /**
+     * Returns how many times the game state of a node has been replayed from the root
+     * after the garbage collector cleared it, in all game trees since the start of the JVM.
+     */
+    public static long getNumStateReconstructions() {
+        return STATE_RECONSTRUCTIONS.sum();
+    }
+
     public MoveNode getRoot() {
         return root;
     }
@@ -154,11 +198,16 @@ public class MoveNode {
      * @see #expandRandomIn(Collection)
      */
     public List<MoveNode> getChildren() {
-        return Collections.unmodifiableList(children);
+        return Collections.unmodifiableList(Arrays.asList(children));
+    }
+
+    /** Returns the number of currently expanded next moves. */
+    public int getNumChildren() {
+        return children.length;
     }
 
     public boolean isFullyExpanded() {
-        return unexpandedMoves.isEmpty();
+        return children.length >= numMoves;
     }
 
     public boolean isFullyExpandedIn(Rectangle... rectangles) {
@@ -170,12 +219,16 @@ public class MoveNode {
             return true;
         }
 
+        GameState state = getGameState();
+        long[] expanded = getExpandedMoves(children, state);
         for (Rectangle rectangle : rectangles) {
-            for (int i = rectangle.getUpperLeftCorner().getRow(); i <= rectangle.getLowerRightCorner().getRow(); i++) {
-                int first = indexOfEqualOrNext(new Cell(i, rectangle.getUpperLeftCorner().getColumn()), unexpandedMoves);
-                int last = indexOfEqualOrPrev(new Cell(i, rectangle.getLowerRightCorner().getColumn()), unexpandedMoves);
-                if (first <= last) {
-                    return false;
+            int lastRow = Math.min(rectangle.getLowerRightCorner().getRow(), state.getBoardRows() - 1);
+            int lastCol = Math.min(rectangle.getLowerRightCorner().getColumn(), state.getBoardCols() - 1);
+            for (int i = Math.max(rectangle.getUpperLeftCorner().getRow(), 0); i <= lastRow; i++) {
+                for (int j = Math.max(rectangle.getUpperLeftCorner().getColumn(), 0); j <= lastCol; j++) {
+                    if (isUnexpandedMove(state, expanded, i, j)) {
+                        return false;
+                    }
                 }
             }
         }
@@ -187,8 +240,16 @@ public class MoveNode {
      * This can be a huge memory hog.
      */
     public void expandAll() {
-        while (!isFullyExpanded()) {
-            expand(0);
+        if (isEndState) {
+            return;
+        }
+        GameState state = getGameState();
+        for (int i = 0; i < state.getBoardRows(); i++) {
+            for (int j = 0; j < state.getBoardCols(); j++) {
+                if (state.getPiece(i, j) == null) {
+                    findMoveTo(new Cell(i, j));
+                }
+            }
         }
     }
 
@@ -199,10 +260,7 @@ public class MoveNode {
      *  child node representing the added move, or null if no more moves to expand
      */
     public MoveNode expandRandom() {
-        if (unexpandedMoves.isEmpty()) {
-            return null;
-        }
-        return expand(ThreadLocalRandom.current().nextInt(unexpandedMoves.size()));
+        return expandRandomWhere((row, col) -> true);
     }
 
     /**
@@ -221,90 +279,181 @@ public class MoveNode {
      *  or null if no more moves to expand in the rectangles
      */
     public MoveNode expandRandomIn(Collection<Rectangle> rectangles) {
-        if (isFullyExpanded()) {
-            return null;
-        }
-
-        List<Integer> candidates = new ArrayList<>();
-        for (Rectangle rectangle : rectangles) {
-            for (int i = rectangle.getUpperLeftCorner().getRow(); i <= rectangle.getLowerRightCorner().getRow(); i++) {
-                int first = indexOfEqualOrNext(new Cell(i, rectangle.getUpperLeftCorner().getColumn()), unexpandedMoves);
-                int last = indexOfEqualOrPrev(new Cell(i, rectangle.getLowerRightCorner().getColumn()), unexpandedMoves);
-                for (int nodeIndex = first; nodeIndex <= last; nodeIndex++) {
-                    candidates.add(nodeIndex);
+        return expandRandomWhere((row, col) -> {
+            for (Rectangle rectangle : rectangles) {
+                if (row >= rectangle.getUpperLeftCorner().getRow() && row <= rectangle.getLowerRightCorner().getRow()
+                        && col >= rectangle.getUpperLeftCorner().getColumn() && col <= rectangle.getLowerRightCorner().getColumn()) {
+                    return true;
                 }
             }
-        }
-        if (candidates.isEmpty()) {
-            return null;
-        }
-        return expand(Utils.pickRandom(candidates));
+            return false;
+        });
     }
 
     /**
-     * Finds the index of position equal to the key or the next one if equal key does not exist.
+     * Expands this node by one random move in the given area, such as the cells
+     * near pieces in the current game state, and adds it as a child node.
      *
-     * @param key
-     *  The key
-     * @param positionList
-     *  The list to search. Must be sorted first by rows, then by columns.
      * @return
-     *  The index, or positionList.size() if no equal nor next position in positionList
-     */
-    private int indexOfEqualOrNext(Cell key, List<Cell> positionList) {
-        int result = Collections.binarySearch(positionList, key, new CellRowOrderComparator());
-        if (result >= 0) {
-            return result; // equal
-        } else { // result = -(insertion point) - 1, where insertion point is index of first element _greater_ than key
-            int ins = -result - 1;
-            return ins; // next actual element, or positionList.size()
+     *  child node representing the added move,
+     *  or null if no more moves to expand in the area
+     */
+    public MoveNode expandRandomIn(Frontier area) {
+        return expandRandomWhere(area::contains);
+    }
+
+    private MoveNode expandRandomWhere(CellFilter filter) {
+        while (!isFullyExpanded()) {
+            GameState state = getGameState();
+            long[] expanded = getExpandedMoves(children, state);
+            int chosenRow = -1;
+            int chosenCol = -1;
+            int numCandidates = 0;
+            for (int i = 0; i < state.getBoardRows(); i++) {
+                for (int j = 0; j < state.getBoardCols(); j++) {
+                    // Each candidate replaces the chosen one with probability 1/(candidates so far),
+                    // which picks one uniformly without collecting the candidates
+                    if (isUnexpandedMove(state, expanded, i, j) && filter.accepts(i, j)
+                            && ThreadLocalRandom.current().nextInt(++numCandidates) == 0) {
+                        chosenRow = i;
+                        chosenCol = j;
+                    }
+                }
+            }
+            if (chosenRow < 0) {
+                return null;
+            }
+            MoveNode child = tryExpand(new Cell(chosenRow, chosenCol));
+            if (child != null) {
+                return child;
+            } // else expanded concurrently, try again
         }
+        return null;
     }
 
     /**
-     * Finds the index of position equal to the key or the previous one if equal key does not exist.
+     * Expands this node by the most promising move in the given area according to
+     * {@link MovePrior}, and adds it as a child node. Ties are broken randomly.
      *
-     * @param key
-     *  The key
-     * @param positionList
-     *  The list to search. Must be sorted first by rows, then by columns.
+     * @param area
+     *  the area, or null for the whole board
      * @return
-     *  The index, or -1 if no equal nor previous position in positionList
-     */
-    private int indexOfEqualOrPrev(Cell key, List<Cell> positionList) {
-        int result = Collections.binarySearch(positionList, key, new CellRowOrderComparator());
-        if (result >= 0) {
-            return result; // equal
-        } else { // result = -(insertion point) - 1, where insertion point is index of first element _greater_ than key
-            int ins = -result - 1;
-            return ins - 1; // previous actual element, or -1
+     *  child node representing the added move,
+     *  or null if no more moves to expand in the area
+     */
+    public MoveNode expandBestIn(Frontier area) {
+        if (isFullyExpanded()) {
+            return null;
         }
+        GameState state = getGameState();
+        Threats threats = state.findThreats(); // not kept, the state may be shared by the searching threads
+        while (!isFullyExpanded()) {
+            long[] expanded = getExpandedMoves(children, state);
+            Cell chosen = null;
+            int bestPrior = Integer.MIN_VALUE;
+            int numBest = 0;
+            for (int i = 0; i < state.getBoardRows(); i++) {
+                for (int j = 0; j < state.getBoardCols(); j++) {
+                    if (isUnexpandedMove(state, expanded, i, j) && (area == null || area.contains(i, j))) {
+                        Cell move = new Cell(i, j);
+                        int prior = MovePrior.getPrior(state, threats, move);
+                        if (prior > bestPrior) {
+                            bestPrior = prior;
+                            numBest = 1;
+                            chosen = move;
+                        } else if (prior == bestPrior && ThreadLocalRandom.current().nextInt(++numBest) == 0) {
+                            chosen = move;
+                        }
+                    }
+                }
+            }
+            if (chosen == null) {
+                return null;
+            }
+            MoveNode child = tryExpand(chosen);
+            if (child != null) {
+                return child;
+            } // else expanded concurrently, try again
+        }
+        return null;
+    }
+
+    private interface CellFilter {
+        boolean accepts(int row, int col);
     }
 
-    private MoveNode expand(int unexpandedIndex) {
-        Cell position = unexpandedMoves.get(unexpandedIndex);
-        unexpandedMoves.remove(unexpandedIndex);
-        MoveNode child = new MoveNode(this, position);
-        this.children.add(child);
-        return child;
+    /**
+     * Returns the moves of the children as a bitset of cell indexes (row*columns + column),
+     * in an array of the calling thread that the next call reuses.
+     */
+    private static long[] getExpandedMoves(MoveNode[] children, GameState state) {
+        int numCols = state.getBoardCols();
+        int numWords = (state.getBoardRows()*numCols + 63) >>> 6;
+        long[] expanded = EXPANDED_MOVES.get();
+        if (expanded.length < numWords) {
+            expanded = new long[numWords];
+            EXPANDED_MOVES.set(expanded);
+        } else {
+            Arrays.fill(expanded, 0, numWords, 0L);
+        }
+        for (MoveNode child : children) {
+            int cellIndex = child.cell.getRow()*numCols + child.cell.getColumn();
+            expanded[cellIndex >>> 6] |= 1L << cellIndex;
+        }
+        return expanded;
     }
 
+    private boolean isUnexpandedMove(GameState state, long[] expanded, int row, int col) {
+        int cellIndex = row*state.getBoardCols() + col;
+        return !isEndState && state.getPiece(row, col) == null && (expanded[cellIndex >>> 6] & (1L << cellIndex)) == 0;
+    }
 
-    public MoveNode findMoveTo(Cell nextPosition) {
-        // Already expanded?
-        for (MoveNode node : children) {
-            if (node.getMove().equals(nextPosition)) {
-                return node;
+    private MoveNode findChild(Cell move) {
+        for (MoveNode child : children) {
+            if (child.cell.equals(move)) {
+                return child;
             }
         }
-        // Must be unexpanded then, or else not an allowed move
-        for (int i = 0; i < unexpandedMoves.size(); i++) {
-            Cell move = unexpandedMoves.get(i);
-            if (move.equals(nextPosition)) {
-                return expand(i);
+        return null;
+    }
+
+    /**
+     * Adds the child of the move unless another thread has already expanded it.
+     *
+     * @return
+     *  the new child, or null if the move was already expanded
+     */
+    private MoveNode tryExpand(Cell move) {
+        MoveNode child = null;
+        while (true) {
+            MoveNode[] current = children;
+            for (MoveNode other : current) {
+                if (other.cell.equals(move)) {
+                    return null;
+                }
+            }
+            if (child == null) {
+                child = new MoveNode(this, move);
             }
+            MoveNode[] expanded = Arrays.copyOf(current, current.length + 1);
+            expanded[current.length] = child;
+            if (CHILDREN.compareAndSet(this, current, expanded)) {
+                return child;
+            } // else another move was added meanwhile, try again
         }
-        return null;
+    }
+
+
+    public MoveNode findMoveTo(Cell nextPosition) {
+        MoveNode child = findChild(nextPosition);
+        if (child != null) {
+            return child;
+        }
+        if (isEndState || !getGameState().isAllowed(nextPosition)) {
+            return null;
+        }
+        child = tryExpand(nextPosition);
+        return child != null ? child : findChild(nextPosition);
     }
 
     /**
@@ -322,11 +471,12 @@ public class MoveNode {
      *  if this node has no children (game at end or no children expanded)
      */
     public List<MoveNode> getBestMoves() throws IllegalStateException {
-        if (children.isEmpty()) {
+        List<MoveNode> expanded = getChildren();
+        if (expanded.isEmpty()) {
             throw new IllegalStateException("Node has no children");
         }
 
-        return Utils.max(children, c -> c.getExpectedReward(this.nextPlayer));
+        return Utils.max(expanded, c -> c.getExpectedReward(this.nextPlayer));
     }
 
     /**
@@ -343,31 +493,91 @@ public class MoveNode {
      *  if this node has no children (game at end or no children expanded)
      */
     public List<MoveNode> getBestExploratoryMoves() throws IllegalStateException {
-        if (children.isEmpty()) {
+        List<MoveNode> expanded = getChildren();
+        if (expanded.isEmpty()) {
             throw new IllegalStateException("Node has no children");
         }
 
-        return Utils.max(children, c -> c.getExplorationScore(this.nextPlayer));
+        return Utils.max(expanded, c -> c.getExplorationScore(this.nextPlayer));
     }
 
+    /**
+     * Returns the expected reward plus exploration bonus of this move to the player
+     * who would choose it. Simulations in progress count as that player's losses.
+     *
+     * @see #addVirtualLoss()
+     */
     public double getExplorationScore(Piece player) {
-        return this.getExpectedReward(player) + root.rewardScheme.getExplorationBonus(player, this);
+        int v = this.getNumVirtualLosses();
+        double n = this.getNumPlays() + v;
+        double R = this.stats.getRewardSum(player) + v*root.rewardScheme.getLossReward();
+        double r = n > 0 ? R/n : R;
+        double raveEquivalence = root.rewardScheme.getRaveEquivalence();
+        if (raveEquivalence > 0) {
+            r = RAVE.getBlendedReward(r, n, stats.getAmafRewardSum(player), stats.getNumAmafPlays(), raveEquivalence);
+        }
+        return r + root.rewardScheme.getExplorationBonus(player, this);
     }
 
     public double getExpectedReward(Piece player) {
         double n = this.getNumPlays();
-        double R = this.rewardSums.get(player);
+        double R = this.stats.getRewardSum(player);
         double r = n > 0 ? R/n : R;
         return r;
     }
 
+    /**
+     * Returns the average All-Moves-As-First reward of this move to the player,
+     * see {@link RAVE}.
+     */
+    public double getAmafExpectedReward(Piece player) {
+        double n = this.getNumAmafPlays();
+        double R = this.stats.getAmafRewardSum(player);
+        return n > 0 ? R/n : R;
+    }
+
+    /**
+     * Returns the number of simulations through the parent in which this move was
+     * played later by the same player, if the reward scheme uses {@link RAVE}.
+     */
+    public int getNumAmafPlays() {
+        return stats.getNumAmafPlays();
+    }
+
     public int getWins(Piece piece) {
-        return wins.get(piece);
+        return stats.getWins(piece);
     }
 
-    /** Returns the number of simulated game results starting from this node. */
+    /**
+     * Returns the number of simulated game results starting from this node,
+     * or from any node of the same position if a transposition table is used.
+     */
     public int getNumPlays() {
-        return numPlays;
+        return stats.getNumPlays();
+    }
+
+    /**
+     * Marks a simulation through this node as started. Until it is finished
+     * and {@link #removeVirtualLoss() removed}, it counts as a loss to the player
+     * choosing this move in {@link #getExplorationScore(Piece)}. This steers
+     * parallel searches to different branches (virtual loss).
+     */
+    public void addVirtualLoss() {
+        stats.addVirtualLoss();
+    }
+
+    /**
+     * Marks a simulation through this node as finished.
+     *
+     * @see #addVirtualLoss()
+     */
+    public void removeVirtualLoss() {
+        stats.removeVirtualLoss();
+    }
+
+    /** Returns the number of simulations through this node currently in progress. */
+    public int getNumVirtualLosses() {
+        return stats.getNumVirtualLosses();
     }
 
     /**
@@ -377,25 +587,84 @@ public class MoveNode {
      * This updates the expected rewards of all the previous moves.
      */
     public void propagateSimulatedResult(GameState endState) {
-        Piece winner = endState.getWinner();
+        propagateSimulatedResult(endState.getWinner(),
+                endState.getLongestSequence(Piece.X).getLength(),
+                endState.getLongestSequence(Piece.O).getLength(),
+                endState::getPiece);
+    }
 
-        Map<Piece, Double> rewards = new EnumMap<>(Piece.class);
-        rewards.put(Piece.X, root.rewardScheme.getReward(Piece.X, endState));
-        rewards.put(Piece.O, root.rewardScheme.getReward(Piece.O, endState));
+    /**
+     * Like {@link #propagateSimulatedResult(GameState)}, for a game that ended
+     * with the given winner (null if none) and longest sequences. No All-Moves-As-First
+     * results are recorded.
+     */
+    public void propagateSimulatedResult(Piece winner, int xLongestSequence, int oLongestSequence) {
+        propagateSimulatedResult(winner, xLongestSequence, oLongestSequence, null);
+    }
+
+    /**
+     * Like {@link #propagateSimulatedResult(Piece, int, int)}, and if the reward scheme
+     * uses {@link RAVE}, also records All-Moves-As-First results of the moves played later
+     * in the game.
+     *
+     * @param endBoard
+     *  the board at the end of the game, or null to not record AMAF results
+     */
+    void propagateSimulatedResult(Piece winner, int xLongestSequence, int oLongestSequence, RAVE.EndBoard endBoard) {
+        double xReward = root.rewardScheme.getReward(Piece.X, winner, xLongestSequence, oLongestSequence);
+        double oReward = root.rewardScheme.getReward(Piece.O, winner, oLongestSequence, xLongestSequence);
+        boolean isAmafRecorded = endBoard != null && root.rewardScheme.getRaveEquivalence() > 0;
 
         MoveNode current = this;
         while (current != null) {
-            if (winner != null) {
-                int updatedWins = current.wins.get(winner) + 1;
-                current.wins.put(winner, updatedWins);
+            current.stats.add(winner, xReward, oReward);
+            if (isAmafRecorded) {
+                current.addAmafResults(endBoard, xReward, oReward);
             }
+            current = current.parent;
+        }
+    }
 
-            current.rewardSums.put(Piece.X, current.rewardSums.get(Piece.X) + rewards.get(Piece.X));
-            current.rewardSums.put(Piece.O, current.rewardSums.get(Piece.O) + rewards.get(Piece.O));
+    /**
+     * Like {@link #propagateSimulatedResult(Piece, int, int, RAVE.EndBoard)} for several
+     * games simulated from this node, walking up the tree once for all of them.
+     */
+    void propagateSimulatedResults(SimulationResults results) {
+        MoveNode current = this;
+        while (current != null) {
+            current.stats.add(results);
+            if (results.isAmafRecorded()) {
+                current.addAmafResults(results);
+            }
+            current = current.parent;
+        }
+    }
 
-            current.numPlays = current.numPlays + 1;
+    /**
+     * Records a simulation result as an AMAF result of the children whose
+     * moves the next player made later in the game. The moves of the children
+     * are free in this state, so they were played later if they are occupied
+     * on the end board.
+     */
+    private void addAmafResults(RAVE.EndBoard endBoard, double xReward, double oReward) {
+        for (MoveNode child : children) {
+            if (endBoard.getPiece(child.cell.getRow(), child.cell.getColumn()) == nextPlayer) {
+                child.stats.addAmaf(xReward, oReward);
+            }
+        }
+    }
 
-            current = current.parent;
+    /** @see #addAmafResults(RAVE.EndBoard, double, double) */
+    private void addAmafResults(SimulationResults results) {
+        for (MoveNode child : children) {
+            int row = child.cell.getRow();
+            int col = child.cell.getColumn();
+            int numAmafPlays = results.getNumAmafPlays(nextPlayer, row, col);
+            if (numAmafPlays > 0) {
+                child.stats.addAmaf(numAmafPlays,
+                        results.getAmafRewardSum(Piece.X, nextPlayer, row, col),
+                        results.getAmafRewardSum(Piece.O, nextPlayer, row, col));
+            }
         }
     }
 
@@ -416,6 +685,7 @@ public class MoveNode {
      */
     public void makeRoot() {
         this.rewardScheme = root.rewardScheme;
+        this.transpositionTable = root.transpositionTable;
         this.rootState = getGameState();
         this.root = this;
         this.parent = null;
@@ -431,8 +701,7 @@ public class MoveNode {
         MoveNode child = this;
         MoveNode parent = this.parent;
         while (parent != null) {
-            parent.children.clear();
-            parent.children.add(child);
+            parent.children = new MoveNode[]{child};
             child = parent;
             parent = parent.parent;
         }
@@ -452,11 +721,9 @@ public class MoveNode {
 
     private void pruneDescendantsIfLevelEqualsTarget(int currentLevel, int targetLevel) {
         if (currentLevel == targetLevel) {
-            this.children.clear();
-            this.unexpandedMoves.clear();
-            this.unexpandedMoves.addAll(getGameState().getAllowedMoves());
+            children = NO_CHILDREN;
         } else {
-            for (MoveNode child : this.children) {
+            for (MoveNode child : getChildren()) {
                 child.pruneDescendantsIfLevelEqualsTarget(currentLevel + 1, targetLevel);
             }
         }
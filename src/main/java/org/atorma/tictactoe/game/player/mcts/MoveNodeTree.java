@@ -0,0 +1,197 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.Frontier;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SearchTree} of linked {@link MoveNode} objects. The node
+ * objects are the handles.
+ * <p/>
+ * Limits the number of nodes by refusing to expand more while searching.
+ * Nodes are counted as they are expanded and recounted after pruning.
+ */
+class MoveNodeTree implements SearchTree<MoveNode> {
+
+    private MoveNode root;
+    private final int maxNodes;
+    private final AtomicInteger numNodes = new AtomicInteger(1);
+
+    MoveNodeTree(MoveNode root) {
+        this(root, Integer.MAX_VALUE);
+    }
+
+    MoveNodeTree(MoveNode root, int maxNodes) {
+        if (maxNodes < 1) throw new IllegalArgumentException("Maximum number of nodes must be >= 1, was " + maxNodes);
+        this.root = root;
+        this.maxNodes = maxNodes;
+        this.numNodes.set(countNodes(root));
+    }
+
+    public MoveNode getRoot() {
+        return root;
+    }
+
+    /** Returns the number of nodes in the tree. */
+    public int size() {
+        return numNodes.get();
+    }
+
+    public MoveNode getParent(MoveNode node) {
+        return node.getParent();
+    }
+
+    public Cell getMove(MoveNode node) {
+        return node.getMove();
+    }
+
+    public boolean isEndState(MoveNode node) {
+        return node.isEndState();
+    }
+
+    public GameState getGameState(MoveNode node) {
+        return node.getGameState();
+    }
+
+    public boolean hasChildren(MoveNode node) {
+        return node.getNumChildren() > 0;
+    }
+
+    public int getNumChildren(MoveNode node) {
+        return node.getNumChildren();
+    }
+
+    public int getNumPlays(MoveNode node) {
+        return node.getNumPlays();
+    }
+
+    public boolean isFull() {
+        return numNodes.get() >= maxNodes;
+    }
+
+    public MoveNode findMoveTo(MoveNode node, Cell move) {
+        int numChildren = node.getNumChildren();
+        MoveNode child = node.findMoveTo(move);
+        if (node.getNumChildren() > numChildren) {
+            numNodes.incrementAndGet(); // game moves may exceed the limit
+        }
+        return child;
+    }
+
+    public MoveNode expandRandom(MoveNode node) {
+        if (!reserveNode()) {
+            return null;
+        }
+        MoveNode child = node.expandRandom();
+        if (child == null) {
+            numNodes.decrementAndGet();
+        }
+        return child;
+    }
+
+    public MoveNode expandRandomIn(MoveNode node, Frontier area) {
+        if (!reserveNode()) {
+            return null;
+        }
+        MoveNode child = node.expandRandomIn(area);
+        if (child == null) {
+            numNodes.decrementAndGet();
+        }
+        return child;
+    }
+
+    public MoveNode expandBestIn(MoveNode node, Frontier area) {
+        if (!reserveNode()) {
+            return null;
+        }
+        MoveNode child = node.expandBestIn(area);
+        if (child == null) {
+            numNodes.decrementAndGet();
+        }
+        return child;
+    }
+
+    private boolean reserveNode() {
+        int n;
+        do {
+            n = numNodes.get();
+            if (n >= maxNodes) {
+                return false;
+            }
+        } while (!numNodes.compareAndSet(n, n + 1));
+        return true;
+    }
+
+    public List<MoveNode> getBestMoves(MoveNode node) {
+        return node.getBestMoves();
+    }
+
+    public List<MoveNode> getBestExploratoryMoves(MoveNode node) {
+        return node.getBestExploratoryMoves();
+    }
+
+    public void addVirtualLoss(MoveNode node) {
+        node.addVirtualLoss();
+    }
+
+    public void removeVirtualLoss(MoveNode node) {
+        node.removeVirtualLoss();
+    }
+
+    public void propagateSimulatedResult(MoveNode node, GameState endState) {
+        node.propagateSimulatedResult(endState);
+    }
+
+    public void propagateSimulatedResult(MoveNode node, Piece winner, int xLongestSequence, int oLongestSequence) {
+        node.propagateSimulatedResult(winner, xLongestSequence, oLongestSequence);
+    }
+
+    public void propagateSimulatedResult(MoveNode node, Piece winner, int xLongestSequence, int oLongestSequence, RAVE.EndBoard endBoard) {
+        node.propagateSimulatedResult(winner, xLongestSequence, oLongestSequence, endBoard);
+    }
+
+    public void propagateSimulatedResults(MoveNode node, SimulationResults results) {
+        node.propagateSimulatedResults(results);
+    }
+
+    public MoveNode pruneOtherBranchesOnPathToRoot(MoveNode node) {
+        node.pruneOtherBranchesOnPathToRoot();
+        numNodes.set(countNodes(root));
+        return node;
+    }
+
+    public MoveNode makeRoot(MoveNode node) {
+        node.makeRoot();
+        root = node;
+        numNodes.set(countNodes(root));
+        return node;
+    }
+
+    public MoveNode pruneDescendantLevelsGreaterThan(MoveNode node, int targetLevel) {
+        node.pruneDescendantLevelsGreaterThan(targetLevel);
+        numNodes.set(countNodes(root));
+        return node;
+    }
+
+    private static int countNodes(MoveNode root) {
+        int count = 0;
+        Deque<MoveNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            MoveNode node = stack.pop();
+            count++;
+            node.getChildren().forEach(stack::push);
+        }
+        return count;
+    }
+
+    public String printStatsFor(MoveNode node, Piece player) {
+        return node.printStatsFor(player);
+    }
+}
@@ -0,0 +1,56 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.atorma.tictactoe.game.state.Threats;
+
+/**
+ * A cheap estimate of how promising a move is, used to choose which moves to expand
+ * first with progressive widening, see {@link MCTSParameters#progressiveWidening}.
+ * <p/>
+ * Winning, blocking the opponent's win, making an open threat and blocking the
+ * opponent's open threat come first, in this order. Otherwise, and among moves of
+ * the same kind, moves next to more pieces come first.
+ */
+class MovePrior {
+
+    private static final int[][] NEIGHBOURS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
+
+    /**
+     * Returns the prior of a move of the next player to an empty cell, greater
+     * for more promising moves.
+     *
+     * @param threats
+     *  the threats of the state, see {@link GameState#findThreats()}
+     */
+    static int getPrior(GameState state, Threats threats, Cell move) {
+        Piece player = state.getNextPlayer();
+        int kind;
+        if (threats.isWinningMove(move, player)) {
+            kind = 4;
+        } else if (threats.isWinningMove(move, player.other())) {
+            kind = 3;
+        } else if (threats.isOpenThreatMove(move, player)) {
+            kind = 2;
+        } else if (threats.isOpenThreatMove(move, player.other())) {
+            kind = 1;
+        } else {
+            kind = 0;
+        }
+        return kind*(NEIGHBOURS.length + 1) + countNeighbourPieces(state, move);
+    }
+
+    private static int countNeighbourPieces(GameState state, Cell move) {
+        int count = 0;
+        for (int[] step : NEIGHBOURS) {
+            int row = move.getRow() + step[0];
+            int col = move.getColumn() + step[1];
+            if (row >= 0 && row < state.getBoardRows() && col >= 0 && col < state.getBoardCols()
+                    && state.getPiece(row, col) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,116 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Piece;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Simulation results recorded for a game state. Normally owned by
+ * a single {@link MoveNode}, but shared by all nodes of the same
+ * position when a {@link TranspositionTable} is used.
+ * <p/>
+ * The results are kept in primitive fields updated atomically with
+ * field updaters, so there is a single small object per node and
+ * recording a result allocates nothing. A reader may see the results
+ * of a simulation partly recorded, e.g. the play counted but not yet
+ * the reward.
+ */
+class MoveStatistics {
+
+    private static final AtomicIntegerFieldUpdater<MoveStatistics> X_WINS = AtomicIntegerFieldUpdater.newUpdater(MoveStatistics.class, "xWins");
+    private static final AtomicIntegerFieldUpdater<MoveStatistics> O_WINS = AtomicIntegerFieldUpdater.newUpdater(MoveStatistics.class, "oWins");
+    private static final AtomicIntegerFieldUpdater<MoveStatistics> NUM_PLAYS = AtomicIntegerFieldUpdater.newUpdater(MoveStatistics.class, "numPlays");
+    private static final AtomicIntegerFieldUpdater<MoveStatistics> NUM_VIRTUAL_LOSSES = AtomicIntegerFieldUpdater.newUpdater(MoveStatistics.class, "numVirtualLosses");
+    private static final AtomicLongFieldUpdater<MoveStatistics> X_REWARD_SUM = AtomicLongFieldUpdater.newUpdater(MoveStatistics.class, "xRewardSumBits");
+    private static final AtomicLongFieldUpdater<MoveStatistics> O_REWARD_SUM = AtomicLongFieldUpdater.newUpdater(MoveStatistics.class, "oRewardSumBits");
+    private static final AtomicIntegerFieldUpdater<MoveStatistics> NUM_AMAF_PLAYS = AtomicIntegerFieldUpdater.newUpdater(MoveStatistics.class, "numAmafPlays");
+    private static final AtomicLongFieldUpdater<MoveStatistics> X_AMAF_REWARD_SUM = AtomicLongFieldUpdater.newUpdater(MoveStatistics.class, "xAmafRewardSumBits");
+    private static final AtomicLongFieldUpdater<MoveStatistics> O_AMAF_REWARD_SUM = AtomicLongFieldUpdater.newUpdater(MoveStatistics.class, "oAmafRewardSumBits");
+
+    private volatile int xWins;
+    private volatile int oWins;
+    private volatile int numPlays;
+    private volatile int numVirtualLosses;
+    private volatile long xRewardSumBits; // Double.doubleToRawLongBits of the sum, 0L is 0.0
+    private volatile long oRewardSumBits;
+    private volatile int numAmafPlays;
+    private volatile long xAmafRewardSumBits;
+    private volatile long oAmafRewardSumBits;
+
+    int getWins(Piece piece) {
+        return piece == Piece.X ? xWins : oWins;
+    }
+
+    double getRewardSum(Piece piece) {
+        return Double.longBitsToDouble(piece == Piece.X ? xRewardSumBits : oRewardSumBits);
+    }
+
+    int getNumPlays() {
+        return numPlays;
+    }
+
+    int getNumAmafPlays() {
+        return numAmafPlays;
+    }
+
+    double getAmafRewardSum(Piece piece) {
+        return Double.longBitsToDouble(piece == Piece.X ? xAmafRewardSumBits : oAmafRewardSumBits);
+    }
+
+    int getNumVirtualLosses() {
+        return numVirtualLosses;
+    }
+
+    void addVirtualLoss() {
+        NUM_VIRTUAL_LOSSES.incrementAndGet(this);
+    }
+
+    void removeVirtualLoss() {
+        NUM_VIRTUAL_LOSSES.decrementAndGet(this);
+    }
+
+    void add(Piece winner, double xReward, double oReward) {
+        if (winner == Piece.X) {
+            X_WINS.incrementAndGet(this);
+        } else if (winner == Piece.O) {
+            O_WINS.incrementAndGet(this);
+        }
+
+        addReward(X_REWARD_SUM, xReward);
+        addReward(O_REWARD_SUM, oReward);
+
+        NUM_PLAYS.incrementAndGet(this);
+    }
+
+    void add(SimulationResults results) {
+        X_WINS.addAndGet(this, results.getWins(Piece.X));
+        O_WINS.addAndGet(this, results.getWins(Piece.O));
+
+        addReward(X_REWARD_SUM, results.getRewardSum(Piece.X));
+        addReward(O_REWARD_SUM, results.getRewardSum(Piece.O));
+
+        NUM_PLAYS.addAndGet(this, results.getNumPlays());
+    }
+
+    void addAmaf(double xReward, double oReward) {
+        addReward(X_AMAF_REWARD_SUM, xReward);
+        addReward(O_AMAF_REWARD_SUM, oReward);
+        NUM_AMAF_PLAYS.incrementAndGet(this);
+    }
+
+    void addAmaf(int numPlays, double xRewardSum, double oRewardSum) {
+        addReward(X_AMAF_REWARD_SUM, xRewardSum);
+        addReward(O_AMAF_REWARD_SUM, oRewardSum);
+        NUM_AMAF_PLAYS.addAndGet(this, numPlays);
+    }
+
+    private void addReward(AtomicLongFieldUpdater<MoveStatistics> rewardSum, double reward) {
+        long current;
+        long updated;
+        do {
+            current = rewardSum.get(this);
+            updated = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + reward);
+        } while (!rewardSum.compareAndSet(this, current, updated));
+    }
+}
@@ -0,0 +1,287 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * A fixed number of daemon threads shared by all {@link MCTSPlayer}s
+ * for running rollouts, so that the number of threads does not grow
+ * with the number of games.
+ * <p/>
+ * Planning tasks run in time slices. After each slice a task goes to
+ * the back of the queue, so players thinking at the same time share
+ * the threads round robin instead of the first ones taking all threads
+ * until their think time runs out.
+ * <p/>
+ * Background planning, such as pondering during the opponent's turn,
+ * shares the threads the same way, but all background planning together
+ * runs at most a given number of tasks, so that it takes at most that
+ * many threads from players who are thinking on their turn.
+ */
+public class PlanningExecutor {
+
+    /** How long a planning task runs before giving its thread to other tasks */
+    public static final long TIME_SLICE_MILLIS = 20;
+
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger(1);
+    private static PlanningExecutor shared;
+
+    private final ThreadPoolExecutor pool;
+    private final int maxBackgroundTasks;
+    private final Semaphore backgroundTaskPermits;
+
+
+    /**
+     * Creates an executor that lets background planning use half of the threads.
+     */
+    public PlanningExecutor(int numThreads) {
+        this(numThreads, Math.max(1, numThreads/2));
+    }
+
+    /**
+     * @param maxBackgroundTasks
+     *  Number of tasks all background planning may run at a time, 0 to disable background planning
+     */
+    public PlanningExecutor(int numThreads, int maxBackgroundTasks) {
+        if (numThreads < 1) throw new IllegalArgumentException("Invalid planning thread number " + numThreads + ". Must be >= 1.");
+        if (maxBackgroundTasks < 0) throw new IllegalArgumentException("Invalid background task number " + maxBackgroundTasks + ". Must be >= 0.");
+
+        this.maxBackgroundTasks = maxBackgroundTasks;
+        this.backgroundTaskPermits = new Semaphore(maxBackgroundTasks);
+
+        String namePrefix = "mcts-planning-" + POOL_SEQUENCE.getAndIncrement() + "-";
+        AtomicInteger threadSequence = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadSequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * Returns an executor with one thread per available processor, used by
+     * players that have not been given an executor of their own.
+     */
+    public static synchronized PlanningExecutor getShared() {
+        if (shared == null) {
+            shared = new PlanningExecutor(Runtime.getRuntime().availableProcessors());
+        }
+        return shared;
+    }
+
+    public int getNumThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    public int getMaxBackgroundTasks() {
+        return maxBackgroundTasks;
+    }
+
+    /**
+     * Runs work repeatedly in parallel tasks until isWorkLeft returns false,
+     * and waits for all tasks to finish.
+     *
+     * @param parallelism
+     *  Number of tasks running work, at most this many threads are used at a time
+     * @param isWorkLeft
+     *  Checked before each run of work
+     * @param work
+     *  A unit of work, such as a single rollout. Must be thread-safe.
+     * @throws RuntimeException
+     *  If work throws an exception. The remaining tasks are stopped.
+     */
+    public void run(int parallelism, BooleanSupplier isWorkLeft, Runnable work) {
+        run(parallelism, isWorkLeft, task -> work);
+    }
+
+    /**
+     * Like {@link #run(int, BooleanSupplier, Runnable)}, but each task runs its own work,
+     * such as rollouts in a private game tree. A task runs its work in one thread at a time,
+     * though not always in the same thread, so the work of a task need not be thread-safe.
+     *
+     * @param taskWork
+     *  Returns the work of the task with the given number, 0 to parallelism - 1
+     */
+    public void run(int parallelism, BooleanSupplier isWorkLeft, IntFunction<Runnable> taskWork) {
+        if (parallelism < 1) throw new IllegalArgumentException("Invalid parallelism " + parallelism + ". Must be >= 1.");
+
+        Planning planning = new Planning(parallelism, isWorkLeft, taskWork, null);
+        for (int i = 0; i < parallelism; i++) {
+            planning.submitSlice(i);
+        }
+        planning.await();
+    }
+
+    /**
+     * Starts running work repeatedly in parallel tasks until isWorkLeft returns false or
+     * the planning is stopped, without waiting. Fewer tasks are started if other background
+     * planning already runs close to the maximum number of background tasks, and none if
+     * it runs the maximum.
+     *
+     * @param parallelism
+     *  Maximum number of tasks running work
+     * @return
+     *  The planning, to be stopped with {@link BackgroundPlanning#stop()}
+     * @see #run(int, BooleanSupplier, Runnable)
+     */
+    public BackgroundPlanning start(int parallelism, BooleanSupplier isWorkLeft, Runnable work) {
+        if (parallelism < 1) throw new IllegalArgumentException("Invalid parallelism " + parallelism + ". Must be >= 1.");
+
+        int numTasks = 0;
+        while (numTasks < parallelism && backgroundTaskPermits.tryAcquire()) {
+            numTasks++;
+        }
+        Planning planning = new Planning(numTasks, isWorkLeft, task -> work, backgroundTaskPermits);
+        for (int i = 0; i < numTasks; i++) {
+            planning.submitSlice(i);
+        }
+        return planning;
+    }
+
+    /**
+     * Stops all threads. Planning in progress fails: the slices still waiting in the
+     * queue are dropped and their tasks finished with a {@link RejectedExecutionException},
+     * like the tasks whose running slices can no longer be resubmitted.
+     */
+    public void shutdown() {
+        for (Runnable queued : pool.shutdownNow()) {
+            ((Planning.Slice) queued).reject();
+        }
+    }
+
+
+    /** Planning started with {@link #start(int, BooleanSupplier, Runnable)} */
+    public interface BackgroundPlanning {
+
+        /** Returns the number of tasks the planning got to run. */
+        int getNumTasks();
+
+        /**
+         * Stops the planning and waits for the running work to finish.
+         *
+         * @throws RuntimeException
+         *  If work threw an exception, or the executor was shut down
+         */
+        void stop();
+    }
+
+    private class Planning implements BackgroundPlanning {
+        private final BooleanSupplier isWorkLeft;
+        private final Runnable[] works; // by task
+        private final int numTasks;
+        private final CountDownLatch unfinishedTasks;
+        private final Semaphore taskPermits; // released as tasks finish, null if none
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        Planning(int parallelism, BooleanSupplier isWorkLeft, IntFunction<Runnable> taskWork, Semaphore taskPermits) {
+            this.isWorkLeft = isWorkLeft;
+            this.works = new Runnable[parallelism];
+            for (int i = 0; i < parallelism; i++) {
+                works[i] = taskWork.apply(i);
+            }
+            this.numTasks = parallelism;
+            this.unfinishedTasks = new CountDownLatch(parallelism);
+            this.taskPermits = taskPermits;
+        }
+
+        @Override
+        public int getNumTasks() {
+            return numTasks;
+        }
+
+        @Override
+        public void stop() {
+            cancelled = true;
+            await();
+        }
+
+        void submitSlice(int task) {
+            try {
+                pool.execute(new Slice(task));
+            } catch (RuntimeException e) {
+                finish(e);
+            }
+        }
+
+        /** A time slice of a task, waiting in the queue of the pool until run */
+        private class Slice implements Runnable {
+            private final int task;
+
+            Slice(int task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                runSlice(task);
+            }
+
+            /** Finishes the task without running the slice, when the executor is shut down. */
+            void reject() {
+                finish(new RejectedExecutionException("Planning executor shut down"));
+            }
+        }
+
+        private void runSlice(int task) {
+            Runnable work = works[task];
+            long sliceEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIME_SLICE_MILLIS);
+            try {
+                while (!cancelled && failure.get() == null && isWorkLeft.getAsBoolean()) {
+                    if (System.nanoTime() - sliceEnd >= 0) {
+                        submitSlice(task);
+                        return;
+                    }
+                    work.run();
+                }
+                finish(null);
+            } catch (Throwable e) {
+                finish(e);
+            }
+        }
+
+        private void finish(Throwable e) {
+            if (e != null) {
+                failure.compareAndSet(null, e);
+            }
+            if (taskPermits != null) {
+                taskPermits.release();
+            }
+            unfinishedTasks.countDown();
+        }
+
+        /**
+         * Waits until all tasks have finished. If interrupted, cancels the planning but
+         * still waits for the running tasks, so that no work runs after this returns,
+         * and then restores the interrupt status.
+         */
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    unfinishedTasks.await();
+                    break;
+                } catch (InterruptedException e) {
+                    cancelled = true;
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure.get() != null) {
+                throw new RuntimeException("Planning failed", failure.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+/**
+ * What {@link MCTSPlayer} did when planning a move. The time spent in each phase
+ * of the search is summed over the planning threads, so together the phases can
+ * take longer than the planning.
+ */
+public class PlanningStats {
+
+    private final long elapsedMillis;
+    private final int numRollouts;
+    private final int treeSize;
+    private final int maxDepth;
+    private final long selectionNanos;
+    private final long simulationNanos;
+    private final long backpropagationNanos;
+    private final boolean mandatoryMove;
+
+    PlanningStats(long elapsedMillis, int numRollouts, int treeSize, int maxDepth,
+                  long selectionNanos, long simulationNanos, long backpropagationNanos, boolean mandatoryMove) {
+        this.elapsedMillis = elapsedMillis;
+        this.numRollouts = numRollouts;
+        this.treeSize = treeSize;
+        this.maxDepth = maxDepth;
+        this.selectionNanos = selectionNanos;
+        this.simulationNanos = simulationNanos;
+        this.backpropagationNanos = backpropagationNanos;
+        this.mandatoryMove = mandatoryMove;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getNumRollouts() {
+        return numRollouts;
+    }
+
+    public double getRolloutsPerSecond() {
+        return elapsedMillis > 0 ? numRollouts * 1000.0 / elapsedMillis : 0;
+    }
+
+    /** Returns the number of nodes in the game tree after planning, before pruning. */
+    public int getTreeSize() {
+        return treeSize;
+    }
+
+    /** Returns how many moves deep below the current move the deepest rollout selected a node. */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** Returns the time spent selecting and expanding nodes. */
+    public long getSelectionNanos() {
+        return selectionNanos;
+    }
+
+    /** Returns the time spent simulating games from the selected nodes. */
+    public long getSimulationNanos() {
+        return simulationNanos;
+    }
+
+    /** Returns the time spent propagating the simulation results up the tree. */
+    public long getBackpropagationNanos() {
+        return backpropagationNanos;
+    }
+
+    /**
+     * Returns whether the move was a winning or a blocking move chosen without
+     * searching, see {@link org.atorma.tictactoe.game.player.naive.MandatoryMovePlayer}.
+     */
+    public boolean isMandatoryMove() {
+        return mandatoryMove;
+    }
+
+    @Override
+    public String toString() {
+        return "PlanningStats{" + numRollouts + " rollouts in " + elapsedMillis + " ms"
+                + ", tree size " + treeSize + ", max depth " + maxDepth
+                + ", selection " + selectionNanos/1000000 + " ms, simulation " + simulationNanos/1000000
+                + " ms, backpropagation " + backpropagationNanos/1000000 + " ms"
+                + (mandatoryMove ? ", mandatory move" : "") + "}";
+    }
+}
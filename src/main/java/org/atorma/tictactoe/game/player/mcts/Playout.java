@@ -0,0 +1,404 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.atorma.tictactoe.game.state.Sequence;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Plays simulated games from a given state to the end with one of the
+ * {@link MCTSParameters.SimulationStrategy} policies, without players,
+ * game states or other objects created along the way.
+ * <p/>
+ * The board is a byte array with a border of walls, so that neighbours
+ * of any cell can be looked at without bounds checks. Empty cells and
+ * the empty cells next to occupied ones are kept in index lists that are
+ * updated with each move, and the longest sequences are updated by looking
+ * around the latest move like in {@link GameState}.
+ * <p/>
+ * One instance per thread is reused for all playouts, see {@link #forCurrentThread()}.
+ * Arrays are only allocated again when the board gets bigger.
+ * <p/>
+ * The board at the end of the latest playout is available as a {@link RAVE.EndBoard}.
+ */
+class Playout implements RAVE.EndBoard {
+    private static final ThreadLocal<Playout> INSTANCES = ThreadLocal.withInitial(Playout::new);
+
+    private static final byte EMPTY = 0;
+    private static final byte X = 1;
+    private static final byte O = 2;
+    private static final byte WALL = 3;
+
+    private static final int NO_THREAT = 0;
+    private static final int OPEN_THREAT = 1; // connectHowMany - 1 in a row with two free ends
+    private static final int WIN = 2;
+
+    private int numRows;
+    private int numCols;
+    private int stride;
+    private int connectHowMany;
+    private final int[] directionSteps = new int[4]; // in the order of Sequence.Direction
+    private final int[] neighbourSteps = new int[8];
+
+    private byte[] cells = new byte[0];
+    private int[] emptyCells = new int[0];
+    private int[] emptyPositions = new int[0]; // index in emptyCells, -1 if not empty
+    private int numEmpty;
+    private int[] frontierCells = new int[0]; // empty cells next to occupied ones
+    private int[] frontierPositions = new int[0];
+    private int numFrontier;
+
+    private byte nextPlayer;
+    private byte winner;
+    private final int[] longestLengths = new int[3]; // by player
+    private final int[] longestStarts = new int[3];
+    private final int[] longestSteps = new int[3]; // 0 for a single cell, which extends in all directions
+
+    private int[] moves = new int[0];
+    private int numMoves;
+    private final int[] candidates = new int[8];
+
+
+    /** Returns the instance of the calling thread. */
+    static Playout forCurrentThread() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * Simulates a game from startState until it ends, or time runs out, or maximum
+     * number of turns is played. The result is available from {@link #getWinner()}
+     * and {@link #getLongestSequenceLength(Piece)} until the next call.
+     */
+    void run(GameState startState, MCTSParameters.SimulationStrategy strategy, long maxTimeMillis, int maxTurns) {
+        long startTime = System.currentTimeMillis();
+        reset(startState);
+
+        int turns = 0;
+        while (!isAtEnd()
+                && (System.currentTimeMillis() - startTime) < maxTimeMillis
+                && turns < maxTurns) {
+            play(chooseMove(strategy));
+            turns++;
+        }
+    }
+
+    Piece getWinner() {
+        return toPiece(winner);
+    }
+
+    int getLongestSequenceLength(Piece player) {
+        return longestLengths[toByte(player)];
+    }
+
+    /** Returns the piece in a cell at the end of the latest playout. */
+    public Piece getPiece(int row, int col) {
+        return toPiece(cells[getIndex(row, col)]);
+    }
+
+    /** Returns the number of moves played in the latest playout. */
+    int getNumMoves() {
+        return numMoves;
+    }
+
+    /** Returns the i'th move played in the latest playout. */
+    Cell getMove(int i) {
+        return new Cell(getRow(moves[i]), getColumn(moves[i]));
+    }
+
+
+    private void reset(GameState state) {
+        numRows = state.getBoardRows();
+        numCols = state.getBoardCols();
+        stride = numCols + 2;
+        connectHowMany = state.getConnectHowMany();
+        directionSteps[Sequence.Direction.HORIZONTAL.ordinal()] = 1;
+        directionSteps[Sequence.Direction.VERTICAL.ordinal()] = stride;
+        directionSteps[Sequence.Direction.LEFT_RIGHT_DIAGONAL.ordinal()] = stride + 1;
+        directionSteps[Sequence.Direction.RIGHT_LEFT_DIAGONAL.ordinal()] = stride - 1;
+        for (int i = 0; i < 4; i++) {
+            neighbourSteps[2*i] = directionSteps[i];
+            neighbourSteps[2*i + 1] = -directionSteps[i];
+        }
+
+        int size = (numRows + 2)*stride;
+        if (cells.length < size) {
+            cells = new byte[size];
+            emptyCells = new int[size];
+            emptyPositions = new int[size];
+            frontierCells = new int[size];
+            frontierPositions = new int[size];
+            moves = new int[size];
+        }
+        Arrays.fill(cells, 0, size, WALL);
+        Arrays.fill(emptyPositions, 0, size, -1);
+        Arrays.fill(frontierPositions, 0, size, -1);
+        numEmpty = 0;
+        numFrontier = 0;
+        numMoves = 0;
+
+        for (int row = 0; row < numRows; row++) {
+            for (int col = 0; col < numCols; col++) {
+                int index = getIndex(row, col);
+                cells[index] = toByte(state.getPiece(row, col));
+                if (cells[index] == EMPTY) {
+                    add(index, emptyCells, emptyPositions, numEmpty++);
+                }
+            }
+        }
+        for (int i = 0; i < numEmpty; i++) {
+            if (hasOccupiedNeighbour(emptyCells[i])) {
+                add(emptyCells[i], frontierCells, frontierPositions, numFrontier++);
+            }
+        }
+
+        nextPlayer = toByte(state.getNextPlayer());
+        winner = toByte(state.getWinner());
+        for (Piece piece : Piece.values()) {
+            setLongestSequence(toByte(piece), state.getLongestSequence(piece));
+        }
+    }
+
+    private void setLongestSequence(byte player, Sequence sequence) {
+        longestLengths[player] = sequence.getLength();
+        if (sequence.getLength() > 0) {
+            Cell start = sequence.getStart();
+            Cell end = sequence.getEnd();
+            longestStarts[player] = getIndex(start.getRow(), start.getColumn());
+            longestSteps[player] = Integer.signum(end.getRow() - start.getRow())*stride + Integer.signum(end.getColumn() - start.getColumn());
+        }
+    }
+
+    private boolean isAtEnd() {
+        return winner != EMPTY || numEmpty == 0;
+    }
+
+    private void play(int index) {
+        byte player = nextPlayer;
+        cells[index] = player;
+        remove(index, emptyCells, emptyPositions, numEmpty--);
+        if (frontierPositions[index] >= 0) {
+            remove(index, frontierCells, frontierPositions, numFrontier--);
+        }
+        for (int step : neighbourSteps) {
+            int neighbour = index + step;
+            if (cells[neighbour] == EMPTY && frontierPositions[neighbour] < 0) {
+                add(neighbour, frontierCells, frontierPositions, numFrontier++);
+            }
+        }
+
+        for (int step : directionSteps) {
+            int first = findRunEnd(index, -step, player);
+            int length = (findRunEnd(index, step, player) - first)/step + 1;
+            if (length > longestLengths[player]) {
+                longestLengths[player] = length;
+                longestStarts[player] = first;
+                longestSteps[player] = length > 1 ? step : 0;
+            }
+        }
+        if (longestLengths[player] >= connectHowMany) {
+            winner = player;
+        }
+
+        nextPlayer = other(player);
+        moves[numMoves++] = index;
+    }
+
+    private int chooseMove(MCTSParameters.SimulationStrategy strategy) {
+        switch (strategy) {
+            case UNIFORM_RANDOM:
+                return pickRandom(emptyCells, numEmpty);
+            case RANDOM_ADJACENT:
+                return numFrontier > 0 ? pickRandom(frontierCells, numFrontier) : pickRandom(emptyCells, numEmpty);
+            case NAIVE:
+                return chooseNaiveMove();
+            default:
+                throw new IllegalArgumentException("Invalid simulation strategy " + strategy);
+        }
+    }
+
+    /**
+     * Same policy as {@link org.atorma.tictactoe.game.player.naive.NaivePlayer}:
+     * a mandatory move, else a move elongating the longest sequence, else one
+     * elongating the longest sequence that can still be elongated, else a random move.
+     * Ties may be broken differently.
+     */
+    private int chooseNaiveMove() {
+        byte me = nextPlayer;
+        byte opponent = other(me);
+
+        // Mandatory moves: win, block a win, make an open threat, block an open threat.
+        // All are looked for in one pass over the candidate cells.
+        int blockWin = -1;
+        int makeThreat = -1;
+        int blockThreat = -1;
+        for (int i = 0; i < numFrontier; i++) {
+            int index = frontierCells[i];
+            int myThreat = getThreat(index, me);
+            if (myThreat == WIN) {
+                return index;
+            }
+            if (blockWin < 0) {
+                int opponentsThreat = getThreat(index, opponent);
+                if (opponentsThreat == WIN) {
+                    blockWin = index;
+                } else if (opponentsThreat == OPEN_THREAT && blockThreat < 0) {
+                    blockThreat = index;
+                }
+                if (myThreat == OPEN_THREAT && makeThreat < 0) {
+                    makeThreat = index;
+                }
+            }
+        }
+        if (blockWin >= 0) return blockWin;
+        if (makeThreat >= 0) return makeThreat;
+        if (blockThreat >= 0) return blockThreat;
+
+        if (longestLengths[me] > 0) {
+            int numEnds = collectFreeEnds(longestStarts[me], longestLengths[me], longestSteps[me]);
+            if (numEnds > 0) {
+                return pickRandom(candidates, numEnds);
+            }
+            numEnds = collectFreeEndsOfLongestOpenSequence(me);
+            if (numEnds > 0) {
+                return pickRandom(candidates, numEnds);
+            }
+        }
+
+        return pickRandom(emptyCells, numEmpty);
+    }
+
+    /** Returns what a move of the player to an empty cell would make: a win, an open threat or neither. */
+    private int getThreat(int index, byte player) {
+        int threat = NO_THREAT;
+        for (int step : directionSteps) {
+            int first = findRunEnd(index, -step, player);
+            int length = (findRunEnd(index, step, player) - first)/step + 1;
+            if (length >= connectHowMany) {
+                return WIN;
+            } else if (threat == NO_THREAT && length >= connectHowMany - 1
+                    && collectFreeEnds(first, length, length > 1 ? step : 0) >= 2) {
+                threat = OPEN_THREAT;
+            }
+        }
+        return threat;
+    }
+
+    /**
+     * Finds the longest sequence of the player with at least one free end
+     * by scanning the board, and collects its free ends into candidates.
+     */
+    private int collectFreeEndsOfLongestOpenSequence(byte player) {
+        int bestStart = -1;
+        int bestLength = 0;
+        int bestStep = 0;
+        for (int row = 0; row < numRows; row++) {
+            for (int col = 0; col < numCols; col++) {
+                int index = getIndex(row, col);
+                if (cells[index] != player) {
+                    continue;
+                }
+                for (int step : directionSteps) {
+                    if (cells[index - step] == player) {
+                        continue; // not the first cell of the sequence
+                    }
+                    int length = (findRunEnd(index, step, player) - index)/step + 1;
+                    int sequenceStep = length > 1 ? step : 0;
+                    if (length > bestLength && collectFreeEnds(index, length, sequenceStep) > 0) {
+                        bestStart = index;
+                        bestLength = length;
+                        bestStep = sequenceStep;
+                    }
+                }
+            }
+        }
+        return bestLength > 0 ? collectFreeEnds(bestStart, bestLength, bestStep) : 0;
+    }
+
+    /**
+     * Collects the empty cells just before and after a sequence into candidates.
+     * A sequence of one cell extends in all directions.
+     */
+    private int collectFreeEnds(int start, int length, int step) {
+        int numEnds = 0;
+        if (step == 0) {
+            for (int neighbourStep : neighbourSteps) {
+                if (cells[start + neighbourStep] == EMPTY) {
+                    candidates[numEnds++] = start + neighbourStep;
+                }
+            }
+        } else {
+            if (cells[start - step] == EMPTY) {
+                candidates[numEnds++] = start - step;
+            }
+            int after = start + length*step;
+            if (cells[after] == EMPTY) {
+                candidates[numEnds++] = after;
+            }
+        }
+        return numEnds;
+    }
+
+    /** Returns the last index of the player's cells going from index by step, not looking at index itself. */
+    private int findRunEnd(int index, int step, byte player) {
+        int end = index;
+        while (cells[end + step] == player) {
+            end += step;
+        }
+        return end;
+    }
+
+    private boolean hasOccupiedNeighbour(int index) {
+        for (int step : neighbourSteps) {
+            byte neighbour = cells[index + step];
+            if (neighbour == X || neighbour == O) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void add(int index, int[] list, int[] positions, int size) {
+        list[size] = index;
+        positions[index] = size;
+    }
+
+    /** Removes by moving the last element in place of the removed one */
+    private static void remove(int index, int[] list, int[] positions, int size) {
+        int position = positions[index];
+        int last = list[size - 1];
+        list[position] = last;
+        positions[last] = position;
+        positions[index] = -1;
+    }
+
+    private static int pickRandom(int[] list, int size) {
+        return list[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    private int getIndex(int row, int col) {
+        return (row + 1)*stride + col + 1;
+    }
+
+    private int getRow(int index) {
+        return index/stride - 1;
+    }
+
+    private int getColumn(int index) {
+        return index%stride - 1;
+    }
+
+    private static byte toByte(Piece piece) {
+        return piece == null ? EMPTY : piece == Piece.X ? X : O;
+    }
+
+    private static Piece toPiece(byte player) {
+        return player == X ? Piece.X : player == O ? Piece.O : null;
+    }
+
+    private static byte other(byte player) {
+        return player == X ? O : X;
+    }
+}
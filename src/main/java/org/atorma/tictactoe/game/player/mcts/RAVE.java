@@ -0,0 +1,41 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Piece;
+
+/**
+ * Rapid Action Value Estimation. Besides its own simulation results, a move has
+ * All-Moves-As-First (AMAF) results: those of all simulations through the previous
+ * move in which the same player made the move later on, not right away. AMAF results
+ * pile up much faster but are biased, so they weigh less as the move's own plays increase.
+ *
+ * References
+ * * Gelly and Silver, Monte-Carlo tree search and rapid action value estimation in computer Go, Artificial Intelligence 175, 2011
+ */
+public class RAVE {
+
+    /**
+     * Blends the expected reward r of a move played n times with the average reward of its
+     * AMAF results. The AMAF weight is sqrt(k/(3n + k)), the hand-selected schedule of
+     * Gelly and Silver, so that the two weigh equally at n = k.
+     *
+     * @param equivalence
+     *  k, number of plays at which the move's own results and its AMAF results weigh equally
+     * @return
+     *  r if there are no AMAF results
+     */
+    public static double getBlendedReward(double r, double n, double amafRewardSum, double amafNumPlays, double equivalence) {
+        if (amafNumPlays == 0) {
+            return r;
+        }
+        double beta = Math.sqrt(equivalence/(3*n + equivalence));
+        return (1 - beta)*r + beta*amafRewardSum/amafNumPlays;
+    }
+
+    /**
+     * Board at the end of a simulated game. A move was played later in the game by
+     * a player if the player's piece is in its cell at the end.
+     */
+    interface EndBoard {
+        Piece getPiece(int row, int col);
+    }
+}
@@ -0,0 +1,56 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+
+/**
+ * Rewards and exploration bonuses of another scheme, with moves scored using
+ * {@link RAVE} when searching.
+ */
+public class RaveScheme implements RewardScheme {
+
+    private final RewardScheme scheme;
+    private final double equivalence;
+
+    public RaveScheme(RewardScheme scheme) {
+        this(scheme, 300);
+    }
+
+    /**
+     * @param equivalence
+     *  number of plays of a move at which its own results and its AMAF results weigh equally
+     */
+    public RaveScheme(RewardScheme scheme, double equivalence) {
+        if (scheme == null) throw new IllegalArgumentException("Reward scheme missing");
+        if (equivalence <= 0) throw new IllegalArgumentException("Invalid equivalence " + equivalence + ". Must be > 0.");
+        this.scheme = scheme;
+        this.equivalence = equivalence;
+    }
+
+    @Override
+    public double getReward(Piece player, GameState gameState) {
+        return scheme.getReward(player, gameState);
+    }
+
+    public double getReward(Piece player, Piece winner, int playersLongestSequence, int opponentsLongestSequence) {
+        return scheme.getReward(player, winner, playersLongestSequence, opponentsLongestSequence);
+    }
+
+    public double getLossReward() {
+        return scheme.getLossReward();
+    }
+
+    @Override
+    public double getExplorationBonus(Piece player, MoveNode candidate) {
+        return scheme.getExplorationBonus(player, candidate);
+    }
+
+    public double getExplorationBonus(Piece player, double parentNumPlays, double numPlays) {
+        return scheme.getExplorationBonus(player, parentNumPlays, numPlays);
+    }
+
+    @Override
+    public double getRaveEquivalence() {
+        return equivalence;
+    }
+}
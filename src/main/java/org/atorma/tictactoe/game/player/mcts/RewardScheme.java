@@ -9,7 +9,24 @@ public interface RewardScheme {
     /**
      * Returns the reward to a player if/when the game reaches gameState.
      */
-    double getReward(Piece player, GameState gameState);
+    default double getReward(Piece player, GameState gameState) {
+        return getReward(player, gameState.getWinner(),
+                gameState.getLongestSequence(player).getLength(),
+                gameState.getLongestSequence(player.other()).getLength());
+    }
+
+    /**
+     * Returns the reward to a player if/when the game reaches a state with the given
+     * winner (null if none) and longest sequences. Simulated games end in such states
+     * without a {@link GameState} object.
+     */
+    double getReward(Piece player, Piece winner, int playersLongestSequence, int opponentsLongestSequence);
+
+    /**
+     * Returns the reward to a player who loses the game. Simulations still
+     * in progress are counted as losses when choosing moves to explore.
+     */
+    double getLossReward();
 
     /**
      * Returns an exploration  bonus if the player would choose given move candidate.
@@ -17,6 +34,34 @@ public interface RewardScheme {
      * The purpose of this is to balance game tree exploitation versus exploration.
      * For example, this could be an Upper Confidence Bound applied to Trees (UCT).
      */
-    double getExplorationBonus(Piece player, MoveNode candidate);
+    default double getExplorationBonus(Piece player, MoveNode candidate) {
+        if (candidate.getParent() == null) { // root node
+            return Double.POSITIVE_INFINITY;
+        }
+        MoveNode parent = candidate.getParent();
+        return getExplorationBonus(player,
+                parent.getNumPlays() + parent.getNumVirtualLosses(),
+                candidate.getNumPlays() + candidate.getNumVirtualLosses());
+    }
+
+    /**
+     * Returns an exploration bonus if the player would choose a move candidate
+     * that has been played numPlays times out of parentNumPlays plays of the
+     * previous move. Plays include simulations in progress.
+     *
+     * @see #getExplorationBonus(Piece, MoveNode)
+     */
+    double getExplorationBonus(Piece player, double parentNumPlays, double numPlays);
+
+    /**
+     * Returns the number of plays of a move at which its own expected reward and its
+     * All-Moves-As-First reward weigh equally when choosing moves to explore, see {@link RAVE}.
+     * 0 (the default) disables RAVE, and AMAF results are not recorded.
+     *
+     * @see RaveScheme
+     */
+    default double getRaveEquivalence() {
+        return 0;
+    }
 
 }
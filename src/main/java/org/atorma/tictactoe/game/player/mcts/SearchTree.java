@@ -0,0 +1,128 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.Frontier;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+
+import java.util.List;
+
+/**
+ * The game tree operations {@link MCTSPlayer} searches with, so that the
+ * tree can be stored either as linked {@link MoveNode} objects ({@link MoveNodeTree})
+ * or packed into primitive arrays ({@link ArenaTree}).
+ * <p/>
+ * Nodes are referred to by handles of type N that only the tree that
+ * returned them understands. Handles compare with equals(). The pruning
+ * operations may invalidate all handles except the returned one.
+ * <p/>
+ * Expanding nodes and recording simulation results must be thread safe,
+ * pruning need not be.
+ *
+ * @param <N>
+ *  type of node handles
+ */
+interface SearchTree<N> {
+
+    N getRoot();
+
+    /** Returns the previous move, or null if the node is the root. */
+    N getParent(N node);
+
+    /** @see MoveNode#getMove() */
+    Cell getMove(N node);
+
+    /** @see MoveNode#isEndState() */
+    boolean isEndState(N node);
+
+    /** @see MoveNode#getGameState() */
+    GameState getGameState(N node);
+
+    boolean hasChildren(N node);
+
+    /** @see MoveNode#getNumChildren() */
+    int getNumChildren(N node);
+
+    /** @see MoveNode#getNumPlays() */
+    int getNumPlays(N node);
+
+    /** Returns the number of nodes in the tree. */
+    int size();
+
+    /** Returns whether there is no more room to expand nodes while searching. */
+    boolean isFull();
+
+    /**
+     * Returns the child reached by the given move, expanding it if necessary.
+     *
+     * @return
+     *  the child, or null if the move is not allowed or there is no room for it in the tree
+     */
+    N findMoveTo(N node, Cell move);
+
+    /**
+     * @return
+     *  a new child, or null if no more moves to expand or no room in the tree
+     * @see MoveNode#expandRandom()
+     */
+    N expandRandom(N node);
+
+    /**
+     * @return
+     *  a new child, or null if no more moves to expand in the area or no room in the tree
+     * @see MoveNode#expandRandomIn(Frontier)
+     */
+    N expandRandomIn(N node, Frontier area);
+
+    /**
+     * @return
+     *  a new child, or null if no more moves to expand in the area or no room in the tree
+     * @see MoveNode#expandBestIn(Frontier)
+     */
+    N expandBestIn(N node, Frontier area);
+
+    /** @see MoveNode#getBestMoves() */
+    List<N> getBestMoves(N node);
+
+    /** @see MoveNode#getBestExploratoryMoves() */
+    List<N> getBestExploratoryMoves(N node);
+
+    /** @see MoveNode#addVirtualLoss() */
+    void addVirtualLoss(N node);
+
+    /** @see MoveNode#removeVirtualLoss() */
+    void removeVirtualLoss(N node);
+
+    /** @see MoveNode#propagateSimulatedResult(GameState) */
+    void propagateSimulatedResult(N node, GameState endState);
+
+    /** @see MoveNode#propagateSimulatedResult(Piece, int, int) */
+    void propagateSimulatedResult(N node, Piece winner, int xLongestSequence, int oLongestSequence);
+
+    /** @see MoveNode#propagateSimulatedResult(Piece, int, int, RAVE.EndBoard) */
+    void propagateSimulatedResult(N node, Piece winner, int xLongestSequence, int oLongestSequence, RAVE.EndBoard endBoard);
+
+    /** @see MoveNode#propagateSimulatedResults(SimulationResults) */
+    void propagateSimulatedResults(N node, SimulationResults results);
+
+    /**
+     * @return the node's handle after pruning
+     * @see MoveNode#pruneOtherBranchesOnPathToRoot()
+     */
+    N pruneOtherBranchesOnPathToRoot(N node);
+
+    /**
+     * @return the node's handle after pruning
+     * @see MoveNode#makeRoot()
+     */
+    N makeRoot(N node);
+
+    /**
+     * @return the node's handle after pruning
+     * @see MoveNode#pruneDescendantLevelsGreaterThan(int)
+     */
+    N pruneDescendantLevelsGreaterThan(N node, int targetLevel);
+
+    /** @see MoveNode#printStatsFor(Piece) */
+    String printStatsFor(N node, Piece player);
+}
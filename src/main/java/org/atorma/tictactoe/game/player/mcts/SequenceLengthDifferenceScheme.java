@@ -1,7 +1,6 @@
 package org.atorma.tictactoe.game.player.mcts;
 
 
-import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
 
 public class SequenceLengthDifferenceScheme implements RewardScheme {
@@ -18,19 +17,22 @@ public class SequenceLengthDifferenceScheme implements RewardScheme {
         this.uctConstant = uctConstant;
     }
 
-    public double getReward(Piece player, GameState gameState) {
-        if (gameState.getWinner() == player) {
+    public double getReward(Piece player, Piece winner, int playersLongestSequence, int opponentsLongestSequence) {
+        if (winner == player) {
             return 1000;
-        } else if (gameState.getWinner() == player.other()) {
+        } else if (winner == player.other()) {
             return -1000;
         } else {
-            double lengthDiff = gameState.getLongestSequence(player).getLength() - gameState.getLongestSequence(player.other()).getLength();
+            double lengthDiff = playersLongestSequence - opponentsLongestSequence;
             return lengthDiff;
         }
     }
 
+    public double getLossReward() {
+        return -1000;
+    }
 
-    public double getExplorationBonus(Piece player, MoveNode candidate) {
-        return UCT.getUCTBonus(candidate, uctConstant);
+    public double getExplorationBonus(Piece player, double parentNumPlays, double numPlays) {
+        return UCT.getUCTBonus(parentNumPlays, numPlays, uctConstant);
     }
 }
@@ -0,0 +1,138 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.game.state.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Results of games simulated from the same game tree node, summed up so that
+ * they can be propagated up the tree in one pass, see
+ * {@link MCTSParameters#simulationsPerRollout}.
+ * <p/>
+ * When the reward scheme uses {@link RAVE}, the All-Moves-As-First results are
+ * summed by cell and by the player occupying the cell at the end of each game,
+ * which is all that a node needs to know to record them for its children.
+ * <p/>
+ * One instance per thread is reused, see {@link #forCurrentThread()}. Arrays are
+ * only allocated again when the board gets bigger.
+ */
+class SimulationResults {
+    private static final ThreadLocal<SimulationResults> INSTANCES = ThreadLocal.withInitial(SimulationResults::new);
+
+    private RewardScheme rewardScheme;
+    private boolean isAmafRecorded;
+    private int numRows;
+    private int numCols;
+
+    private int numPlays;
+    private int xWins;
+    private int oWins;
+    private double xRewardSum;
+    private double oRewardSum;
+
+    // Indexed by cell, X's cells first and then O's
+    private int[] amafPlays = new int[0];
+    private double[] xAmafRewardSums = new double[0];
+    private double[] oAmafRewardSums = new double[0];
+
+
+    /** Returns the instance of the calling thread. */
+    static SimulationResults forCurrentThread() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * Clears the results to sum up games played on a board of the given size,
+     * rewarded by the given scheme.
+     */
+    void reset(RewardScheme rewardScheme, int numRows, int numCols) {
+        this.rewardScheme = rewardScheme;
+        this.isAmafRecorded = rewardScheme.getRaveEquivalence() > 0;
+        this.numRows = numRows;
+        this.numCols = numCols;
+        numPlays = 0;
+        xWins = 0;
+        oWins = 0;
+        xRewardSum = 0;
+        oRewardSum = 0;
+
+        if (isAmafRecorded) {
+            int size = 2*numRows*numCols;
+            if (amafPlays.length < size) {
+                amafPlays = new int[size];
+                xAmafRewardSums = new double[size];
+                oAmafRewardSums = new double[size];
+            } else {
+                Arrays.fill(amafPlays, 0, size, 0);
+                Arrays.fill(xAmafRewardSums, 0, size, 0);
+                Arrays.fill(oAmafRewardSums, 0, size, 0);
+            }
+        }
+    }
+
+    /**
+     * Adds the result of a game that ended with the given winner (null if none)
+     * and longest sequences.
+     *
+     * @param endBoard
+     *  the board at the end of the game, used if the reward scheme uses {@link RAVE}
+     */
+    void add(Piece winner, int xLongestSequence, int oLongestSequence, RAVE.EndBoard endBoard) {
+        double xReward = rewardScheme.getReward(Piece.X, winner, xLongestSequence, oLongestSequence);
+        double oReward = rewardScheme.getReward(Piece.O, winner, oLongestSequence, xLongestSequence);
+        if (winner == Piece.X) {
+            xWins++;
+        } else if (winner == Piece.O) {
+            oWins++;
+        }
+        xRewardSum += xReward;
+        oRewardSum += oReward;
+        numPlays++;
+
+        if (isAmafRecorded) {
+            for (int row = 0; row < numRows; row++) {
+                for (int col = 0; col < numCols; col++) {
+                    Piece piece = endBoard.getPiece(row, col);
+                    if (piece != null) {
+                        int i = getIndex(piece, row, col);
+                        amafPlays[i]++;
+                        xAmafRewardSums[i] += xReward;
+                        oAmafRewardSums[i] += oReward;
+                    }
+                }
+            }
+        }
+    }
+
+    int getNumPlays() {
+        return numPlays;
+    }
+
+    int getWins(Piece piece) {
+        return piece == Piece.X ? xWins : oWins;
+    }
+
+    double getRewardSum(Piece piece) {
+        return piece == Piece.X ? xRewardSum : oRewardSum;
+    }
+
+    /** Returns true if the results include AMAF results, see {@link #getNumAmafPlays(Piece, int, int)}. */
+    boolean isAmafRecorded() {
+        return isAmafRecorded;
+    }
+
+    /** Returns the number of games that ended with player's piece in the cell. */
+    int getNumAmafPlays(Piece player, int row, int col) {
+        return amafPlays[getIndex(player, row, col)];
+    }
+
+    /** Returns the sum of piece's rewards in games that ended with player's piece in the cell. */
+    double getAmafRewardSum(Piece piece, Piece player, int row, int col) {
+        int i = getIndex(player, row, col);
+        return piece == Piece.X ? xAmafRewardSums[i] : oAmafRewardSums[i];
+    }
+
+    private int getIndex(Piece player, int row, int col) {
+        return (player == Piece.X ? 0 : numRows*numCols) + row*numCols + col;
+    }
+}
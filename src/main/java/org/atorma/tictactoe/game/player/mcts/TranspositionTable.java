@@ -0,0 +1,99 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps game positions, identified by their {@link org.atorma.tictactoe.game.state.GameState#getHash() hash},
+ * to shared simulation statistics. With a table, the game tree effectively becomes
+ * a directed acyclic graph: nodes reached by different move orders pool their
+ * simulation results instead of each collecting their own.
+ * <p/>
+ * The table has a fixed number of slots in buckets of two. The first slot of a
+ * bucket keeps the position with more simulations, the second always takes the
+ * most recent new position. A position pushed out of the table keeps its statistics
+ * in the nodes that already use them, but new nodes of that position get fresh ones.
+ * <p/>
+ * Thread safe and lock free. Threads racing to add the same position may
+ * end up with separate statistics for it, which only loses some sharing.
+ */
+public class TranspositionTable {
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int bucketMask;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maxPositions
+     *  maximum number of positions to store, rounded up to a power of two
+     */
+    public TranspositionTable(int maxPositions) {
+        if (maxPositions < 2) throw new IllegalArgumentException("Table must hold at least 2 positions, was " + maxPositions);
+        int capacity = Integer.highestOneBit(maxPositions - 1) << 1;
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.bucketMask = capacity/2 - 1;
+    }
+
+    /** Returns the number of positions currently stored. */
+    public int size() {
+        return size.get();
+    }
+
+    public int getCapacity() {
+        return entries.length();
+    }
+
+    /**
+     * Returns the statistics of the position with the given hash, creating
+     * them and storing them in the table if the position is not found.
+     */
+    MoveStatistics getStatistics(long hash) {
+        int first = 2*(scramble(hash) & bucketMask);
+        int second = first + 1;
+
+        while (true) {
+            Entry firstEntry = entries.get(first);
+            if (firstEntry != null && firstEntry.hash == hash) {
+                return firstEntry.statistics;
+            }
+            Entry secondEntry = entries.get(second);
+            if (secondEntry != null && secondEntry.hash == hash) {
+                return secondEntry.statistics;
+            }
+
+            Entry entry = new Entry(hash);
+            if (firstEntry == null) {
+                if (entries.compareAndSet(first, null, entry)) {
+                    size.incrementAndGet();
+                    return entry.statistics;
+                }
+            } else if (secondEntry == null) {
+                if (entries.compareAndSet(second, null, entry)) {
+                    size.incrementAndGet();
+                    return entry.statistics;
+                }
+            } else {
+                if (secondEntry.statistics.getNumPlays() > firstEntry.statistics.getNumPlays()) {
+                    entries.compareAndSet(first, firstEntry, secondEntry); // failing only loses the promotion
+                }
+                if (entries.compareAndSet(second, secondEntry, entry)) {
+                    return entry.statistics;
+                }
+            }
+            // Another thread changed the bucket, look again
+        }
+    }
+
+    private static int scramble(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static class Entry {
+        final long hash;
+        final MoveStatistics statistics = new MoveStatistics();
+
+        Entry(long hash) {
+            this.hash = hash;
+        }
+    }
+}
@@ -14,8 +14,19 @@ public class UCT {
             return Double.POSITIVE_INFINITY;
         }
 
-        double t = moveNode.getParent().getNumPlays();
-        double n = moveNode.getNumPlays();
+        // Simulations in progress count as plays so that parallel searches spread out
+        double n = moveNode.getNumPlays() + moveNode.getNumVirtualLosses();
+        double t = moveNode.getParent().getNumPlays() + moveNode.getParent().getNumVirtualLosses();
+        return getUCTBonus(t, n, uctConstant);
+    }
+
+    /**
+     * Computes the exploration bonus according to Upper Confidence Bounds Applied to Trees
+     * for a move played n times out of t plays of the previous move.
+     */
+    public static double getUCTBonus(double t, double n, double uctConstant) {
+        // With a transposition table a child may have been played more often via other parents
+        t = Math.max(t, 1);
 
         double score;
         if (n == 0) {
@@ -1,6 +1,5 @@
 package org.atorma.tictactoe.game.player.mcts;
 
-import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
 
 public class WinLossDrawScheme implements RewardScheme {
@@ -15,17 +14,21 @@ public class WinLossDrawScheme implements RewardScheme {
         this.uctConstant = uctConstant;
     }
 
-    public double getReward(Piece player, GameState gameState) {
-        if (player == gameState.getWinner()) {
+    public double getReward(Piece player, Piece winner, int playersLongestSequence, int opponentsLongestSequence) {
+        if (player == winner) {
             return 1;
-        } else if (player.other() == gameState.getWinner()) {
+        } else if (player.other() == winner) {
             return -1;
         } else {
             return 0;
         }
     }
 
-    public double getExplorationBonus(Piece player, MoveNode candidate) {
-        return UCT.getUCTBonus(candidate, uctConstant);
+    public double getLossReward() {
+        return -1;
+    }
+
+    public double getExplorationBonus(Piece player, double parentNumPlays, double numPlays) {
+        return UCT.getUCTBonus(parentNumPlays, numPlays, uctConstant);
     }
 }
@@ -3,54 +3,37 @@ package org.atorma.tictactoe.game.player.naive;
 import org.atorma.tictactoe.game.player.random.AdjacentCellPlayer;
 import org.atorma.tictactoe.game.state.Cell;
 import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
 import org.atorma.tictactoe.game.state.Sequence;
+import org.atorma.tictactoe.game.state.Threats;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public abstract class MandatoryMovePlayer extends AdjacentCellPlayer {
 
 
+    /**
+     * Looks up the moves from the threats that the current state keeps up to date,
+     * so no moves need to be tried on the board.
+     */
     protected Optional<Cell> getMandatoryMove() {
-        GameState fakeState = GameState.builder()
-                .setTemplate(currentState)
-                .setNextPlayer(getPiece().other())
-                .build();
-
-        // Can I win with one move?
-        for (Cell move : adjacentToOccupied) {
-            if (currentState.next(move).getWinner() == getPiece()) {
-                return Optional.of(move);
-            }
-        }
-
-        // Can my opponent win with one move? If yes, block the move.
-        for (Cell move : adjacentToOccupied) {
-            if (fakeState.next(move).getWinner() == getPiece().other()) {
-                return Optional.of(move);
-            }
-        }
-
-        // Can I make a sequence that will yield a victory in my next turn?
-        for (Cell move : adjacentToOccupied) {
-            GameState nextState = currentState.next(move);
-            if (nextState.getUpdatedSequences().stream()
-                    .anyMatch(sequence -> sequence.getLength() >= currentState.getConnectHowMany() - 1 && getFreeSequenceEnds(nextState, sequence).size() >= 2)) {
-                return Optional.of(move);
-            }
-        }
-
-        // Can my opponent make a sequence that would will a victory for her in her next turn? If yes, block the move.
-        for (Cell move : adjacentToOccupied) {
-            GameState fakeState2 = fakeState.next(move);
-            if (fakeState2.getUpdatedSequences().stream()
-                    .anyMatch(sequence -> sequence.getLength() >= currentState.getConnectHowMany() - 1 && getFreeSequenceEnds(fakeState2, sequence).size() >= 2)) {
-                return Optional.of(move);
-            }
-        }
-
-        return Optional.empty();
+        Threats threats = currentState.getThreats();
+        Piece me = getPiece();
+        Piece opponent = me.other();
+
+        return Stream.<Supplier<List<Cell>>>of(
+                () -> threats.getWinningMoves(me), // Can I win with one move?
+                () -> threats.getWinningMoves(opponent), // Can my opponent win with one move? If yes, block the move.
+                () -> threats.getOpenThreatMoves(me), // Can I make a sequence that will yield a victory in my next turn?
+                () -> threats.getOpenThreatMoves(opponent)) // Can my opponent make such a sequence? If yes, block the move.
+                .map(Supplier::get)
+                .filter(moves -> !moves.isEmpty())
+                .map(moves -> moves.get(0))
+                .findFirst();
     }
 
     protected List<Cell> getFreeSequenceEnds(GameState state, Sequence sequence) {
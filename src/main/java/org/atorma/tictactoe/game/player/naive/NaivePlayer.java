@@ -47,13 +47,9 @@ public class NaivePlayer extends MandatoryMovePlayer implements Player {
     }
 
     private Optional<Cell> getMoveElongatingNextLongestSequence() {
-        List<Sequence> mySequences = currentState.getAllSequences().get(mySide);
-        return mySequences.stream()
-                .sorted((o1, o2) -> o2.getLength() - o1.getLength())
-                .map(sequence -> getFreeSequenceEnds(currentState, sequence))
-                .filter(sequenceEnds -> !sequenceEnds.isEmpty())
-                .findFirst()
-                .map(Utils::pickRandom);
+        Sequence sequence = currentState.getSequenceIndex().getLongestSequenceWithFreeEnd(mySide);
+        return Optional.ofNullable(sequence)
+                .map(longest -> Utils.pickRandom(getFreeSequenceEnds(currentState, longest)));
     }
 
     private Cell getRandomAllowedMove() {
@@ -12,11 +12,9 @@ public class RandomAdjacentPlayer extends AdjacentCellPlayer implements Player {
 
     @Override
     protected Cell planMove() {
-        List<Cell> candidates;
-        if (adjacentToOccupied.isEmpty()) {
+        List<Cell> candidates = getAdjacentToOccupied();
+        if (candidates.isEmpty()) {
             candidates = currentState.getAllowedMoves();
-        } else {
-            candidates = new ArrayList<>(adjacentToOccupied);
         }
 
         Cell myMove = Utils.pickRandom(candidates);
@@ -0,0 +1,290 @@
+package org.atorma.tictactoe.game.state;
+
+/**
+ * Stores the occupied cells of each player as a bitset packed
+ * into a long array. Each row is padded with one always empty
+ * guard column so that bitwise shifts along rows and diagonals
+ * cannot wrap around to the next row.
+ * <p/>
+ * Copying is two array copies of a few words (18x18 board fits
+ * into 6 longs per player), which is much cheaper than copying
+ * a Piece array with one reference per cell. Getting and setting
+ * single cells is about as fast as in {@link DenseArrayBoard}.
+ * As long as sequences are searched cell by cell the practical
+ * difference is negligible: very roughly 18000 rollouts/5 sec
+ * for both (uniform random MCTS, 18x18 board).
+ */
+public class BitBoard implements Board {
+    private static final Sequence.Direction[] DIRECTIONS = Sequence.Direction.values();
+
+    private final int numRows;
+    private final int numCols;
+    private final int rowStride;
+    private final long[] x;
+    private final long[] o;
+    private int numPieces;
+
+    public BitBoard(Piece[][] board) {
+        this(board.length, board[0].length);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                if (board[i][j] != null) {
+                    setBit(getBits(board[i][j]), getIndex(i, j));
+                    numPieces = numPieces + 1;
+                }
+            }
+        }
+    }
+
+    public BitBoard(int numRows, int numCols) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.rowStride = numCols + 1;
+        int numWords = (numRows*rowStride + 63) >>> 6;
+        this.x = new long[numWords];
+        this.o = new long[numWords];
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    public int getNumPieces() {
+        return numPieces;
+    }
+
+    public Piece get(Cell cell) {
+        int index = getIndex(cell.row, cell.column);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        if ((x[word] & mask) != 0) {
+            return Piece.X;
+        } else if ((o[word] & mask) != 0) {
+            return Piece.O;
+        } else {
+            return null;
+        }
+    }
+
+    public void set(Cell cell, Piece piece) {
+        Piece previous = get(cell);
+        int index = getIndex(cell.row, cell.column);
+        if (previous != null) {
+            clearBit(getBits(previous), index);
+            numPieces = numPieces - 1;
+        }
+        if (piece != null) {
+            setBit(getBits(piece), index);
+            numPieces = numPieces + 1;
+        }
+    }
+
+    public Board copy() {
+        BitBoard copy = new BitBoard(numRows, numCols);
+        System.arraycopy(x, 0, copy.x, 0, x.length);
+        System.arraycopy(o, 0, copy.o, 0, o.length);
+        copy.numPieces = this.numPieces;
+        return copy;
+    }
+
+
+    /** Number of bits per row, including the guard column. */
+    int getRowStride() {
+        return rowStride;
+    }
+
+    int getIndex(int row, int col) {
+        return row*rowStride + col;
+    }
+
+    Cell getCell(int index) {
+        return new Cell(index / rowStride, index % rowStride);
+    }
+
+    /**
+     * Returns how much a bit index changes when moving to the next
+     * cell in the given direction. Next means the same as in
+     * sequences: right, down, down-right and down-left respectively.
+     */
+    int getStep(Sequence.Direction direction) {
+        switch (direction) {
+            case HORIZONTAL:
+                return 1;
+            case VERTICAL:
+                return rowStride;
+            case LEFT_RIGHT_DIAGONAL:
+                return rowStride + 1;
+            case RIGHT_LEFT_DIAGONAL:
+                return rowStride - 1;
+            default:
+                throw new IllegalArgumentException("Invalid direction");
+        }
+    }
+
+    /** Returns the live bitset of the given player. Do not modify. */
+    long[] getBits(Piece piece) {
+        return piece == Piece.X ? x : o;
+    }
+
+    /**
+     * Finds the first index of the run of the piece's cells that
+     * contains the given index, stepping backwards by step.
+     */
+    int findRunStart(Piece piece, int index, int step) {
+        long[] bits = getBits(piece);
+        int start = index;
+        for (int i = index - step; i >= 0 && isSet(bits, i); i -= step) {
+            start = i;
+        }
+        return start;
+    }
+
+    /**
+     * Finds the last index of the run of the piece's cells that
+     * contains the given index, stepping forwards by step.
+     */
+    int findRunEnd(Piece piece, int index, int step) {
+        long[] bits = getBits(piece);
+        int numBits = numRows*rowStride;
+        int end = index;
+        for (int i = index + step; i < numBits && isSet(bits, i); i += step) {
+            end = i;
+        }
+        return end;
+    }
+
+    /**
+     * Finds the piece's longest sequence using shift-and-AND on the whole bitset.
+     * After k rounds of <code>runs &= runs >> step</code> the remaining bits
+     * are the starting cells of runs longer than k, so the number of rounds
+     * until nothing remains is the longest run length in that direction.
+     * <p/>
+     * Of equally long sequences, returns the one that a row-by-row,
+     * column-by-column, diagonal-by-diagonal scan of the board would
+     * find first, so that results are identical to looking through
+     * the board cell by cell.
+     */
+    Sequence findLongestSequence(Piece piece) {
+        long[] bits = getBits(piece);
+        long[] runs = new long[bits.length];
+        long[] shifted = new long[bits.length];
+        long[] longestRuns = new long[bits.length];
+
+        int longestLength = 0;
+        int longestStart = -1;
+        Sequence.Direction longestDirection = null;
+        for (Sequence.Direction direction : DIRECTIONS) {
+            int step = getStep(direction);
+            System.arraycopy(bits, 0, runs, 0, bits.length);
+            int length = 0;
+            while (!isEmpty(runs)) {
+                length++;
+                System.arraycopy(runs, 0, longestRuns, 0, runs.length);
+                shiftRight(runs, step, shifted);
+                and(runs, shifted);
+            }
+            if (length > longestLength) {
+                System.arraycopy(longestRuns, 0, runs, 0, runs.length);
+                longestLength = length;
+                longestStart = findFirstInScanOrder(runs, direction);
+                longestDirection = direction;
+            }
+        }
+
+        if (longestLength == 0) {
+            return new Sequence(null, null);
+        }
+        int longestEnd = longestStart + (longestLength - 1)*getStep(longestDirection);
+        return new Sequence(getCell(longestStart), getCell(longestEnd));
+    }
+
+    private int findFirstInScanOrder(long[] starts, Sequence.Direction direction) {
+        int first = -1;
+        long firstKey = Long.MAX_VALUE;
+        for (int word = 0; word < starts.length; word++) {
+            long remaining = starts[word];
+            while (remaining != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                long key = getScanOrderKey(index / rowStride, index % rowStride, direction);
+                if (key < firstKey) {
+                    firstKey = key;
+                    first = index;
+                }
+            }
+        }
+        return first;
+    }
+
+    /** Order in which lines are scanned cell by cell, line by line, in each direction. */
+    private long getScanOrderKey(int row, int col, Sequence.Direction direction) {
+        long line;
+        long position;
+        switch (direction) {
+            case HORIZONTAL:
+                line = row;
+                position = col;
+                break;
+            case VERTICAL:
+                line = col;
+                position = row;
+                break;
+            case LEFT_RIGHT_DIAGONAL: // Diagonals starting from the top row left to right, then from the left column
+                line = col >= row ? col - row : numCols + row - col;
+                position = row;
+                break;
+            case RIGHT_LEFT_DIAGONAL: // Diagonals starting from the top row right to left, then from the right column
+                line = row + col < numCols ? numCols - 1 - (row + col) : row + col;
+                position = row;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid direction");
+        }
+        return (line << 32) | position;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Moves bit i + shift of source to bit i of target. */
+    private static void shiftRight(long[] source, int shift, long[] target) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int i = 0; i < target.length; i++) {
+            int j = i + wordShift;
+            long word = j < source.length ? source[j] >>> bitShift : 0;
+            if (bitShift != 0 && j + 1 < source.length) {
+                word |= source[j + 1] << (64 - bitShift);
+            }
+            target[i] = word;
+        }
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= other[i];
+        }
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
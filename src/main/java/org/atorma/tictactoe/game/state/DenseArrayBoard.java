@@ -4,7 +4,10 @@ package org.atorma.tictactoe.game.state;
  * Stores the game board as one array. This appears
  * to make its elements faster to access than with
  * a 2D array. The practical difference is very
- * roughly 30000 vs 28000 rollouts/5 sec.
+ * roughly 18000 vs 17000 uniform random MCTS
+ * rollouts/5 sec on an 18x18 board. {@link BitBoard}
+ * gets about the same 18000: copying is cheaper, but
+ * copying is not where rollouts spend their time.
  */
 public class DenseArrayBoard implements Board {
     private final Piece[] board;
@@ -0,0 +1,153 @@
+package org.atorma.tictactoe.game.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The empty cells within a given radius of any piece on the board,
+ * for example the cells adjacent to occupied ones when the radius is 1.
+ * The distance is counted in king moves, so the cells within radius r
+ * of a piece form a (2r + 1) x (2r + 1) square around it.
+ * <p/>
+ * A frontier is a bitset kept up to date by its {@link GameState} with
+ * each move in O(r^2) bit operations. Checking whether a cell is in the
+ * frontier is a single bit lookup.
+ *
+ * @see GameState#getFrontier(int)
+ */
+public class Frontier {
+
+    private final int numRows;
+    private final int numCols;
+    private final int radius;
+    private final int squareRadius; // radius clipped to board size
+    private final long[] occupied;
+    private final long[] cells;
+    private int size;
+
+    Frontier(Board board, int radius) {
+        if (radius < 1) throw new IllegalArgumentException("Invalid frontier radius " + radius + ". Must be >= 1.");
+
+        this.numRows = board.getNumRows();
+        this.numCols = board.getNumCols();
+        this.radius = radius;
+        this.squareRadius = Math.min(radius, Math.max(numRows, numCols));
+        int numWords = (numRows*numCols + 63) >>> 6;
+        this.occupied = new long[numWords];
+        this.cells = new long[numWords];
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                if (board.get(new Cell(i, j)) != null) {
+                    addPiece(i, j);
+                }
+            }
+        }
+    }
+
+    /** Updates the frontier when a piece is placed in the given cell. */
+    void addPiece(int row, int col) {
+        int index = row*numCols + col;
+        setBit(occupied, index);
+        if (isSet(cells, index)) {
+            clearBit(cells, index);
+            size--;
+        }
+
+        int lastRow = Math.min(row + squareRadius, numRows - 1);
+        int lastCol = Math.min(col + squareRadius, numCols - 1);
+        for (int i = Math.max(row - squareRadius, 0); i <= lastRow; i++) {
+            for (int j = Math.max(col - squareRadius, 0); j <= lastCol; j++) {
+                int neighbour = i*numCols + j;
+                if (!isSet(occupied, neighbour) && !isSet(cells, neighbour)) {
+                    setBit(cells, neighbour);
+                    size++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the frontier when the piece in the given cell is removed. Cells around
+     * it may still be near other pieces, so each of them is checked again.
+     */
+    void removePiece(int row, int col) {
+        clearBit(occupied, row*numCols + col);
+
+        int lastRow = Math.min(row + squareRadius, numRows - 1);
+        int lastCol = Math.min(col + squareRadius, numCols - 1);
+        for (int i = Math.max(row - squareRadius, 0); i <= lastRow; i++) {
+            for (int j = Math.max(col - squareRadius, 0); j <= lastCol; j++) {
+                int index = i*numCols + j;
+                boolean inFrontier = !isSet(occupied, index) && hasPieceNear(i, j);
+                if (inFrontier != isSet(cells, index)) {
+                    cells[index >>> 6] ^= 1L << index;
+                    size += inFrontier ? 1 : -1;
+                }
+            }
+        }
+    }
+
+    private boolean hasPieceNear(int row, int col) {
+        int lastRow = Math.min(row + squareRadius, numRows - 1);
+        int lastCol = Math.min(col + squareRadius, numCols - 1);
+        for (int i = Math.max(row - squareRadius, 0); i <= lastRow; i++) {
+            for (int j = Math.max(col - squareRadius, 0); j <= lastCol; j++) {
+                if (isSet(occupied, i*numCols + j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /** Returns the number of cells in the frontier. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Checks if the cell is empty and within the radius of some piece. */
+    public boolean contains(int row, int col) {
+        return row >= 0 && row < numRows && col >= 0 && col < numCols
+                && isSet(cells, row*numCols + col);
+    }
+
+    public boolean contains(Cell cell) {
+        return contains(cell.row, cell.column);
+    }
+
+    /** Returns the cells of the frontier sorted first by row, then by column. */
+    public List<Cell> getCells() {
+        List<Cell> list = new ArrayList<>(size);
+        for (int word = 0; word < cells.length; word++) {
+            long remaining = cells[word];
+            while (remaining != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                list.add(new Cell(index / numCols, index % numCols));
+            }
+        }
+        return list;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
@@ -7,14 +7,28 @@ import java.util.*;
  */
 public class GameState {
 
+    /** Available {@link Board} implementations. */
+    public enum BoardType {DENSE_ARRAY, DENSE_MATRIX, HASH_MAP, BIT}
+
+    private static final Sequence.Direction[] DIRECTIONS = Sequence.Direction.values();
+    private static final Frontier[] NO_FRONTIERS = new Frontier[0];
+
     private int connectHowMany;
     private Board board;
     private Piece nextPlayer;
     private Optional<List<Cell>> allowedMoves = Optional.empty();
     private Sequence longestSequenceX;
     private Sequence longestSequenceO;
-    private Set<Sequence> updatedSequences = new HashSet<>(4);
+    private Set<Sequence> updatedSequences = Collections.emptySet();
+    private int[] updatedRuns; // first and last bit index of updated sequences on a BitBoard
     private Map<Piece, List<Sequence>> allSequences;
+    private long hash;
+    private Cell[] undoMoves; // moves made with makeMove() and longest sequences before them, for undo
+    private Sequence[] undoLongestSequences;
+    private int numUndoMoves;
+    private Frontier[] frontiers = NO_FRONTIERS; // those asked for, kept up to date with moves, see nextWithIndexes()
+    private Threats threats; // created when asked for, kept up to date with moves
+    private SequenceIndex sequenceIndex; // created when asked for, kept up to date with moves
 
 
     public static Builder builder() {
@@ -26,6 +40,7 @@ public class GameState {
 
     /**
      * Returns a new state object resulting from a move to given position.
+     * Like {@link #getCopy()}, the new state does not have the indexes of this state.
      *
      * @see
      * #update(Cell)
@@ -37,7 +52,31 @@ public class GameState {
     }
 
     /**
-     * Updates THIS state with the given move.
+     * Returns a new state object resulting from a move to given position, which takes
+     * over the indexes asked for from this state: {@link #getFrontier(int) frontiers},
+     * {@link #getThreats() threats} and the {@link #getSequenceIndex() sequence index}.
+     * The indexes are updated with the move instead of copied, and the objects returned
+     * from this state change with the new state. This state creates new ones if asked
+     * for again.
+     * <p/>
+     * This suits a sequence of states where only the latest is looked at, such as the
+     * states of a game given to its players, and the indexes are asked for on each turn.
+     */
+    public GameState nextWithIndexes(Cell position) {
+        GameState next = this.getCopy();
+        next.frontiers = frontiers;
+        next.threats = threats;
+        next.sequenceIndex = sequenceIndex;
+        next.update(position);
+        frontiers = NO_FRONTIERS;
+        threats = null;
+        sequenceIndex = null;
+        return next;
+    }
+
+    /**
+     * Updates THIS state with the given move. The move cannot be undone,
+     * see {@link #makeMove(Cell)}.
      *
      * @see
      * #next(Cell)
@@ -48,6 +87,17 @@ public class GameState {
         }
 
         board.set(position, nextPlayer);
+        for (Frontier frontier : frontiers) {
+            frontier.addPiece(position.row, position.column);
+        }
+        if (threats != null) {
+            threats.addPiece(position.row, position.column, nextPlayer);
+        }
+        if (sequenceIndex != null) {
+            sequenceIndex.addPiece(position.row, position.column, nextPlayer);
+        }
+        hash ^= Zobrist.getKey(position.row, position.column, nextPlayer)
+                ^ Zobrist.getNextPlayerKey(nextPlayer) ^ Zobrist.getNextPlayerKey(nextPlayer.other());
 
         nextPlayer = nextPlayer.other();
 
@@ -59,6 +109,89 @@ public class GameState {
         }
     }
 
+    /**
+     * Updates THIS state with the given move like {@link #update(Cell)}, and records
+     * what is needed to take the move back with {@link #undo(Cell)}. Only states
+     * searched by making and undoing moves pay for the record.
+     */
+    public void makeMove(Cell position) {
+        if (!isAllowed(position)) {
+            throw new IllegalArgumentException("Illegal move: " + position);
+        }
+        pushUndoMove(position);
+        update(position);
+    }
+
+    /**
+     * Takes back the latest move made on THIS state with {@link #makeMove(Cell)}.
+     * This restores the board, the next player, the longest sequences, the hash
+     * and the allowed moves, so that searching by updating and undoing moves
+     * needs no copies of the board. Updated sequences are not restored: they
+     * are empty after undo.
+     * <p/>
+     * Only moves made with makeMove() on this object can be undone, not moves
+     * made with update() nor the moves of a state this was copied from.
+     *
+     * @param position
+     *  the latest move
+     * @throws IllegalArgumentException
+     *  if position is not the latest move made with makeMove() on this object
+     */
+    public void undo(Cell position) {
+        if (numUndoMoves == 0 || !undoMoves[numUndoMoves - 1].equals(position)) {
+            throw new IllegalArgumentException("Not the latest move: " + position);
+        }
+
+        numUndoMoves--;
+        undoMoves[numUndoMoves] = null;
+        longestSequenceX = undoLongestSequences[2*numUndoMoves];
+        longestSequenceO = undoLongestSequences[2*numUndoMoves + 1];
+
+        nextPlayer = nextPlayer.other();
+        board.set(position, null);
+        for (Frontier frontier : frontiers) {
+            frontier.removePiece(position.row, position.column);
+        }
+        if (threats != null) {
+            threats.removePiece(position.row, position.column);
+        }
+        if (sequenceIndex != null) {
+            sequenceIndex.removePiece(position.row, position.column);
+        }
+        hash ^= Zobrist.getKey(position.row, position.column, nextPlayer)
+                ^ Zobrist.getNextPlayerKey(nextPlayer) ^ Zobrist.getNextPlayerKey(nextPlayer.other());
+
+        updatedSequences = Collections.emptySet();
+
+        if (allowedMoves.isPresent()) {
+            int insertionPoint = -Collections.binarySearch(allowedMoves.get(), position, new CellRowOrderComparator()) - 1;
+            allowedMoves.get().add(insertionPoint, position);
+        }
+    }
+
+    private void pushUndoMove(Cell position) {
+        if (undoMoves == null) {
+            undoMoves = new Cell[4];
+            undoLongestSequences = new Sequence[2*undoMoves.length];
+        } else if (numUndoMoves == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, 2*undoMoves.length);
+            undoLongestSequences = Arrays.copyOf(undoLongestSequences, 2*undoMoves.length);
+        }
+        undoMoves[numUndoMoves] = position;
+        undoLongestSequences[2*numUndoMoves] = longestSequenceX;
+        undoLongestSequences[2*numUndoMoves + 1] = longestSequenceO;
+        numUndoMoves++;
+    }
+
+    /**
+     * Returns a copy of this state without the indexes asked for from this state:
+     * {@link #getFrontier(int) frontiers}, {@link #getThreats() threats} and the
+     * {@link #getSequenceIndex() sequence index}. The copy creates its own when
+     * asked for, so that copies made when searching moves stay cheap to create and
+     * update.
+     *
+     * @see #nextWithIndexes(Cell)
+     */
     public GameState getCopy() {
         GameState nextState = new GameState();
         nextState.connectHowMany = this.connectHowMany;
@@ -66,6 +199,7 @@ public class GameState {
         nextState.board = copyBoard();
         nextState.longestSequenceX = this.longestSequenceX;
         nextState.longestSequenceO = this.longestSequenceO;
+        nextState.hash = this.hash;
         return nextState;
     }
 
@@ -103,6 +237,93 @@ public class GameState {
         return nextPlayer;
     }
 
+    /**
+     * Returns the Zobrist hash of this state: the pieces on the board and
+     * the next player. States with equal boards and next players have equal
+     * hashes, regardless of the order of moves that lead to them. The hash is
+     * updated with each move, so this is a constant time operation.
+     *
+     * @see Zobrist
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    private void computeHash() {
+        hash = Zobrist.getNextPlayerKey(nextPlayer);
+        for (int i = 0; i < getBoardRows(); i++) {
+            for (int j = 0; j < getBoardCols(); j++) {
+                Piece piece = getPiece(i, j);
+                if (piece != null) {
+                    hash ^= Zobrist.getKey(i, j, piece);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the empty cells within radius (in king moves) of any piece, such as
+     * the cells adjacent to occupied ones when the radius is 1.
+     * <p/>
+     * The first call with a radius looks through the board. After that the frontier
+     * is updated with each move, also in states from {@link #nextWithIndexes(Cell)},
+     * so this is a constant time operation. The returned frontier changes with this state.
+     * <p/>
+     * Not thread-safe on the first call with a radius.
+     */
+    public Frontier getFrontier(int radius) {
+        for (Frontier frontier : frontiers) {
+            if (frontier.getRadius() == radius) {
+                return frontier;
+            }
+        }
+        Frontier frontier = new Frontier(board, radius);
+        Frontier[] newFrontiers = Arrays.copyOf(frontiers, frontiers.length + 1);
+        newFrontiers[frontiers.length] = frontier;
+        frontiers = newFrontiers;
+        return frontier;
+    }
+
+    /**
+     * Returns the moves with which either player could win or make an open threat.
+     * <p/>
+     * The first call looks through the board. After that the threats are updated with
+     * each move, also in states from {@link #nextWithIndexes(Cell)}, by checking only
+     * the cells in line with the move. The returned object changes with this state.
+     * <p/>
+     * Not thread-safe on the first call.
+     */
+    public Threats getThreats() {
+        if (threats == null) {
+            threats = new Threats(board, connectHowMany);
+        }
+        return threats;
+    }
+
+    /**
+     * Finds the threats by going through the board. Unlike {@link #getThreats()}, the
+     * result is not kept by this state nor updated with moves, so this does not change
+     * the state and may be called by several threads at once.
+     */
+    public Threats findThreats() {
+        return new Threats(board, connectHowMany);
+    }
+
+    /**
+     * Returns all sequences of both players by length. Unlike {@link #getAllSequences()},
+     * only the first call looks through the board. After that the sequences are updated with
+     * each move, also in states from {@link #nextWithIndexes(Cell)}. The returned index
+     * changes with this state.
+     * <p/>
+     * Not thread-safe on the first call.
+     */
+    public SequenceIndex getSequenceIndex() {
+        if (sequenceIndex == null) {
+            sequenceIndex = new SequenceIndex(board);
+        }
+        return sequenceIndex;
+    }
 
     /**
      * Checks whether a move in the given cell is allowed,
@@ -191,7 +412,18 @@ public class GameState {
      *  sequences updated in the previous move, empty list of no previous move
      */
     public Set<Sequence> getUpdatedSequences() {
-        return Collections.unmodifiableSet(updatedSequences);
+        if (updatedSequences == null) {
+            updatedSequences = createUpdatedSequences((BitBoard) board);
+        }
+        return updatedSequences;
+    }
+
+    private Set<Sequence> createUpdatedSequences(BitBoard bitBoard) {
+        Set<Sequence> sequences = new HashSet<>(4);
+        for (int i = 0; i < updatedRuns.length; i += 2) {
+            sequences.add(new Sequence(bitBoard.getCell(updatedRuns[i]), bitBoard.getCell(updatedRuns[i + 1])));
+        }
+        return Collections.unmodifiableSet(sequences); // final field in wrapper makes this safe to publish
     }
 
     public Sequence getLongestSequence(Piece player) {
@@ -204,6 +436,10 @@ public class GameState {
         }
     }
 
+    /**
+     * Finds all sequences by going through the entire board. For repeated
+     * lookups use {@link #getSequenceIndex()}, which is kept up to date with moves.
+     */
     public Map<Piece, List<Sequence>> getAllSequences() {
         allSequences = new HashMap<>();
         for (Piece piece : Piece.values()) {
@@ -218,10 +454,18 @@ public class GameState {
     /**
      * Finds longest sequences by going through the entire game board (4 times).
      * If {@link #allSequences} is not null, finds also all sequences.
+     * Otherwise a {@link BitBoard} finds the longest sequences bitwise
+     * without looking at individual cells.
      *
      * @see #findSequencesThatCrossCell(Cell)
      */
     private void findSequencesFromScratch() {
+        if (allSequences == null && board instanceof BitBoard) {
+            longestSequenceX = ((BitBoard) board).findLongestSequence(Piece.X);
+            longestSequenceO = ((BitBoard) board).findLongestSequence(Piece.O);
+            return;
+        }
+
         initLongestSequences();
 
         int checked = 0;
@@ -318,14 +562,20 @@ public class GameState {
      *  an updated cell (all found sequences cross this cell)
      */
     private void findSequencesThatCrossCell(Cell lastMove) {
-        updatedSequences.clear();
-        findSequencesThatCrossCell(lastMove, Sequence.Direction.HORIZONTAL);
-        findSequencesThatCrossCell(lastMove, Sequence.Direction.VERTICAL);
-        findSequencesThatCrossCell(lastMove, Sequence.Direction.LEFT_RIGHT_DIAGONAL);
-        findSequencesThatCrossCell(lastMove, Sequence.Direction.RIGHT_LEFT_DIAGONAL);
+        if (board instanceof BitBoard) {
+            findBitSequencesThatCrossCell((BitBoard) board, lastMove);
+            return;
+        }
+
+        Set<Sequence> sequences = new HashSet<>(4);
+        findSequencesThatCrossCell(lastMove, Sequence.Direction.HORIZONTAL, sequences);
+        findSequencesThatCrossCell(lastMove, Sequence.Direction.VERTICAL, sequences);
+        findSequencesThatCrossCell(lastMove, Sequence.Direction.LEFT_RIGHT_DIAGONAL, sequences);
+        findSequencesThatCrossCell(lastMove, Sequence.Direction.RIGHT_LEFT_DIAGONAL, sequences);
+        updatedSequences = Collections.unmodifiableSet(sequences);
     }
 
-    private void findSequencesThatCrossCell(Cell lastMove, Sequence.Direction direction) {
+    private void findSequencesThatCrossCell(Cell lastMove, Sequence.Direction direction, Set<Sequence> updatedSequences) {
         ListIterator<Cell> iter1, iter2;
         switch (direction) {
             case HORIZONTAL:
@@ -373,6 +623,34 @@ public class GameState {
         recordSequence(piece, sequence);
     }
 
+    /**
+     * Like {@link #findSequencesThatCrossCell(Cell)}, but steps through bits instead of
+     * iterating cells. Sequence objects are only created for new longest sequences,
+     * updated sequences are created when asked for.
+     */
+    private void findBitSequencesThatCrossCell(BitBoard bitBoard, Cell lastMove) {
+        if (updatedRuns == null) {
+            updatedRuns = new int[2*DIRECTIONS.length];
+        }
+        updatedSequences = null;
+
+        Piece piece = bitBoard.get(lastMove);
+        int index = bitBoard.getIndex(lastMove.row, lastMove.column);
+        int i = 0;
+        for (Sequence.Direction direction : DIRECTIONS) {
+            int step = bitBoard.getStep(direction);
+            int first = bitBoard.findRunStart(piece, index, step);
+            int last = bitBoard.findRunEnd(piece, index, step);
+            updatedRuns[i++] = first;
+            updatedRuns[i++] = last;
+
+            int length = (last - first)/step + 1;
+            if (length > getLongestSequence(piece).getLength()) {
+                recordSequence(piece, new Sequence(bitBoard.getCell(first), bitBoard.getCell(last)));
+            }
+        }
+    }
+
 
     public String getStringRepresentation() {
         StringBuilder sb = new StringBuilder();
@@ -620,6 +898,7 @@ public class GameState {
         private Integer connectHowMany = null;
         private Piece[][] board = null;
         private Piece nextPlayer = null;
+        private BoardType boardType = null;
         private GameState template = null;
 
         /**
@@ -655,6 +934,18 @@ public class GameState {
             return this;
         }
 
+        /**
+         * @param boardType
+         *  how to store the board given with {@link #setBoard(Piece[][])},
+         *  {@link BoardType#DENSE_ARRAY} by default
+         * @return
+         *  this
+         */
+        public Builder setBoardType(BoardType boardType) {
+            this.boardType = boardType;
+            return this;
+        }
+
         /**
          * @param template
          *  template with which to initialize the new state
@@ -674,13 +965,14 @@ public class GameState {
                 state = template.getCopy();
                 fullInit = false;
                 if (board != null) {
-                    state.board = new DenseArrayBoard(board);
+                    state.board = createBoard();
                     fullInit = true;
                 }
                 if (connectHowMany != null) {
                     state.connectHowMany = connectHowMany;
                 }
                 if (nextPlayer != null) {
+                    state.hash ^= Zobrist.getNextPlayerKey(state.nextPlayer) ^ Zobrist.getNextPlayerKey(nextPlayer);
                     state.nextPlayer = nextPlayer;
                 }
             } else {
@@ -697,16 +989,32 @@ public class GameState {
                 state = new GameState();
                 fullInit = true;
                 state.nextPlayer = nextPlayer;
-                state.board = new DenseArrayBoard(board);
+                state.board = createBoard();
                 state.connectHowMany = connectHowMany;
 
             }
 
             if (fullInit) {
                 state.findSequencesFromScratch();
+                state.computeHash();
             }
 
             return state;
         }
+
+        private Board createBoard() {
+            switch (boardType != null ? boardType : BoardType.DENSE_ARRAY) {
+                case DENSE_ARRAY:
+                    return new DenseArrayBoard(board);
+                case DENSE_MATRIX:
+                    return new DenseMatrixBoard(board);
+                case HASH_MAP:
+                    return new HashMapBoard(board);
+                case BIT:
+                    return new BitBoard(board);
+                default:
+                    throw new IllegalArgumentException("Invalid board type " + boardType);
+            }
+        }
     }
 }
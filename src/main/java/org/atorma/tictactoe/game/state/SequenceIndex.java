@@ -0,0 +1,222 @@
+package org.atorma.tictactoe.game.state;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * All sequences of both players in all directions, bucketed by player and length,
+ * like {@link GameState#getAllSequences()} but kept up to date with each move.
+ * A move merges at most two sequences of its player in each direction (or splits
+ * one, when undone), so updating costs a walk along the 4 lines through the move.
+ * <p/>
+ * A sequence of length 1 is the single piece and appears once for each direction
+ * in which it has no neighbour of the same player, as in getAllSequences().
+ *
+ * @see GameState#getSequenceIndex()
+ */
+public class SequenceIndex {
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}}; // in the order of Sequence.Direction
+    private static final int[][] NEIGHBOURS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
+
+    private final int numRows;
+    private final int numCols;
+    private final int numCells;
+    private final long[][] pieces; // by Piece ordinal
+
+    // A sequence is identified by key = direction*numCells + index of its start cell
+    private final int[] lengths; // by key, 0 if no sequence starts there
+    private final int[] positions; // by key, position in the bucket of its length
+    private final int[][][] buckets; // keys by Piece ordinal and length
+    private final int[][] bucketSizes;
+
+    SequenceIndex(Board board) {
+        this.numRows = board.getNumRows();
+        this.numCols = board.getNumCols();
+        this.numCells = numRows*numCols;
+        int numWords = (numCells + 63) >>> 6;
+        this.pieces = new long[2][numWords];
+        this.lengths = new int[DIRECTIONS.length*numCells];
+        this.positions = new int[DIRECTIONS.length*numCells];
+        int maxLength = Math.max(numRows, numCols);
+        this.buckets = new int[2][maxLength + 1][];
+        this.bucketSizes = new int[2][maxLength + 1];
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                Piece piece = board.get(new Cell(i, j));
+                if (piece != null) {
+                    addPiece(i, j, piece);
+                }
+            }
+        }
+    }
+
+    /** Updates the sequences when a piece is placed in the given cell: joins the sequences next to it. */
+    void addPiece(int row, int col, Piece piece) {
+        int p = piece.ordinal();
+        setBit(pieces[p], getIndex(row, col));
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int[] step = DIRECTIONS[d];
+            int before = countPieces(row, col, -step[0], -step[1], p);
+            int after = countPieces(row, col, step[0], step[1], p);
+            int start = getIndex(row - before*step[0], col - before*step[1]);
+            if (before > 0) {
+                remove(p, d*numCells + start);
+            }
+            if (after > 0) {
+                remove(p, d*numCells + getIndex(row + step[0], col + step[1]));
+            }
+            add(p, d*numCells + start, before + 1 + after);
+        }
+    }
+
+    /** Updates the sequences when the piece in the given cell is removed: splits the sequences crossing it. */
+    void removePiece(int row, int col) {
+        int index = getIndex(row, col);
+        int p = isSet(pieces[0], index) ? 0 : 1;
+        clearBit(pieces[p], index);
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int[] step = DIRECTIONS[d];
+            int before = countPieces(row, col, -step[0], -step[1], p);
+            int after = countPieces(row, col, step[0], step[1], p);
+            int start = getIndex(row - before*step[0], col - before*step[1]);
+            remove(p, d*numCells + start);
+            if (before > 0) {
+                add(p, d*numCells + start, before);
+            }
+            if (after > 0) {
+                add(p, d*numCells + getIndex(row + step[0], col + step[1]), after);
+            }
+        }
+    }
+
+    private void add(int p, int key, int length) {
+        int[] bucket = buckets[p][length];
+        int size = bucketSizes[p][length];
+        if (bucket == null) {
+            bucket = buckets[p][length] = new int[8];
+        } else if (size == bucket.length) {
+            bucket = buckets[p][length] = Arrays.copyOf(bucket, 2*size);
+        }
+        bucket[size] = key;
+        positions[key] = size;
+        lengths[key] = length;
+        bucketSizes[p][length] = size + 1;
+    }
+
+    private void remove(int p, int key) {
+        int length = lengths[key];
+        int[] bucket = buckets[p][length];
+        int last = --bucketSizes[p][length];
+        int position = positions[key];
+        bucket[position] = bucket[last];
+        positions[bucket[position]] = position;
+        lengths[key] = 0;
+    }
+
+    private int countPieces(int row, int col, int rowStep, int colStep, int p) {
+        int count = 0;
+        int i = row + rowStep;
+        int j = col + colStep;
+        while (isOnBoard(i, j) && isSet(pieces[p], getIndex(i, j))) {
+            count++;
+            i += rowStep;
+            j += colStep;
+        }
+        return count;
+    }
+
+
+    /** Returns the number of the player's sequences of the given length. */
+    public int getNumSequences(Piece player, int length) {
+        return length > 0 && length < bucketSizes[player.ordinal()].length ? bucketSizes[player.ordinal()][length] : 0;
+    }
+
+    /** Returns the player's sequences, longest first. */
+    public List<Sequence> getSequences(Piece player) {
+        int p = player.ordinal();
+        List<Sequence> sequences = new ArrayList<>();
+        for (int length = bucketSizes[p].length - 1; length > 0; length--) {
+            for (int i = 0; i < bucketSizes[p][length]; i++) {
+                sequences.add(toSequence(buckets[p][length][i]));
+            }
+        }
+        return sequences;
+    }
+
+    /**
+     * Returns the player's longest sequence that has a free cell at either end, or null if
+     * there is none. A single piece has ends in all directions. Of equally long sequences
+     * the first one in the order of {@link Sequence.Direction} is returned, then the one
+     * with the first start cell in row order.
+     */
+    public Sequence getLongestSequenceWithFreeEnd(Piece player) {
+        int p = player.ordinal();
+        for (int length = bucketSizes[p].length - 1; length > 0; length--) {
+            int first = -1;
+            for (int i = 0; i < bucketSizes[p][length]; i++) {
+                int key = buckets[p][length][i];
+                if ((first < 0 || key < first) && hasFreeEnd(key, length)) {
+                    first = key;
+                }
+            }
+            if (first >= 0) {
+                return toSequence(first);
+            }
+        }
+        return null;
+    }
+
+    private boolean hasFreeEnd(int key, int length) {
+        int[] step = DIRECTIONS[key / numCells];
+        int row = (key % numCells) / numCols;
+        int col = (key % numCells) % numCols;
+        if (length == 1) {
+            for (int[] neighbour : NEIGHBOURS) {
+                if (isFree(row + neighbour[0], col + neighbour[1])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return isFree(row - step[0], col - step[1]) || isFree(row + length*step[0], col + length*step[1]);
+    }
+
+    private Sequence toSequence(int key) {
+        int[] step = DIRECTIONS[key / numCells];
+        int row = (key % numCells) / numCols;
+        int col = (key % numCells) % numCols;
+        int length = lengths[key];
+        return new Sequence(new Cell(row, col), new Cell(row + (length - 1)*step[0], col + (length - 1)*step[1]));
+    }
+
+
+    private boolean isFree(int row, int col) {
+        if (!isOnBoard(row, col)) {
+            return false;
+        }
+        int index = getIndex(row, col);
+        return !isSet(pieces[0], index) && !isSet(pieces[1], index);
+    }
+
+    private boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < numRows && col >= 0 && col < numCols;
+    }
+
+    private int getIndex(int row, int col) {
+        return row*numCols + col;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
@@ -0,0 +1,259 @@
+package org.atorma.tictactoe.game.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The moves with which each player could win or make an open threat, that is
+ * a sequence one short of a win with both ends free, so that the opponent can
+ * block only one of the two ways to win. A double threat move makes sequences
+ * one short of a win with a free end in two directions, which the opponent
+ * cannot both block either.
+ * <p/>
+ * A winning move completes a run of connectHowMany - 1 pieces (possibly with
+ * the move filling a gap), an open threat move completes a run of
+ * connectHowMany - 2. These are kept in a bitset per player and kind, which
+ * {@link GameState} keeps up to date with each move. A move can only change
+ * the status of the empty cells that are reached from it along a line through
+ * pieces of one player, so each move rechecks a few cells in each direction
+ * instead of the whole board.
+ *
+ * @see GameState#getThreats()
+ */
+public class Threats {
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}}; // in the order of Sequence.Direction
+    private static final int[][] NEIGHBOURS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}};
+
+    private static final int NONE = 0;
+    private static final int OPEN_THREAT = 1;
+    private static final int WIN = 2;
+    private static final int DOUBLE_THREAT = 4; // combined with OPEN_THREAT or NONE
+
+    private final int numRows;
+    private final int numCols;
+    private final int connectHowMany;
+    private final long[][] pieces; // by Piece ordinal
+    private final long[][] winningMoves;
+    private final long[][] openThreatMoves;
+    private final long[][] doubleThreatMoves;
+
+    Threats(Board board, int connectHowMany) {
+        this.numRows = board.getNumRows();
+        this.numCols = board.getNumCols();
+        this.connectHowMany = connectHowMany;
+        int numWords = (numRows*numCols + 63) >>> 6;
+        this.pieces = new long[2][numWords];
+        this.winningMoves = new long[2][numWords];
+        this.openThreatMoves = new long[2][numWords];
+        this.doubleThreatMoves = new long[2][numWords];
+
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                Piece piece = board.get(new Cell(i, j));
+                if (piece != null) {
+                    setBit(pieces[piece.ordinal()], getIndex(i, j));
+                }
+            }
+        }
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                updateStatus(i, j);
+            }
+        }
+    }
+
+    /** Updates the threats when a piece is placed in the given cell. */
+    void addPiece(int row, int col, Piece piece) {
+        setBit(pieces[piece.ordinal()], getIndex(row, col));
+        updateStatusAround(row, col);
+    }
+
+    /** Updates the threats when the piece in the given cell is removed. */
+    void removePiece(int row, int col) {
+        int index = getIndex(row, col);
+        clearBit(pieces[0], index);
+        clearBit(pieces[1], index);
+        updateStatusAround(row, col);
+    }
+
+    /**
+     * The empty cells whose status may depend on the given cell are the cell itself
+     * and the first empty cell in each direction, if the cells in between all have
+     * the same piece: those are the only cells whose sequences (or their ends) reach
+     * the given cell.
+     */
+    private void updateStatusAround(int row, int col) {
+        updateStatus(row, col);
+        for (int[] direction : NEIGHBOURS) {
+            int i = row + direction[0];
+            int j = col + direction[1];
+            Piece piece = isOnBoard(i, j) ? getPiece(i, j) : null;
+            while (piece != null && isOnBoard(i, j) && getPiece(i, j) == piece) {
+                i += direction[0];
+                j += direction[1];
+            }
+            if (isOnBoard(i, j)) {
+                updateStatus(i, j);
+            }
+        }
+    }
+
+    private void updateStatus(int row, int col) {
+        int index = getIndex(row, col);
+        boolean isEmpty = getPiece(row, col) == null;
+        for (Piece player : Piece.values()) {
+            int status = isEmpty ? getStatus(row, col, player) : NONE;
+            setBit(winningMoves[player.ordinal()], index, status == WIN);
+            setBit(openThreatMoves[player.ordinal()], index, (status & OPEN_THREAT) != 0);
+            setBit(doubleThreatMoves[player.ordinal()], index, (status & DOUBLE_THREAT) != 0);
+        }
+    }
+
+    /**
+     * Same rules as looking at the sequences crossing the cell after the move: a sequence
+     * of at least connectHowMany is a win, and one of at least connectHowMany - 1 with two
+     * free ends is an open threat. A single piece has ends in all directions. Sequences of
+     * connectHowMany - 1 with at least one free end in two directions are a double threat.
+     */
+    private int getStatus(int row, int col, Piece player) {
+        int status = NONE;
+        int numThreats = 0;
+        for (int[] direction : DIRECTIONS) {
+            int before = countPieces(row, col, -direction[0], -direction[1], player);
+            int after = countPieces(row, col, direction[0], direction[1], player);
+            int length = before + 1 + after;
+            if (length >= connectHowMany) {
+                return WIN;
+            }
+            if (length >= connectHowMany - 1) {
+                int directionFreeEnds = (isFree(row - (before + 1)*direction[0], col - (before + 1)*direction[1]) ? 1 : 0)
+                        + (isFree(row + (after + 1)*direction[0], col + (after + 1)*direction[1]) ? 1 : 0);
+                int freeEnds = directionFreeEnds;
+                if (length == 1) {
+                    freeEnds = 0;
+                    for (int[] neighbour : NEIGHBOURS) {
+                        freeEnds += isFree(row + neighbour[0], col + neighbour[1]) ? 1 : 0;
+                    }
+                }
+                if (freeEnds >= 2) {
+                    status = OPEN_THREAT;
+                }
+                if (directionFreeEnds > 0) {
+                    numThreats++;
+                }
+            }
+        }
+        return numThreats >= 2 ? status | DOUBLE_THREAT : status;
+    }
+
+    private int countPieces(int row, int col, int rowStep, int colStep, Piece player) {
+        long[] bits = pieces[player.ordinal()];
+        int count = 0;
+        int i = row + rowStep;
+        int j = col + colStep;
+        while (isOnBoard(i, j) && isSet(bits, getIndex(i, j))) {
+            count++;
+            i += rowStep;
+            j += colStep;
+        }
+        return count;
+    }
+
+
+    /** Checks if the player would win by moving to the cell. */
+    public boolean isWinningMove(Cell cell, Piece player) {
+        return isOnBoard(cell.row, cell.column) && isSet(winningMoves[player.ordinal()], getIndex(cell.row, cell.column));
+    }
+
+    /** Checks if the player would make an open threat by moving to the cell. */
+    public boolean isOpenThreatMove(Cell cell, Piece player) {
+        return isOnBoard(cell.row, cell.column) && isSet(openThreatMoves[player.ordinal()], getIndex(cell.row, cell.column));
+    }
+
+    /** Checks if the player would make a double threat by moving to the cell. */
+    public boolean isDoubleThreatMove(Cell cell, Piece player) {
+        return isOnBoard(cell.row, cell.column) && isSet(doubleThreatMoves[player.ordinal()], getIndex(cell.row, cell.column));
+    }
+
+    /**
+     * Returns the moves with which the player would win, sorted first by row, then by column.
+     * The opponent must block these.
+     */
+    public List<Cell> getWinningMoves(Piece player) {
+        return getCells(winningMoves[player.ordinal()]);
+    }
+
+    /**
+     * Returns the moves with which the player would make an open threat (and not win
+     * right away), sorted first by row, then by column.
+     */
+    public List<Cell> getOpenThreatMoves(Piece player) {
+        return getCells(openThreatMoves[player.ordinal()]);
+    }
+
+    /**
+     * Returns the moves with which the player would make sequences one short of a win
+     * in two directions (and not win right away), sorted first by row, then by column.
+     * Unless the opponent can win first, blocking one still leaves the other.
+     */
+    public List<Cell> getDoubleThreatMoves(Piece player) {
+        return getCells(doubleThreatMoves[player.ordinal()]);
+    }
+
+    private List<Cell> getCells(long[] bits) {
+        List<Cell> cells = new ArrayList<>();
+        for (int word = 0; word < bits.length; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                cells.add(new Cell(index / numCols, index % numCols));
+            }
+        }
+        return cells;
+    }
+
+
+    private Piece getPiece(int row, int col) {
+        int index = getIndex(row, col);
+        if (isSet(pieces[Piece.X.ordinal()], index)) {
+            return Piece.X;
+        } else if (isSet(pieces[Piece.O.ordinal()], index)) {
+            return Piece.O;
+        } else {
+            return null;
+        }
+    }
+
+    private boolean isFree(int row, int col) {
+        return isOnBoard(row, col) && getPiece(row, col) == null;
+    }
+
+    private boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < numRows && col >= 0 && col < numCols;
+    }
+
+    private int getIndex(int row, int col) {
+        return row*numCols + col;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            setBit(bits, index);
+        } else {
+            clearBit(bits, index);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.atorma.tictactoe.game.state;
+
+/**
+ * Random keys for Zobrist hashing of game states. The hash of a state
+ * is the XOR of the keys of all pieces on the board, XOR'ed with
+ * {@link #getNextPlayerKey(Piece)}, so a move updates it with two XORs.
+ * <p/>
+ * Instead of a table of random numbers for a fixed board size the keys are
+ * computed by scrambling the cell coordinates with the SplitMix64 finalizer.
+ * That is a few multiplications, works for any board size and needs no
+ * shared mutable state.
+ */
+public class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long O_TO_MOVE = scramble(SEED);
+
+    private Zobrist() {}
+
+    /** Returns the key of the piece at the given cell. */
+    public static long getKey(int row, int col, Piece piece) {
+        long cellAndPiece = ((long) row << 33) | ((long) col << 1) | piece.ordinal();
+        return scramble(SEED + (cellAndPiece + 1)*GOLDEN_GAMMA);
+    }
+
+    /** Returns the key for the player to move next. */
+    public static long getNextPlayerKey(Piece nextPlayer) {
+        return nextPlayer == Piece.O ? O_TO_MOVE : 0;
+    }
+
+    private static long scramble(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
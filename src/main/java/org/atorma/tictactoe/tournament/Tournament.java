@@ -0,0 +1,157 @@
+package org.atorma.tictactoe.tournament;
+
+import org.atorma.tictactoe.game.Simulator;
+import org.atorma.tictactoe.game.player.Player;
+import org.atorma.tictactoe.game.player.mcts.MCTSPlayer;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays games between two players with {@link Simulator}, several at a time,
+ * to compare their strength and speed. New players are created for each game.
+ * Player 1 starts in even games, player 2 in odd games.
+ *
+ * @see TournamentRunner
+ */
+public class Tournament {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Tournament.class);
+
+    private final Supplier<? extends Player> player1Factory;
+    private final Supplier<? extends Player> player2Factory;
+    private final TournamentParams params;
+
+    public Tournament(Supplier<? extends Player> player1Factory, Supplier<? extends Player> player2Factory, TournamentParams params) {
+        if (player1Factory == null || player2Factory == null) throw new IllegalArgumentException("Players missing");
+        if (params.numGames < 1) throw new IllegalArgumentException("Invalid number of games " + params.numGames + ". Must be >= 1.");
+        if (params.numParallelGames < 1) throw new IllegalArgumentException("Invalid number of parallel games " + params.numParallelGames + ". Must be >= 1.");
+
+        this.player1Factory = player1Factory;
+        this.player2Factory = player2Factory;
+        this.params = params;
+    }
+
+    /**
+     * Plays all games and returns the results. Blocks until done.
+     */
+    public TournamentResult run() {
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(params.numParallelGames);
+        try {
+            List<Future<GameRecord>> games = new ArrayList<>(params.numGames);
+            for (int i = 0; i < params.numGames; i++) {
+                boolean player1Starts = i % 2 == 0;
+                games.add(executor.submit(() -> playGame(player1Starts)));
+            }
+
+            TournamentResult result = null;
+            for (int i = 0; i < games.size(); i++) {
+                GameRecord game = games.get(i).get();
+                if (result == null) {
+                    result = new TournamentResult(game.player1Name, game.player2Name);
+                }
+                result.addGame(game.player1Score, game.player1Stats, game.player2Stats);
+                if ((i + 1) % 100 == 0) {
+                    LOGGER.info("{} games played: {}", i + 1, result);
+                }
+            }
+            result.setElapsedMillis(System.currentTimeMillis() - startTime);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private GameRecord playGame(boolean player1Starts) {
+        Piece player1Piece = player1Starts ? Piece.X : Piece.O;
+        MeasuredPlayer player1 = new MeasuredPlayer(player1Factory.get(), player1Piece);
+        MeasuredPlayer player2 = new MeasuredPlayer(player2Factory.get(), player1Piece.other());
+
+        GameState startState = GameState.builder()
+                .setConnectHowMany(params.connectHowMany)
+                .setBoard(new Piece[params.boardRows][params.boardColumns])
+                .setBoardType(GameState.BoardType.BIT)
+                .setNextPlayer(Piece.X)
+                .build();
+        GameState endState = new Simulator(startState, player1, player2).run();
+        player1.stopPondering();
+        player2.stopPondering();
+
+        GameRecord record = new GameRecord();
+        record.player1Name = player1.player.toString();
+        record.player2Name = player2.player.toString();
+        if (endState.getWinner() == null) {
+            record.player1Score = 0.5;
+        } else {
+            record.player1Score = endState.getWinner() == player1Piece ? 1 : 0;
+        }
+        record.player1Stats = player1.stats;
+        record.player2Stats = player2.stats;
+        return record;
+    }
+
+
+    private static class GameRecord {
+        String player1Name;
+        String player2Name;
+        double player1Score;
+        TournamentResult.PlayerStats player1Stats;
+        TournamentResult.PlayerStats player2Stats;
+    }
+
+    /** Records the think time of each move, and the rollouts and tree size of an MCTS player. */
+    private static class MeasuredPlayer implements Player {
+        private final Player player;
+        private final TournamentResult.PlayerStats stats = new TournamentResult.PlayerStats();
+
+        MeasuredPlayer(Player player, Piece piece) {
+            this.player = player;
+            player.setPiece(piece);
+        }
+
+        @Override
+        public Cell move(GameState currentState, Cell opponentsLastMove) {
+            long startTime = System.nanoTime();
+            Cell move = player.move(currentState, opponentsLastMove);
+            long thinkTime = System.nanoTime() - startTime;
+            if (player instanceof MCTSPlayer) {
+                MCTSPlayer mctsPlayer = (MCTSPlayer) player;
+                stats.addMove(thinkTime, mctsPlayer.getNumRollouts(), mctsPlayer.getTreeSize());
+            } else {
+                stats.addMove(thinkTime, 0, 0);
+            }
+            return move;
+        }
+
+        void stopPondering() {
+            if (player instanceof MCTSPlayer) {
+                ((MCTSPlayer) player).stopPondering();
+            }
+        }
+
+        @Override
+        public void setPiece(Piece p) {
+            player.setPiece(p);
+        }
+
+        @Override
+        public Piece getPiece() {
+            return player.getPiece();
+        }
+    }
+}
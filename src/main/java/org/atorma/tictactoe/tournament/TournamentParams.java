@@ -0,0 +1,35 @@
+package org.atorma.tictactoe.tournament;
+
+/**
+ * Settings of a {@link Tournament}.
+ */
+public class TournamentParams {
+
+    /** Number of games to play. The players take turns in starting. */
+    public int numGames = 100;
+
+    /**
+     * Number of games played at the same time. AI players with a think time limit
+     * get fewer rollouts when games compete for cores, which shows in the reported
+     * rollouts per second.
+     */
+    public int numParallelGames = Runtime.getRuntime().availableProcessors();
+
+    public int boardRows = 18;
+
+    public int boardColumns = 18;
+
+    public int connectHowMany = 5;
+
+    /** Elo difference of the null hypothesis in the sequential probability ratio test */
+    public double sprtElo0 = 0;
+
+    /** Elo difference of the alternative hypothesis in the sequential probability ratio test */
+    public double sprtElo1 = 10;
+
+    /** Probability of accepting the alternative hypothesis when the null hypothesis is true */
+    public double sprtAlpha = 0.05;
+
+    /** Probability of accepting the null hypothesis when the alternative hypothesis is true */
+    public double sprtBeta = 0.05;
+}
@@ -0,0 +1,234 @@
+package org.atorma.tictactoe.tournament;
+
+/**
+ * Outcome of a {@link Tournament} from the point of view of player 1,
+ * with the strength difference of the players estimated in Elo points.
+ * <p/>
+ * The Elo estimates and the sequential probability ratio test (SPRT) use
+ * the normal approximation of the score per game (win 1, draw 1/2, loss 0),
+ * as is common in testing game engines.
+ */
+public class TournamentResult {
+
+    /** Outcomes of the sequential probability ratio test */
+    public enum SprtDecision {
+        /** Player 1 is not stronger by the Elo difference of the alternative hypothesis */
+        ACCEPT_H0,
+        /** Player 1 is stronger by at least the Elo difference of the alternative hypothesis */
+        ACCEPT_H1,
+        /** More games are needed */
+        CONTINUE
+    }
+
+    private static final double Z_95 = 1.96;
+
+    private final String player1Name;
+    private final String player2Name;
+    private int wins;
+    private int draws;
+    private int losses;
+    private long elapsedMillis;
+    private final PlayerStats player1Stats = new PlayerStats();
+    private final PlayerStats player2Stats = new PlayerStats();
+
+    public TournamentResult(String player1Name, String player2Name) {
+        this.player1Name = player1Name;
+        this.player2Name = player2Name;
+    }
+
+    /**
+     * Records a game.
+     *
+     * @param score
+     *  player 1's score: 1 for a win, 0.5 for a draw, 0 for a loss
+     */
+    void addGame(double score, PlayerStats player1GameStats, PlayerStats player2GameStats) {
+        if (score == 1) {
+            wins++;
+        } else if (score == 0) {
+            losses++;
+        } else if (score == 0.5) {
+            draws++;
+        } else {
+            throw new IllegalArgumentException("Invalid score " + score);
+        }
+        player1Stats.add(player1GameStats);
+        player2Stats.add(player2GameStats);
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+
+    public int getNumGames() {
+        return wins + draws + losses;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public PlayerStats getPlayer1Stats() {
+        return player1Stats;
+    }
+
+    public PlayerStats getPlayer2Stats() {
+        return player2Stats;
+    }
+
+    /** Returns player 1's average score per game. */
+    public double getScore() {
+        return (wins + 0.5*draws) / getNumGames();
+    }
+
+    /** Returns the variance of player 1's score in a single game. */
+    public double getScoreVariance() {
+        double score = getScore();
+        return (wins*square(1 - score) + draws*square(0.5 - score) + losses*square(score)) / getNumGames();
+    }
+
+    /**
+     * Returns how many Elo points player 1 is estimated to be stronger than player 2.
+     * Infinite if either player won all games.
+     */
+    public double getEloDifference() {
+        return toEloDifference(getScore());
+    }
+
+    /**
+     * Returns the half width of the 95 % confidence interval of {@link #getEloDifference()}.
+     * Infinite if the interval reaches a score of 0 or 1.
+     */
+    public double getEloErrorMargin() {
+        double margin = Z_95*Math.sqrt(getScoreVariance() / getNumGames());
+        double score = getScore();
+        double upper = toEloDifference(Math.min(score + margin, 1));
+        double lower = toEloDifference(Math.max(score - margin, 0));
+        return Double.isInfinite(upper) || Double.isInfinite(lower) ? Double.POSITIVE_INFINITY : (upper - lower) / 2;
+    }
+
+    /**
+     * Returns the log-likelihood ratio of the hypothesis that player 1 is elo1 points stronger
+     * against the hypothesis that it is elo0 points stronger.
+     */
+    public double getSprtLogLikelihoodRatio(double elo0, double elo1) {
+        double score = getScore();
+        double score0 = toScore(elo0);
+        double score1 = toScore(elo1);
+        double variance = getScoreVariance();
+        if (variance == 0) { // all games ended the same
+            return Math.signum(2*score - score0 - score1) * Double.POSITIVE_INFINITY;
+        }
+        return getNumGames() * (score1 - score0) * (2*score - score0 - score1) / (2*variance);
+    }
+
+    /**
+     * Tests whether player 1 is at least elo1 points stronger (H1) rather than
+     * at most elo0 points stronger (H0), with error probabilities alpha and beta.
+     */
+    public SprtDecision getSprtDecision(double elo0, double elo1, double alpha, double beta) {
+        double llr = getSprtLogLikelihoodRatio(elo0, elo1);
+        if (llr >= Math.log((1 - beta) / alpha)) {
+            return SprtDecision.ACCEPT_H1;
+        } else if (llr <= Math.log(beta / (1 - alpha))) {
+            return SprtDecision.ACCEPT_H0;
+        } else {
+            return SprtDecision.CONTINUE;
+        }
+    }
+
+    private static double toEloDifference(double score) {
+        return -400*Math.log10(1/score - 1);
+    }
+
+    private static double toScore(double eloDifference) {
+        return 1 / (1 + Math.pow(10, -eloDifference/400));
+    }
+
+    private static double square(double x) {
+        return x*x;
+    }
+
+    /** Returns a report of the results, with the SPRT decision for the given parameters. */
+    public String toReport(TournamentParams params) {
+        return String.format("%s vs %s: %d games in %.1f s%n", player1Name, player2Name, getNumGames(), elapsedMillis/1000.0)
+                + String.format("  +%d =%d -%d, score %.3f%n", wins, draws, losses, getScore())
+                + String.format("  Elo difference %.1f +/- %.1f (95 %%)%n", getEloDifference(), getEloErrorMargin())
+                + String.format("  SPRT(%.0f, %.0f): LLR %.2f, %s%n", params.sprtElo0, params.sprtElo1,
+                        getSprtLogLikelihoodRatio(params.sprtElo0, params.sprtElo1),
+                        getSprtDecision(params.sprtElo0, params.sprtElo1, params.sprtAlpha, params.sprtBeta))
+                + "  " + player1Name + ": " + player1Stats + String.format("%n")
+                + "  " + player2Name + ": " + player2Stats + String.format("%n");
+    }
+
+    @Override
+    public String toString() {
+        return "TournamentResult{" + player1Name + " vs " + player2Name
+                + ", +" + wins + " =" + draws + " -" + losses + "}";
+    }
+
+
+    /**
+     * Time used and, for MCTS players, rollouts and game tree size.
+     */
+    public static class PlayerStats {
+        private int numMoves;
+        private long thinkTimeNanos;
+        private long numRollouts;
+        private int peakTreeSize;
+
+        void addMove(long thinkTimeNanos, int numRollouts, int treeSize) {
+            this.numMoves++;
+            this.thinkTimeNanos += thinkTimeNanos;
+            this.numRollouts += numRollouts;
+            this.peakTreeSize = Math.max(peakTreeSize, treeSize);
+        }
+
+        void add(PlayerStats other) {
+            this.numMoves += other.numMoves;
+            this.thinkTimeNanos += other.thinkTimeNanos;
+            this.numRollouts += other.numRollouts;
+            this.peakTreeSize = Math.max(peakTreeSize, other.peakTreeSize);
+        }
+
+        public int getNumMoves() {
+            return numMoves;
+        }
+
+        public double getAverageThinkTimeMillis() {
+            return numMoves > 0 ? thinkTimeNanos / 1e6 / numMoves : 0;
+        }
+
+        public long getNumRollouts() {
+            return numRollouts;
+        }
+
+        public double getRolloutsPerSecond() {
+            return thinkTimeNanos > 0 ? numRollouts / (thinkTimeNanos / 1e9) : 0;
+        }
+
+        /** Returns the largest number of game tree nodes after planning a move. */
+        public int getPeakTreeSize() {
+            return peakTreeSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d moves, %.1f ms/move, %.0f rollouts/s, peak tree size %d",
+                    numMoves, getAverageThinkTimeMillis(), getRolloutsPerSecond(), peakTreeSize);
+        }
+    }
+}
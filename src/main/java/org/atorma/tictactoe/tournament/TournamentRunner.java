@@ -0,0 +1,58 @@
+package org.atorma.tictactoe.tournament;
+
+import org.atorma.tictactoe.application.PlayerInfo;
+import org.atorma.tictactoe.application.PlayerRegistry;
+import org.atorma.tictactoe.application.impl.InMemoryPlayerRegistry;
+import org.atorma.tictactoe.game.player.mcts.PlanningExecutor;
+
+/**
+ * Runs a {@link Tournament} between two AI players of {@link InMemoryPlayerRegistry}
+ * from the command line, without the web application:
+ * <pre>
+ * java -cp target/classes:target/dependency/* org.atorma.tictactoe.tournament.TournamentRunner \
+ *     player1 player2 [games] [rows] [columns] [connectHowMany] [parallelGames]
+ * </pre>
+ * Players are given by id or name, for example "MCTS naive heuristics" "Naive heuristics".
+ */
+public class TournamentRunner {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: TournamentRunner player1 player2 [games] [rows] [columns] [connectHowMany] [parallelGames]");
+            System.exit(1);
+        }
+
+        TournamentParams params = new TournamentParams();
+        params.numGames = args.length > 2 ? Integer.parseInt(args[2]) : params.numGames;
+        params.boardRows = args.length > 3 ? Integer.parseInt(args[3]) : params.boardRows;
+        params.boardColumns = args.length > 4 ? Integer.parseInt(args[4]) : params.boardColumns;
+        params.connectHowMany = args.length > 5 ? Integer.parseInt(args[5]) : params.connectHowMany;
+        params.numParallelGames = args.length > 6 ? Integer.parseInt(args[6]) : params.numParallelGames;
+
+        PlanningExecutor planningExecutor = new PlanningExecutor(Runtime.getRuntime().availableProcessors());
+        try {
+            PlayerRegistry playerRegistry = new InMemoryPlayerRegistry(planningExecutor);
+            PlayerInfo player1 = findPlayer(playerRegistry, args[0]);
+            PlayerInfo player2 = findPlayer(playerRegistry, args[1]);
+
+            Tournament tournament = new Tournament(
+                    () -> playerRegistry.createPlayer(player1),
+                    () -> playerRegistry.createPlayer(player2),
+                    params);
+            System.out.print(tournament.run().toReport(params));
+        } finally {
+            planningExecutor.shutdown();
+        }
+    }
+
+    private static PlayerInfo findPlayer(PlayerRegistry playerRegistry, String idOrName) {
+        PlayerInfo playerInfo = playerRegistry.getPlayerInfoList().stream()
+                .filter(info -> info.getId().equals(idOrName) || info.getName().equalsIgnoreCase(idOrName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown player " + idOrName + ". Players: " + playerRegistry.getPlayerInfoList()));
+        if (playerInfo.getType() != PlayerInfo.Type.AI) {
+            throw new IllegalArgumentException("Only AI players can play in a tournament: " + playerInfo);
+        }
+        return playerInfo;
+    }
+}
@@ -2,6 +2,7 @@ package org.atorma.tictactoe;
 
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 
@@ -9,6 +10,7 @@ import org.springframework.test.context.web.WebAppConfiguration;
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringApplicationConfiguration(classes = TicTacToeApplication.class)
 @WebAppConfiguration
+@TestPropertySource(properties = "game.repository=memory")
 public abstract class ApplicationTests {
 
 }
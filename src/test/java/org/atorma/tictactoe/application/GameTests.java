@@ -9,6 +9,7 @@ import org.atorma.tictactoe.game.player.human.HumanPlayer;
 import org.atorma.tictactoe.game.state.Cell;
 import org.atorma.tictactoe.game.state.GameState;
 import org.atorma.tictactoe.game.state.Piece;
+import org.atorma.tictactoe.game.state.Threats;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -24,15 +25,13 @@ public class GameTests extends UnitTests {
 
     @Mock private Player xPlayer;
     @Mock private Player oPlayer;
-    @Mock private GameState state;
+    private GameState state = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
 
 
     @Before
     public void setUp() {
         when(xPlayer.getPiece()).thenReturn(Piece.X);
         when(oPlayer.getPiece()).thenReturn(Piece.O);
-
-        when(state.getCopy()).thenReturn(state);
     }
 
     @Test
@@ -41,7 +40,7 @@ public class GameTests extends UnitTests {
 
         assertSame(xPlayer, game.getPlayers().get(Piece.X));
         assertSame(oPlayer, game.getPlayers().get(Piece.O));
-        assertEquals(state.getCopy(), game.getState());
+        assertEquals(state.getHash(), game.getState().getHash());
         assertNull(game.getLastMove());
         assertEquals(1, game.getTurnNumber());
         assertNotNull(game.getId());
@@ -49,49 +48,65 @@ public class GameTests extends UnitTests {
 
     @Test
     public void play_turns() {
-        GameState initialState = state;
-        when(initialState.getNextPlayer()).thenReturn(Piece.X);
-        Game game = new Game(xPlayer, oPlayer, initialState);
+        Game game = new Game(xPlayer, oPlayer, state);
 
-        Cell xPlayerMove = new Cell(5, 5);
-        when(xPlayer.move(initialState, null)).thenReturn(xPlayerMove);
-        GameState afterXPlayerMove = mock(GameState.class);
-        when(initialState.next(xPlayerMove)).thenReturn(afterXPlayerMove);
-        when(afterXPlayerMove.getNextPlayer()).thenReturn(Piece.O);
+        Cell xPlayerMove = new Cell(1, 1);
+        when(xPlayer.move(any(GameState.class), (Cell) isNull())).thenReturn(xPlayerMove);
 
-        game.playTurn(new TurnParams(1, new Cell(1, 1)));
+        game.playTurn(new TurnParams(1, new Cell(0, 0)));
 
-        assertEquals(afterXPlayerMove, game.getState());
+        assertEquals(state.next(xPlayerMove).getHash(), game.getState().getHash());
         assertEquals(xPlayerMove, game.getLastMove().getCell());
         assertEquals(2, game.getTurnNumber());
 
-        Cell oPlayerMove = new Cell(6, 6);
-        when(oPlayer.move(afterXPlayerMove, xPlayerMove)).thenReturn(oPlayerMove);
-        GameState afterOPlayerMove = mock(GameState.class);
-        when(afterXPlayerMove.next(oPlayerMove)).thenReturn(afterOPlayerMove);
-        when(afterOPlayerMove.getNextPlayer()).thenReturn(Piece.X);
+        Cell oPlayerMove = new Cell(2, 2);
+        when(oPlayer.move(any(GameState.class), eq(xPlayerMove))).thenReturn(oPlayerMove);
 
         game.playTurn(new TurnParams(2, new Cell(0, 0)));
 
-        assertEquals(afterOPlayerMove, game.getState());
+        assertEquals(state.next(xPlayerMove).next(oPlayerMove).getHash(), game.getState().getHash());
         assertEquals(oPlayerMove, game.getLastMove().getCell());
         assertEquals(3, game.getTurnNumber());
     }
 
+    @Test
+    public void players_are_given_states_of_their_own_with_indexes_kept_up_to_date() {
+        GameState initialState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[5][5]).setNextPlayer(Piece.X).build();
+        Game game = new Game(xPlayer, oPlayer, initialState);
+        GameState[] givenStates = new GameState[2];
+        when(xPlayer.move(any(GameState.class), (Cell) isNull())).thenAnswer(invocation -> {
+            givenStates[0] = invocation.getArgumentAt(0, GameState.class);
+            givenStates[0].getThreats();
+            return new Cell(2, 2);
+        });
+        when(oPlayer.move(any(GameState.class), any(Cell.class))).thenAnswer(invocation -> {
+            givenStates[1] = invocation.getArgumentAt(0, GameState.class);
+            return new Cell(0, 0);
+        });
+        GameState stateBeforeTurns = game.getState();
+
+        game.playTurn(new TurnParams(1, null));
+        game.playTurn(new TurnParams(2, null));
+
+        assertNotSame(stateBeforeTurns, givenStates[0]);
+        assertNotSame(givenStates[0], givenStates[1]);
+        assertSame(Piece.X, givenStates[1].getPiece(2, 2));
+        Threats expected = initialState.next(new Cell(2, 2)).getThreats();
+        assertFalse(expected.getOpenThreatMoves(Piece.X).isEmpty());
+        for (Piece piece : Piece.values()) {
+            assertEquals(expected.getOpenThreatMoves(piece), givenStates[1].getThreats().getOpenThreatMoves(piece));
+        }
+    }
+
     @Test
     public void when_next_player_is_human_then_sets_next_move_from_turn_params() {
         HumanPlayer humanPlayer = mock(HumanPlayer.class);
         when(humanPlayer.getPiece()).thenReturn(Piece.X);
 
-        GameState initialState = state;
-        when(initialState.getNextPlayer()).thenReturn(Piece.X);
-        Game game = new Game(humanPlayer, oPlayer, initialState);
+        Game game = new Game(humanPlayer, oPlayer, state);
 
-        Cell humanPlayerMove = new Cell(5, 5);
-        when(humanPlayer.move(initialState, null)).thenReturn(humanPlayerMove);
-        GameState nextState = mock(GameState.class);
-        when(initialState.next(humanPlayerMove)).thenReturn(nextState);
-        when(nextState.getNextPlayer()).thenReturn(Piece.O);
+        Cell humanPlayerMove = new Cell(1, 1);
+        when(humanPlayer.move(any(GameState.class), (Cell) isNull())).thenReturn(humanPlayerMove);
 
         game.playTurn(new TurnParams(1, humanPlayerMove));
 
@@ -100,20 +115,18 @@ public class GameTests extends UnitTests {
 
     @Test(expected = TicTacToeException.class)
     public void when_trying_to_play_turn_with_wrong_turn_number_then_exception() {
-        GameState initialState = state;
-        when(initialState.getNextPlayer()).thenReturn(Piece.X);
-        Game game = new Game(xPlayer, oPlayer, initialState);
+        Game game = new Game(xPlayer, oPlayer, state);
 
         game.playTurn(new TurnParams(10, null));
     }
 
     @Test
-    public void when_turn_played_then_last_played_timestamp_updated() {
+    public void when_turn_played_then_last_played_timestamp_updated() throws InterruptedException {
         Game game = new Game(xPlayer, oPlayer, state);
-        when(state.getNextPlayer()).thenReturn(Piece.X);
         when(xPlayer.move(any(GameState.class), any(Cell.class))).thenReturn(new Cell(2, 2));
 
         ZonedDateTime beforePlay = game.getTimeLastPlayed();
+        Thread.sleep(5); // the clock may tick in milliseconds
 
         game.playTurn(new TurnParams(1, new Cell(1, 1)));
 
@@ -121,4 +134,16 @@ public class GameTests extends UnitTests {
 
         assertTrue(afterPlay.isAfter(beforePlay));
     }
+
+    @Test
+    public void when_turn_played_then_metrics_receive_player() {
+        GameMetrics metrics = mock(GameMetrics.class);
+        Game game = new Game(xPlayer, oPlayer, state, metrics);
+        when(xPlayer.move(any(GameState.class), any(Cell.class))).thenReturn(new Cell(2, 2));
+
+        game.playTurn(new TurnParams(1, new Cell(1, 1)));
+
+        verify(metrics).turnPlayed(same(xPlayer), anyLong());
+        verifyNoMoreInteractions(metrics);
+    }
 }
@@ -0,0 +1,96 @@
+package org.atorma.tictactoe.application.impl;
+
+import com.codahale.metrics.MetricRegistry;
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.player.mcts.MCTSParameters;
+import org.atorma.tictactoe.game.player.mcts.MCTSPlayer;
+import org.atorma.tictactoe.game.player.mcts.PlanningExecutor;
+import org.atorma.tictactoe.game.player.mcts.PlanningStats;
+import org.atorma.tictactoe.game.player.naive.NaivePlayer;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class DropwizardGameMetricsTests {
+
+    private MetricRegistry registry = new MetricRegistry();
+    private DropwizardGameMetrics metrics = new DropwizardGameMetrics(registry);
+    private PlanningExecutor planningExecutor = new PlanningExecutor(1);
+
+    @After
+    public void tearDown() {
+        planningExecutor.shutdown();
+    }
+
+    @Test
+    public void records_turn_time_per_player_type() {
+        metrics.turnPlayed(new NaivePlayer(), 2000000);
+        metrics.turnPlayed(new NaivePlayer(), 4000000);
+
+        assertEquals(2, registry.timer("game.turn.NaivePlayer").getCount());
+        assertEquals(3000000, registry.timer("game.turn.NaivePlayer").getSnapshot().getMean(), 1);
+        assertEquals(0, registry.counter("mcts.moves").getCount());
+    }
+
+    @Test
+    public void records_mcts_planning() {
+        MCTSParameters params = new MCTSParameters();
+        params.numPlanningThreads = 1;
+        params.maxRolloutsNum = 100;
+        MCTSPlayer player = new MCTSPlayer(params, planningExecutor);
+        player.setPiece(Piece.X);
+        GameState state = GameState.builder()
+                .setConnectHowMany(3)
+                .setBoard(new Piece[3][3])
+                .setNextPlayer(Piece.X)
+                .build();
+
+        Cell move = player.move(state, null);
+        metrics.turnPlayed(player, 1000000);
+        state = state.next(move);
+        state.update(new Cell(move.getRow() == 0 ? 1 : 0, 0));
+        player.move(state, new Cell(move.getRow() == 0 ? 1 : 0, 0));
+        metrics.turnPlayed(player, 1000000);
+
+        PlanningStats stats = player.getLastPlanningStats();
+        assertEquals(100, stats.getNumRollouts());
+        assertTrue(stats.getTreeSize() > 1);
+        assertTrue(stats.getMaxDepth() >= 1);
+        assertTrue(stats.getSimulationNanos() > 0);
+        assertEquals(2, registry.timer("game.turn.MCTSPlayer").getCount());
+        assertEquals(2, registry.counter("mcts.moves").getCount());
+        assertEquals(2, registry.histogram("mcts.treeSize").getCount());
+        assertEquals(2, registry.timer("mcts.simulation").getCount());
+        assertTrue(registry.getGauges().containsKey("mcts.stateReconstructions"));
+    }
+
+    @Test
+    public void records_mcts_planning_in_arena_tree() {
+        MCTSParameters params = new MCTSParameters();
+        params.numPlanningThreads = 1;
+        params.maxRolloutsNum = 100;
+        params.treeStore = MCTSParameters.TreeStore.ARENA;
+        MCTSPlayer player = new MCTSPlayer(params, planningExecutor);
+        player.setPiece(Piece.X);
+        GameState state = GameState.builder()
+                .setConnectHowMany(3)
+                .setBoard(new Piece[3][3])
+                .setNextPlayer(Piece.X)
+                .build();
+
+        player.move(state, null);
+        metrics.turnPlayed(player, 1000000);
+
+        assertNull(player.getLastMove()); // no node objects in an arena
+        assertEquals(100, player.getLastPlanningStats().getNumRollouts());
+        assertEquals(1, registry.counter("mcts.moves").getCount());
+        assertEquals(1, registry.histogram("mcts.treeSize").getCount());
+        assertEquals(1, registry.timer("mcts.simulation").getCount());
+    }
+}
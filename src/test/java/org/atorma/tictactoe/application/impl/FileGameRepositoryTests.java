@@ -0,0 +1,179 @@
+package org.atorma.tictactoe.application.impl;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.application.Game;
+import org.atorma.tictactoe.application.GameFactory;
+import org.atorma.tictactoe.application.GameMetrics;
+import org.atorma.tictactoe.application.GameParams;
+import org.atorma.tictactoe.application.PlayerInfo;
+import org.atorma.tictactoe.application.PlayerRegistry;
+import org.atorma.tictactoe.controller.TurnParams;
+import org.atorma.tictactoe.exception.NotFoundException;
+import org.atorma.tictactoe.game.player.mcts.PlanningExecutor;
+import org.atorma.tictactoe.game.player.naive.NaivePlayer;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class FileGameRepositoryTests {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private PlanningExecutor planningExecutor = new PlanningExecutor(1);
+    private PlayerRegistry playerRegistry = new InMemoryPlayerRegistry(planningExecutor);
+    private GameFactory gameFactory = new GameFactory(playerRegistry, GameMetrics.NONE);
+    private FileGameRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = openRepository(1000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.close();
+        planningExecutor.shutdown();
+    }
+
+    private FileGameRepository openRepository(int compactAfterEvents) throws Exception {
+        FileGameRepository repository = new FileGameRepository(gameFactory, playerRegistry, folder.getRoot().getPath(), compactAfterEvents);
+        repository.restoreGames();
+        return repository;
+    }
+
+    private FileGameRepository reopenRepository(int compactAfterEvents) throws Exception {
+        repository.close();
+        repository = openRepository(compactAfterEvents);
+        return repository;
+    }
+
+    private Game createGame() {
+        GameParams params = new GameParams();
+        params.connectHowMany = 4;
+        params.firstPlayer = Piece.O;
+        params.board.rows = 5;
+        params.board.columns = 6;
+        params.players.put(Piece.X, findPlayerInfo("Naive heuristics"));
+        params.players.put(Piece.O, findPlayerInfo("Uniform random"));
+        return repository.save(gameFactory.createGame(params));
+    }
+
+    private PlayerInfo findPlayerInfo(String name) {
+        return playerRegistry.getPlayerInfoList().stream().filter(x -> x.getName().equals(name)).findFirst().get();
+    }
+
+    private void playTurns(Game game, int numTurns) {
+        for (int i = 0; i < numTurns; i++) {
+            game.playTurn(new TurnParams(game.getTurnNumber(), null));
+            repository.save(game);
+        }
+    }
+
+
+    @Test
+    public void games_are_restored_with_their_moves_after_reopening() throws Exception {
+        Game game = createGame();
+        playTurns(game, 5);
+        Game otherGame = createGame();
+
+        reopenRepository(1000);
+
+        Game restoredGame = repository.findById(game.getId());
+        assertNotSame(game, restoredGame);
+        assertEquals(6, restoredGame.getTurnNumber());
+        assertEquals(game.getState().getNextPlayer(), restoredGame.getState().getNextPlayer());
+        assertEquals(game.getState().getConnectHowMany(), restoredGame.getState().getConnectHowMany());
+        assertEquals(game.getTimeLastPlayed().toInstant(), restoredGame.getTimeLastPlayed().toInstant());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(game.getMoves().get(i).getPiece(), restoredGame.getMoves().get(i).getPiece());
+            assertEquals(game.getMoves().get(i).getCell(), restoredGame.getMoves().get(i).getCell());
+        }
+        assertThat(restoredGame.getPlayers().get(Piece.X), instanceOf(NaivePlayer.class));
+        assertEquals(1, repository.findById(otherGame.getId()).getTurnNumber());
+
+        playTurns(restoredGame, 1); // the restored game goes on and is stored
+        reopenRepository(1000);
+        assertEquals(7, repository.findById(game.getId()).getTurnNumber());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void deleted_games_are_not_restored() throws Exception {
+        Game game = createGame();
+        playTurns(game, 2);
+        repository.delete(game);
+
+        reopenRepository(1000);
+
+        repository.findById(game.getId());
+    }
+
+    @Test
+    public void log_is_compacted_into_snapshot() throws Exception {
+        reopenRepository(3);
+        Game game = createGame();
+        playTurns(game, 4);
+        Game deletedGame = createGame();
+        repository.delete(deletedGame);
+
+        reopenRepository(3);
+
+        Path logFile = folder.getRoot().toPath().resolve(GameFileStore.LOG_FILE);
+        assertEquals(0, Files.size(logFile));
+        assertEquals(5, repository.findById(game.getId()).getTurnNumber());
+        try {
+            repository.findById(deletedGame.getId());
+            fail();
+        } catch (NotFoundException e) {
+            // OK
+        }
+    }
+
+    @Test
+    public void after_crash_moves_already_in_snapshot_and_line_cut_short_are_skipped() throws Exception {
+        Game game = createGame();
+        playTurns(game, 2);
+        repository.close();
+        Path logFile = folder.getRoot().toPath().resolve(GameFileStore.LOG_FILE);
+        Cell secondMove = game.getMoves().get(1).getCell();
+        String log = "{\"type\":\"moved\",\"gameId\":\"" + game.getId() + "\",\"turnNumber\":2,\"move\":["
+                + secondMove.getRow() + "," + secondMove.getColumn() + "],\"time\":0}\n"
+                + "{\"type\":\"moved\",\"gameId\":\"";
+        Files.write(logFile, log.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        repository = openRepository(1000);
+
+        Game restoredGame = repository.findById(game.getId());
+        assertEquals(3, restoredGame.getTurnNumber());
+        assertEquals(game.getTimeLastPlayed().toInstant(), restoredGame.getTimeLastPlayed().toInstant());
+    }
+
+    @Test
+    public void games_created_without_game_factory_are_kept_in_memory_only() throws Exception {
+        Game game = new Game(new NaivePlayer(), new NaivePlayer(), gameFactory.createGame(createGame().getParams()).getState());
+        repository.save(game);
+        assertSame(game, repository.findById(game.getId()));
+
+        reopenRepository(1000);
+
+        try {
+            repository.findById(game.getId());
+            fail();
+        } catch (NotFoundException e) {
+            // OK
+        }
+    }
+}
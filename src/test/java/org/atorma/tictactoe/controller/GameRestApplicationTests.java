@@ -19,15 +19,18 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Category(FastTests.class)
@@ -240,9 +243,13 @@ public class GameRestApplicationTests extends ApplicationMvcTests {
                 .end()
                 .toString();
 
-        mockMvc.perform(post("/games/{id}/turns", aiVsAiGame.getId())
+        MvcResult mvcResult = mockMvc.perform(post("/games/{id}/turns", aiVsAiGame.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(turnJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.move.piece").value(aiVsAiGame.getLastMove().getPiece().toString()))
@@ -267,9 +274,13 @@ public class GameRestApplicationTests extends ApplicationMvcTests {
                 .end()
                 .toString();
 
-        mockMvc.perform(post("/games/{id}/turns", humanVsAiGame.getId())
+        MvcResult mvcResult = mockMvc.perform(post("/games/{id}/turns", humanVsAiGame.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(turnJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.move.piece").value(humanVsAiGame.getLastMove().getPiece().toString()))
@@ -302,12 +313,53 @@ public class GameRestApplicationTests extends ApplicationMvcTests {
                 .end()
                 .toString();
 
-        mockMvc.perform(post("/games/{id}/turns", aiVsAiGame.getId())
+        MvcResult mvcResult = mockMvc.perform(post("/games/{id}/turns", aiVsAiGame.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(turnJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void http_bad_request_if_game_deleted_while_playing_turn() throws Exception {
+        aiVsAiGame.addTurnListener(game -> gameRepository.delete(game));
+        String turnJson = JsonBuilderFactory.buildObject()
+                    .add("turnNumber", aiVsAiGame.getTurnNumber())
+                .end()
+                .toString();
+
+        MvcResult mvcResult = mockMvc.perform(post("/games/{id}/turns", aiVsAiGame.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(turnJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void streams_turns_as_server_sent_events_until_game_ends() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/games/{id}/turns", aiVsAiGame.getId())
+                .accept("text/event-stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        while (!aiVsAiGame.getState().isAtEnd()) {
+            aiVsAiGame.playTurn(new TurnParams(aiVsAiGame.getTurnNumber(), null));
+        }
+
+        String events = mvcResult.getResponse().getContentAsString();
+        assertThat(events, startsWith("data:{"));
+        assertThat(events, containsString("\"id\":\"" + aiVsAiGame.getId() + "\""));
+        assertThat(events, containsString("\"turnNumber\":1,"));
+        assertThat(events, containsString("\"turnNumber\":" + aiVsAiGame.getTurnNumber() + ","));
+        assertThat(events, containsString("\"gameEnded\":true"));
+    }
+
     @Test(expected = NotFoundException.class)
     public void delete_game() throws Exception {
         mockMvc.perform(delete("/games/{id}", aiVsAiGame.getId()))
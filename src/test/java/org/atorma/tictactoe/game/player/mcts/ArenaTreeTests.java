@@ -0,0 +1,350 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.state.*;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class ArenaTreeTests {
+
+    private GameState emptyState(int size, int connectHowMany) {
+        return GameState.builder().setConnectHowMany(connectHowMany).setBoard(new Piece[size][size]).setNextPlayer(Piece.X).build();
+    }
+
+    @Test
+    public void find_move_expands_move_once_and_replays_its_state() {
+        ArenaTree tree = new ArenaTree(emptyState(3, 3), null, new WinLossDrawScheme(), 100);
+        int root = tree.getRoot();
+        assertNull(tree.getMove(root));
+        assertFalse(tree.hasChildren(root));
+
+        int child = tree.findMoveTo(root, new Cell(1, 1));
+        assertEquals(new Cell(1, 1), tree.getMove(child));
+        assertEquals(child, (int) tree.findMoveTo(root, new Cell(1, 1)));
+        assertEquals(root, (int) tree.getParent(child));
+        assertEquals(2, tree.size());
+
+        int grandChild = tree.findMoveTo(child, new Cell(0, 0));
+        GameState state = tree.getGameState(grandChild);
+        assertEquals(Piece.X, state.getPiece(1, 1));
+        assertEquals(Piece.O, state.getPiece(0, 0));
+        assertEquals(Piece.X, state.getNextPlayer());
+        assertEquals(Piece.O, tree.getNextPlayer(child));
+
+        assertNull(tree.findMoveTo(grandChild, new Cell(1, 1))); // occupied
+    }
+
+    @Test
+    public void end_state_has_no_moves_to_expand() {
+        Piece[][] board = {
+                {Piece.X, Piece.O, null},
+                {Piece.O, Piece.X, null},
+                {null,    null,    null}
+        };
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(board).setNextPlayer(Piece.X).build();
+        ArenaTree tree = new ArenaTree(state, null, new WinLossDrawScheme(), 100);
+
+        int win = tree.findMoveTo(tree.getRoot(), new Cell(2, 2));
+        assertTrue(tree.isEndState(win));
+        assertNull(tree.expandRandom(win));
+        assertNull(tree.findMoveTo(win, new Cell(0, 2)));
+    }
+
+    @Test
+    public void expand_random_in_frontier_expands_each_move_in_it_once() {
+        GameState state = emptyState(18, 5).next(new Cell(0, 1));
+        ArenaTree tree = new ArenaTree(state, new Cell(0, 1), new WinLossDrawScheme(), 100);
+
+        Set<Cell> expanded = new HashSet<>();
+        Integer child;
+        while ((child = tree.expandRandomIn(tree.getRoot(), state.getFrontier(1))) != null) {
+            assertTrue(expanded.add(tree.getMove(child)));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(
+                new Cell(0, 0), new Cell(0, 2),
+                new Cell(1, 0), new Cell(1, 1), new Cell(1, 2))), expanded);
+        assertEquals(5, tree.getChildren(tree.getRoot()).size());
+    }
+
+    @Test
+    public void expand_best_expands_win_then_block_then_move_next_to_most_pieces() {
+        GameState state = GameState.builder().setConnectHowMany(4).setBoard(new Piece[][]{
+                {Piece.O, Piece.O, Piece.O, null, null},
+                {null, null, null, null, null},
+                {Piece.X, Piece.X, Piece.X, null, null},
+                {null, null, null, null, null},
+                {null, null, null, null, null}
+        }).setNextPlayer(Piece.X).build();
+        ArenaTree tree = new ArenaTree(state, null, new WinLossDrawScheme(), 100);
+
+        assertEquals(new Cell(2, 3), tree.getMove(tree.expandBestIn(tree.getRoot(), null)));
+        assertEquals(new Cell(0, 3), tree.getMove(tree.expandBestIn(tree.getRoot(), state.getFrontier(1))));
+        assertEquals(new Cell(1, 1), tree.getMove(tree.expandBestIn(tree.getRoot(), null)));
+        assertEquals(3, tree.getNumChildren(tree.getRoot()));
+    }
+
+    @Test
+    public void records_same_statistics_as_move_nodes() {
+        GameState state = emptyState(3, 3);
+        ArenaTree tree = new ArenaTree(state, null, new WinLossDrawScheme(), 100);
+        MoveNode root = new MoveNode(state, null, new WinLossDrawScheme());
+
+        Cell[][] games = {
+                {new Cell(0, 0), new Cell(1, 0), new Cell(1, 1), new Cell(2, 0), new Cell(2, 2)},
+                {new Cell(0, 0), new Cell(1, 1), new Cell(0, 1), new Cell(0, 2), new Cell(2, 1), new Cell(2, 0)},
+                {new Cell(1, 1), new Cell(0, 0)}
+        };
+        for (Cell[] game : games) {
+            int arenaNode = tree.getRoot();
+            MoveNode node = root;
+            for (Cell move : game) {
+                arenaNode = tree.findMoveTo(arenaNode, move);
+                node = node.findMoveTo(move);
+            }
+            GameState endState = node.getGameState();
+            tree.propagateSimulatedResult(arenaNode, endState);
+            node.propagateSimulatedResult(endState);
+        }
+
+        assertSameStatistics(root, tree, tree.getRoot());
+    }
+
+    @Test
+    public void records_same_amaf_statistics_as_move_nodes() {
+        GameState state = emptyState(3, 3);
+        ArenaTree tree = new ArenaTree(state, null, new RaveScheme(new WinLossDrawScheme()), 100);
+        MoveNode root = new MoveNode(state, null, new RaveScheme(new WinLossDrawScheme()));
+        for (Cell move : Arrays.asList(new Cell(0, 0), new Cell(1, 1), new Cell(2, 2), new Cell(0, 2))) {
+            tree.findMoveTo(tree.getRoot(), move);
+            root.findMoveTo(move);
+        }
+
+        Cell[][] games = {
+                {new Cell(0, 0), new Cell(1, 0), new Cell(1, 1), new Cell(2, 0), new Cell(2, 2)},
+                {new Cell(0, 2), new Cell(1, 1), new Cell(0, 0), new Cell(0, 1), new Cell(2, 1), new Cell(2, 0)},
+                {new Cell(1, 1), new Cell(0, 0)}
+        };
+        for (Cell[] game : games) {
+            int arenaNode = tree.findMoveTo(tree.getRoot(), game[0]);
+            MoveNode node = root.findMoveTo(game[0]);
+            GameState endState = node.getGameState().getCopy();
+            for (int i = 1; i < game.length; i++) {
+                endState.update(game[i]);
+            }
+            tree.propagateSimulatedResult(arenaNode, endState);
+            node.propagateSimulatedResult(endState);
+        }
+
+        assertSameStatistics(root, tree, tree.getRoot());
+        assertEquals(2, tree.getNumAmafPlays(tree.findMoveTo(tree.getRoot(), new Cell(0, 0))));
+    }
+
+    @Test
+    public void records_batched_results_like_move_nodes_record_separate_results() {
+        GameState state = emptyState(3, 3);
+        RewardScheme rewardScheme = new RaveScheme(new WinLossDrawScheme());
+        ArenaTree tree = new ArenaTree(state, null, rewardScheme, 100);
+        MoveNode root = new MoveNode(state, null, rewardScheme);
+        for (Cell move : Arrays.asList(new Cell(0, 0), new Cell(1, 1), new Cell(2, 2))) {
+            tree.findMoveTo(tree.findMoveTo(tree.getRoot(), move), new Cell(0, 2));
+            root.findMoveTo(move).findMoveTo(new Cell(0, 2));
+        }
+
+        Cell[][] games = {
+                {new Cell(0, 0), new Cell(1, 0), new Cell(2, 2)},
+                {new Cell(2, 0), new Cell(0, 1), new Cell(2, 1), new Cell(0, 0)},
+        };
+        MoveNode node = root.findMoveTo(new Cell(1, 1)).findMoveTo(new Cell(0, 2));
+        SimulationResults results = new SimulationResults();
+        results.reset(rewardScheme, 3, 3);
+        for (Cell[] game : games) {
+            GameState endState = node.getGameState().getCopy();
+            for (Cell move : game) {
+                endState.update(move);
+            }
+            node.propagateSimulatedResult(endState);
+            results.add(endState.getWinner(), endState.getLongestSequence(Piece.X).getLength(),
+                    endState.getLongestSequence(Piece.O).getLength(), endState::getPiece);
+        }
+        tree.propagateSimulatedResults(tree.findMoveTo(tree.findMoveTo(tree.getRoot(), new Cell(1, 1)), new Cell(0, 2)), results);
+
+        assertSameStatistics(root, tree, tree.getRoot());
+    }
+
+    private void assertSameStatistics(MoveNode node, ArenaTree tree, int arenaNode) {
+        assertEquals(node.getNumPlays(), tree.getNumPlays(arenaNode));
+        assertEquals(node.getNumAmafPlays(), tree.getNumAmafPlays(arenaNode));
+        for (Piece piece : Piece.values()) {
+            assertEquals(node.getWins(piece), tree.getWins(arenaNode, piece));
+            assertEquals(node.getExpectedReward(piece), tree.getExpectedReward(arenaNode, piece), 1e-9);
+            assertEquals(node.getAmafExpectedReward(piece), tree.getAmafExpectedReward(arenaNode, piece), 1e-9);
+        }
+        for (MoveNode child : node.getChildren()) {
+            assertSameStatistics(child, tree, tree.findMoveTo(arenaNode, child.getMove()));
+        }
+    }
+
+    @Test
+    public void expansion_stops_when_arena_is_full_but_game_moves_still_fit() {
+        ArenaTree tree = new ArenaTree(emptyState(18, 5), null, new WinLossDrawScheme(), 10);
+        int expanded = 0;
+        while (tree.expandRandom(tree.getRoot()) != null) {
+            expanded++;
+        }
+        assertEquals(7, expanded); // root + 7 children, 2 slots reserved
+        assertEquals(8, tree.size());
+
+        Cell move = new Cell(17, 17);
+        Integer child = tree.findMoveTo(tree.getRoot(), move);
+        if (child == null || tree.size() > 10) fail("Reserved slot not used");
+        assertEquals(move, tree.getMove(child));
+    }
+
+    @Test
+    public void concurrent_expansion_adds_each_move_once() throws Exception {
+        ArenaTree tree = new ArenaTree(emptyState(10, 5), null, new WinLossDrawScheme(), 1000);
+        int root = tree.getRoot();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            boolean best = i % 2 == 0;
+            results.add(executor.submit(() -> {
+                List<Integer> expanded = new ArrayList<>();
+                Integer child;
+                while ((child = best ? tree.expandBestIn(root, null) : tree.expandRandom(root)) != null) {
+                    expanded.add(child);
+                }
+                return expanded;
+            }));
+        }
+        Set<Cell> allExpanded = new HashSet<>();
+        int numExpanded = 0;
+        for (Future<List<Integer>> result : results) {
+            for (int child : result.get()) {
+                allExpanded.add(tree.getMove(child));
+            }
+            numExpanded += result.get().size();
+        }
+        executor.shutdown();
+
+        assertEquals(100, numExpanded);
+        assertEquals(100, allExpanded.size());
+        assertEquals(100, tree.getNumChildren(root));
+        assertTrue(tree.size() >= 101);
+    }
+
+    @Test
+    public void states_replayed_from_parent_and_from_root_are_the_same() {
+        ArenaTree tree = new ArenaTree(emptyState(5, 4), null, new WinLossDrawScheme(), 1000);
+        int node = tree.getRoot();
+        for (int i = 0; i < 6; i++) {
+            GameState parentState = tree.getGameState(node).getCopy();
+            node = tree.expandRandom(node);
+            GameState fromParent = tree.getGameState(node); // one move after the parent's state
+
+            GameState expected = parentState.next(tree.getMove(node));
+            assertEquals(expected.getHash(), fromParent.getHash());
+            assertEquals(expected.getNumPieces(), fromParent.getNumPieces());
+        }
+        GameState fromParent = tree.getGameState(node).getCopy();
+        tree.getGameState(tree.getRoot());
+        tree.getGameState(tree.getParent(tree.getParent(node)));
+        assertEquals(fromParent.getHash(), tree.getGameState(node).getHash()); // replayed from the root
+    }
+
+    @Test
+    public void arena_is_allocated_in_chunks_as_it_grows_and_freed_by_compaction() {
+        ArenaTree tree = new ArenaTree(emptyState(18, 5), null, new WinLossDrawScheme(), 1 << 20);
+        int chunkSize = tree.getAllocatedCapacity();
+        assertTrue(chunkSize < 1 << 20);
+
+        int node = tree.getRoot();
+        while (tree.size() <= chunkSize) {
+            Integer child = tree.expandRandom(node);
+            node = child != null ? child : tree.expandRandom(tree.getRoot());
+        }
+        assertEquals(2*chunkSize, tree.getAllocatedCapacity());
+
+        tree.pruneDescendantLevelsGreaterThan(tree.getRoot(), 1);
+        assertEquals(chunkSize, tree.getAllocatedCapacity());
+    }
+
+    @Test
+    public void make_root_compacts_subtree_and_keeps_its_statistics() {
+        ArenaTree tree = new ArenaTree(emptyState(5, 4), null, new WinLossDrawScheme(), 1000);
+        int root = tree.getRoot();
+        for (int i = 0; i < 10; i++) {
+            tree.expandRandom(root);
+        }
+        int kept = tree.findMoveTo(root, new Cell(2, 2));
+        for (int i = 0; i < 5; i++) {
+            int grandChild = tree.expandRandom(kept);
+            tree.expandRandom(grandChild);
+            tree.propagateSimulatedResult(grandChild, tree.getGameState(grandChild));
+        }
+        tree.propagateSimulatedResult(kept, tree.getGameState(kept));
+        int plays = tree.getNumPlays(kept);
+        double reward = tree.getExpectedReward(kept, Piece.X);
+        List<Integer> grandChildren = tree.getChildren(kept);
+        Set<Cell> grandChildMoves = new HashSet<>();
+        for (int grandChild : grandChildren) {
+            grandChildMoves.add(tree.getMove(grandChild));
+        }
+
+        int newRoot = tree.makeRoot(kept);
+
+        assertEquals(0, newRoot);
+        assertNull(tree.getParent(newRoot));
+        assertEquals(new Cell(2, 2), tree.getMove(newRoot));
+        assertEquals(1 + 5 + 5, tree.size());
+        assertEquals(plays, tree.getNumPlays(newRoot));
+        assertEquals(reward, tree.getExpectedReward(newRoot, Piece.X), 0);
+        Set<Cell> newGrandChildMoves = new HashSet<>();
+        for (int child : tree.getChildren(newRoot)) {
+            newGrandChildMoves.add(tree.getMove(child));
+            assertEquals(newRoot, (int) tree.getParent(child));
+            assertEquals(1, tree.getChildren(child).size());
+        }
+        assertEquals(grandChildMoves, newGrandChildMoves);
+        assertEquals(Piece.X, tree.getGameState(newRoot).getPiece(2, 2));
+        assertEquals(Piece.O, tree.getNextPlayer(newRoot));
+    }
+
+    @Test
+    public void prune_other_branches_and_descendants_compact_the_arena() {
+        ArenaTree tree = new ArenaTree(emptyState(5, 4), null, new WinLossDrawScheme(), 1000);
+        int root = tree.getRoot();
+        int child = tree.findMoveTo(root, new Cell(0, 0));
+        tree.findMoveTo(root, new Cell(4, 4));
+        int grandChild = tree.findMoveTo(child, new Cell(1, 1));
+        tree.findMoveTo(child, new Cell(3, 3));
+        int greatGrandChild = tree.findMoveTo(grandChild, new Cell(2, 2));
+        tree.expandRandom(greatGrandChild);
+        tree.expandRandom(greatGrandChild);
+        assertEquals(8, tree.size());
+
+        grandChild = tree.pruneOtherBranchesOnPathToRoot(grandChild);
+        assertEquals(6, tree.size());
+        assertEquals(new Cell(1, 1), tree.getMove(grandChild));
+        assertEquals(1, tree.getChildren(tree.getRoot()).size());
+
+        grandChild = tree.pruneDescendantLevelsGreaterThan(grandChild, 1);
+        assertEquals(4, tree.size());
+        assertEquals(new Cell(1, 1), tree.getMove(grandChild));
+        assertEquals(new Cell(2, 2), tree.getMove(tree.getChildren(grandChild).get(0)));
+        assertFalse(tree.hasChildren(tree.getChildren(grandChild).get(0)));
+    }
+}
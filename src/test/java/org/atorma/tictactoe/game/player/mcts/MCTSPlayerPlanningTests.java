@@ -0,0 +1,155 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Planning a single move with a fixed number of rollouts in one thread, to check
+ * what each planning mode leaves in the game tree.
+ */
+@Category(FastTests.class)
+public class MCTSPlayerPlanningTests {
+
+    private PlanningExecutor planningExecutor = new PlanningExecutor(1);
+
+    @After
+    public void tearDown() {
+        planningExecutor.shutdown();
+    }
+
+    private MCTSParameters createParams(int numRollouts) {
+        MCTSParameters params = new MCTSParameters();
+        params.numPlanningThreads = 1;
+        params.maxRolloutsNum = numRollouts;
+        params.maxThinkTimeMillis = 60000;
+        params.pruneSiblings = false;
+        params.pruneParent = false;
+        return params;
+    }
+
+    private MCTSPlayer planFirstMove(MCTSParameters params) {
+        MCTSPlayer player = new MCTSPlayer(params, planningExecutor);
+        player.setPiece(Piece.X);
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[10][10]).setNextPlayer(Piece.X).build();
+        player.move(state, null);
+        return player;
+    }
+
+    private MoveNode getRoot(MCTSPlayer player) {
+        return player.getLastMove().getRoot();
+    }
+
+    private void assertWidenedAtMost(MoveNode node, MCTSParameters params) {
+        double maxChildren = Math.max(1, Math.ceil(params.progressiveWidening*Math.pow(node.getNumPlays(), params.progressiveWideningExponent)));
+        assertTrue(node.getNumChildren() <= maxChildren);
+        for (MoveNode child : node.getChildren()) {
+            assertWidenedAtMost(child, params);
+        }
+    }
+
+    private int sumAmafPlays(MoveNode node) {
+        return node.getChildren().stream().mapToInt(MoveNode::getNumAmafPlays).sum();
+    }
+
+    @Test
+    public void arena_tree_grows_like_object_tree() {
+        MCTSParameters params = createParams(50);
+        params.treeStore = MCTSParameters.TreeStore.ARENA;
+        MCTSPlayer arenaPlayer = planFirstMove(params);
+        params.treeStore = MCTSParameters.TreeStore.OBJECTS;
+        MCTSPlayer objectsPlayer = planFirstMove(params);
+
+        // Each rollout expands one of the 100 moves from the root
+        assertEquals(50, arenaPlayer.getNumRollouts());
+        assertEquals(51, arenaPlayer.getTreeSize());
+        assertEquals(50, objectsPlayer.getNumRollouts());
+        assertEquals(51, objectsPlayer.getTreeSize());
+    }
+
+    @Test
+    public void rave_records_amaf_results_of_moves_played_later() {
+        MCTSParameters params = createParams(50);
+        MoveNode root = getRoot(planFirstMove(params));
+        assertEquals(0, sumAmafPlays(root));
+
+        params.rewardScheme = new RaveScheme(new WinLossDrawScheme());
+        root = getRoot(planFirstMove(params));
+        assertTrue(sumAmafPlays(root) > 0);
+        for (MoveNode child : root.getChildren()) { // own play in addition to those of sibling rollouts
+            assertTrue(child.getNumAmafPlays() >= child.getNumPlays());
+        }
+    }
+
+    @Test
+    public void progressive_widening_limits_children_by_plays() {
+        MCTSParameters params = createParams(60);
+        MoveNode root = getRoot(planFirstMove(params));
+        assertEquals(60, root.getNumChildren());
+
+        params.progressiveWidening = 1;
+        params.progressiveWideningExponent = 0.5;
+        root = getRoot(planFirstMove(params));
+        assertEquals(60, root.getNumPlays());
+        assertTrue(root.getNumChildren() > 1);
+        assertWidenedAtMost(root, params);
+    }
+
+    @Test
+    public void root_parallelism_plans_in_private_trees() {
+        MCTSParameters params = createParams(50);
+        params.parallelism = MCTSParameters.Parallelism.ROOT;
+        params.numPlanningThreads = 2;
+        MCTSPlayer player = planFirstMove(params);
+
+        assertEquals(50, player.getNumRollouts());
+        assertEquals(2 + 50, player.getTreeSize()); // summed over the private trees
+        assertEquals(1, getRoot(player).getNumChildren()); // only the chosen move in the player's tree
+    }
+
+    @Test
+    public void root_parallelism_merges_results_of_each_move_over_trees() {
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(new Piece[5][5]).setNextPlayer(Piece.X).build();
+        MoveNodeTree tree1 = new MoveNodeTree(new MoveNode(state, null, new WinLossDrawScheme()), 100);
+        MoveNodeTree tree2 = new MoveNodeTree(new MoveNode(state, null, new WinLossDrawScheme()), 100);
+        MoveNode center1 = tree1.findMoveTo(tree1.getRoot(), new Cell(2, 2));
+        center1.propagateSimulatedResult(Piece.X, 3, 1);
+        center1.propagateSimulatedResult(Piece.X, 3, 1);
+        center1.propagateSimulatedResult(Piece.O, 1, 3);
+        MoveNode center2 = tree2.findMoveTo(tree2.getRoot(), new Cell(2, 2));
+        center2.propagateSimulatedResult(Piece.O, 1, 3);
+        MoveNode corner2 = tree2.findMoveTo(tree2.getRoot(), new Cell(0, 0));
+        corner2.propagateSimulatedResult(Piece.X, 3, 1);
+
+        Map<Cell, MCTSPlayer.MergedResults> merged = MCTSPlayer.mergeRootResults(Arrays.asList(tree1, tree2), Piece.X);
+
+        assertEquals(2, merged.size());
+        assertEquals(4, merged.get(new Cell(2, 2)).numPlays);
+        assertEquals((3*center1.getExpectedReward(Piece.X) + center2.getExpectedReward(Piece.X))/4,
+                merged.get(new Cell(2, 2)).getExpectedReward(), 1e-9);
+        assertEquals(1, merged.get(new Cell(0, 0)).numPlays);
+        assertEquals(corner2.getExpectedReward(Piece.X), merged.get(new Cell(0, 0)).getExpectedReward(), 1e-9);
+    }
+
+    @Test
+    public void batched_simulations_are_propagated_together() {
+        MCTSParameters params = createParams(25);
+        params.simulationsPerRollout = 4;
+        MoveNode root = getRoot(planFirstMove(params));
+
+        assertEquals(25*4, root.getNumPlays());
+        assertEquals(25, root.getNumChildren());
+        for (MoveNode child : root.getChildren()) {
+            assertEquals(4, child.getNumPlays());
+        }
+    }
+}
@@ -101,6 +101,77 @@ public class MCTSPlayerTests {
         assertEquals(mctsPlayer.getPiece(), endState.getWinner());
     }
 
+    @Test
+    public void keeps_playing_when_arena_tree_is_full() {
+        MCTSParameters params = new MCTSParameters();
+        params.maxThinkTimeMillis = 200;
+        params.treeStore = MCTSParameters.TreeStore.ARENA;
+        params.arenaCapacity = 50;
+        params.pruneSiblings = false;
+        params.pruneParent = false;
+
+        Player mctsPlayer = new MCTSPlayer(params);
+        mctsPlayer.setPiece(Piece.X);
+
+        Player naivePlayer = new NaivePlayer();
+        naivePlayer.setPiece(Piece.O);
+
+        GameState startState = GameState.builder()
+                .setConnectHowMany(3)
+                .setBoard(new Piece[3][3])
+                .setNextPlayer(mctsPlayer.getPiece())
+                .build();
+
+        GameState endState = new Simulator(startState, mctsPlayer, naivePlayer).run();
+
+        endState.print();
+        assertTrue(endState.isAtEnd());
+    }
+
+    @Test
+    public void keeps_playing_within_max_tree_nodes_without_pruning() {
+        MCTSParameters params = new MCTSParameters();
+        params.maxThinkTimeMillis = 200;
+        params.maxTreeNodes = 300;
+        params.pruneSiblings = false;
+        params.pruneParent = false;
+
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        mctsPlayer.setPiece(Piece.X);
+
+        Player naivePlayer = new NaivePlayer();
+        naivePlayer.setPiece(Piece.O);
+
+        GameState state = GameState.builder()
+                .setConnectHowMany(5)
+                .setBoard(new Piece[10][10])
+                .setNextPlayer(mctsPlayer.getPiece())
+                .build();
+
+        Cell lastMove = null;
+        for (int turn = 0; turn < 20 && !state.isAtEnd(); turn++) {
+            Player player = state.getNextPlayer() == mctsPlayer.getPiece() ? mctsPlayer : naivePlayer;
+            lastMove = player.move(state.getCopy(), lastMove);
+            state.update(lastMove);
+
+            if (player == mctsPlayer) {
+                MoveNode root = mctsPlayer.getLastMove();
+                while (root.getParent() != null) {
+                    root = root.getParent();
+                }
+                assertTrue(countNodes(root) <= params.maxTreeNodes + 2);
+            }
+        }
+    }
+
+    private int countNodes(MoveNode node) {
+        int count = 1;
+        for (MoveNode child : node.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
     @Test
     public void beats_random_player_in_18x18_connect_5_game() {
         MCTSParameters params = new MCTSParameters();
@@ -126,6 +197,66 @@ public class MCTSPlayerTests {
         assertEquals(mctsPlayer.getPiece(), endState.getWinner());
     }
 
+    @Test
+    public void ponders_during_opponents_turn_and_continues_from_opponents_move() throws Exception {
+        MCTSParameters params = new MCTSParameters();
+        params.maxRolloutsNum = 100;
+        params.numPlanningThreads = 2;
+        params.ponder = true;
+        params.pruneParent = false;
+        PlanningExecutor planningExecutor = new PlanningExecutor(2);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params, planningExecutor);
+        mctsPlayer.setPiece(Piece.X);
+
+        GameState state = GameState.builder()
+                .setConnectHowMany(5)
+                .setBoard(new Piece[18][18])
+                .setNextPlayer(Piece.X)
+                .build();
+        state = state.next(mctsPlayer.move(state, null));
+        int numPlaysAfterMove = mctsPlayer.getLastMove().getNumPlays();
+
+        Thread.sleep(500); // opponent thinks
+        int numPlaysAfterPondering = mctsPlayer.getLastMove().getNumPlays();
+        assertTrue(numPlaysAfterPondering > numPlaysAfterMove + params.maxRolloutsNum);
+
+        MoveNode opponentsMoveNode = mctsPlayer.getLastMove().getBestMoves().get(0);
+        Cell opponentsMove = opponentsMoveNode.getMove();
+        state = state.next(opponentsMove);
+        mctsPlayer.move(state, opponentsMove);
+        assertSame(opponentsMoveNode, mctsPlayer.getLastMove().getParent());
+        assertTrue(mctsPlayer.getLastPlanningStats().getTreeSize() > params.maxRolloutsNum);
+
+        mctsPlayer.stopPondering();
+        planningExecutor.shutdown();
+    }
+
+    @Test
+    public void does_not_ponder_after_pondering_is_disabled_during_move() throws Exception {
+        MCTSParameters params = new MCTSParameters();
+        params.maxRolloutsNum = 100;
+        params.numPlanningThreads = 2;
+        params.ponder = true;
+        params.pruneParent = false;
+        PlanningExecutor planningExecutor = new PlanningExecutor(2);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params, planningExecutor);
+        mctsPlayer.setPiece(Piece.X);
+
+        GameState state = GameState.builder()
+                .setConnectHowMany(5)
+                .setBoard(new Piece[18][18])
+                .setNextPlayer(Piece.X)
+                .build();
+        mctsPlayer.disablePondering(); // e.g. the game was deleted while the player was thinking
+        mctsPlayer.move(state, null);
+        int numPlaysAfterMove = mctsPlayer.getLastMove().getNumPlays();
+
+        Thread.sleep(500);
+        assertEquals(numPlaysAfterMove, mctsPlayer.getLastMove().getNumPlays());
+
+        planningExecutor.shutdown();
+    }
+
     @Test
     public void mcts_player_chooses_decisive_move_in_one_rollout() {
         MCTSParameters params = new MCTSParameters();
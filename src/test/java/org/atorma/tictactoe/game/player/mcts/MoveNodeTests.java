@@ -6,8 +6,10 @@ import org.atorma.tictactoe.game.state.*;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -119,6 +121,42 @@ public class MoveNodeTests {
         assertNull(root.expandRandomIn(rectangle1, rectangle2));
     }
 
+    @Test
+    public void expand_best_expands_win_then_block_then_move_next_to_most_pieces() {
+        GameState state = GameState.builder().setConnectHowMany(4).setBoard(new Piece[][]{
+                {Piece.O, Piece.O, Piece.O, null, null},
+                {null, null, null, null, null},
+                {Piece.X, Piece.X, Piece.X, null, null},
+                {null, null, null, null, null},
+                {null, null, null, null, null}
+        }).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(state, null, new WinLossDrawScheme());
+
+        assertEquals(new Cell(2, 3), root.expandBestIn(null).getMove());
+        assertEquals(new Cell(0, 3), root.expandBestIn(null).getMove());
+        assertEquals(new Cell(1, 1), root.expandBestIn(null).getMove());
+        assertEquals(3, root.getNumChildren());
+    }
+
+    @Test
+    public void expand_best_expands_only_in_area() {
+        GameState state = GameState.builder().setConnectHowMany(4).setBoard(new Piece[][]{
+                {Piece.O, Piece.O, Piece.O, null, null},
+                {null, null, null, null, null},
+                {Piece.X, Piece.X, Piece.X, null, null},
+                {null, null, null, null, null},
+                {null, null, null, null, null}
+        }).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(state, null, new WinLossDrawScheme());
+        Frontier area = state.getFrontier(1);
+
+        MoveNode child;
+        while ((child = root.expandBestIn(area)) != null) {
+            assertTrue(area.contains(child.getMove()));
+        }
+        assertEquals(area.size(), root.getNumChildren());
+    }
+
     @Test
     public void expand_random_when_area_is_entire_board() {
         Rectangle rectangle = new Rectangle(0, 0, 2, 2);
@@ -389,4 +427,206 @@ public class MoveNodeTests {
         assertEquals(rootNumChildren, root.getChildren().size());
         assertTrue(root.isFullyExpanded());
     }
+
+    @Test
+    public void nodes_of_same_position_share_statistics_when_transposition_table_is_used() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new WinLossDrawScheme(), new TranspositionTable(1024));
+
+        MoveNode viaCorner = root.findMoveTo(new Cell(0, 0)).findMoveTo(new Cell(1, 1)).findMoveTo(new Cell(2, 2));
+        MoveNode viaOtherCorner = root.findMoveTo(new Cell(2, 2)).findMoveTo(new Cell(1, 1)).findMoveTo(new Cell(0, 0));
+        MoveNode different = root.findMoveTo(new Cell(0, 1)).findMoveTo(new Cell(1, 1)).findMoveTo(new Cell(2, 2));
+
+        viaCorner.propagateSimulatedResult(viaCorner.getGameState());
+        viaCorner.propagateSimulatedResult(viaCorner.getGameState());
+
+        assertEquals(2, viaOtherCorner.getNumPlays());
+        assertEquals(viaCorner.getExpectedReward(Piece.X), viaOtherCorner.getExpectedReward(Piece.X), 0);
+        assertEquals(0, viaOtherCorner.getParent().getNumPlays());
+        assertEquals(0, different.getNumPlays());
+        assertEquals(2, root.getNumPlays());
+
+        // UCT bonus is defined even though the node has more plays than its parent
+        assertTrue(UCT.getUCTBonus(viaOtherCorner, 1) >= 0);
+    }
+
+    @Test
+    public void nodes_of_same_position_have_separate_statistics_without_transposition_table() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new WinLossDrawScheme());
+
+        MoveNode viaCorner = root.findMoveTo(new Cell(0, 0)).findMoveTo(new Cell(1, 1)).findMoveTo(new Cell(2, 2));
+        MoveNode viaOtherCorner = root.findMoveTo(new Cell(2, 2)).findMoveTo(new Cell(1, 1)).findMoveTo(new Cell(0, 0));
+
+        viaCorner.propagateSimulatedResult(viaCorner.getGameState());
+
+        assertEquals(1, viaCorner.getNumPlays());
+        assertEquals(0, viaOtherCorner.getNumPlays());
+    }
+
+    @Test
+    public void concurrent_expansion_adds_each_move_once() throws Exception {
+        GameState startingState = GameState.builder().setConnectHowMany(5).setBoard(new Piece[10][10]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new WinLossDrawScheme());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<MoveNode>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> {
+                List<MoveNode> expanded = new ArrayList<>();
+                MoveNode child;
+                while ((child = root.expandRandom()) != null) {
+                    expanded.add(child);
+                }
+                return expanded;
+            }));
+        }
+        Set<MoveNode> allExpanded = new HashSet<>();
+        int numExpanded = 0;
+        for (Future<List<MoveNode>> result : results) {
+            allExpanded.addAll(result.get());
+            numExpanded += result.get().size();
+        }
+        executor.shutdown();
+
+        assertEquals(100, numExpanded);
+        assertEquals(100, allExpanded.size());
+        assertEquals(new HashSet<>(root.getChildren()), allExpanded);
+        assertTrue(root.isFullyExpanded());
+    }
+
+    @Test
+    public void virtual_loss_lowers_exploration_score_until_removed() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new WinLossDrawScheme());
+        root.expandAll();
+        MoveNode child = root.getChildren().get(0);
+        GameState draw = child.getGameState();
+        child.propagateSimulatedResult(draw);
+        root.getChildren().get(1).propagateSimulatedResult(draw);
+
+        double score = child.getExplorationScore(Piece.X);
+        child.addVirtualLoss();
+        assertEquals(1, child.getNumVirtualLosses());
+        assertTrue(child.getExplorationScore(Piece.X) < score);
+        assertEquals(0, child.getExpectedReward(Piece.X), 0);
+
+        child.removeVirtualLoss();
+        assertEquals(0, child.getNumVirtualLosses());
+        assertEquals(score, child.getExplorationScore(Piece.X), 0);
+    }
+
+    @Test
+    public void amaf_results_are_recorded_for_moves_the_same_player_made_later() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new RaveScheme(new WinLossDrawScheme()));
+        MoveNode played = root.findMoveTo(new Cell(0, 0));
+        MoveNode playedLater = root.findMoveTo(new Cell(1, 1));
+        MoveNode playedByOpponent = root.findMoveTo(new Cell(2, 2));
+        MoveNode notPlayed = root.findMoveTo(new Cell(1, 2));
+        MoveNode opponentsMove = played.findMoveTo(new Cell(0, 1));
+        MoveNode opponentsMoveLater = played.findMoveTo(new Cell(2, 2));
+        MoveNode opponentsMoveByMe = played.findMoveTo(new Cell(2, 0));
+
+        GameState crossWins = GameState.builder().setConnectHowMany(3).setBoard(new Piece[][]{
+                {Piece.X, Piece.O, Piece.X},
+                {Piece.O, Piece.X, null},
+                {Piece.X, null, Piece.O}
+        }).setNextPlayer(Piece.O).build();
+        opponentsMove.propagateSimulatedResult(crossWins);
+
+        assertEquals(1, played.getNumAmafPlays());
+        assertEquals(1, playedLater.getNumAmafPlays());
+        assertEquals(1, playedLater.getAmafExpectedReward(Piece.X), 0);
+        assertEquals(-1, playedLater.getAmafExpectedReward(Piece.O), 0);
+        assertEquals(0, playedLater.getNumPlays());
+        assertEquals(0, playedByOpponent.getNumAmafPlays());
+        assertEquals(0, notPlayed.getNumAmafPlays());
+        assertEquals(1, opponentsMove.getNumAmafPlays());
+        assertEquals(1, opponentsMoveLater.getNumAmafPlays());
+        assertEquals(0, opponentsMoveByMe.getNumAmafPlays());
+        assertEquals(0, root.getNumAmafPlays());
+    }
+
+    @Test
+    public void batched_results_are_recorded_like_separate_results() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        RewardScheme rewardScheme = new RaveScheme(new WinLossDrawScheme());
+        MoveNode separate = new MoveNode(startingState, null, rewardScheme);
+        MoveNode batched = new MoveNode(startingState, null, rewardScheme);
+        for (Cell move : Arrays.asList(new Cell(0, 0), new Cell(1, 1), new Cell(2, 2))) {
+            separate.findMoveTo(move).findMoveTo(new Cell(0, 1));
+            batched.findMoveTo(move).findMoveTo(new Cell(0, 1));
+        }
+
+        Cell[][] games = {
+                {new Cell(1, 1), new Cell(2, 0), new Cell(2, 2)},
+                {new Cell(2, 2), new Cell(1, 1), new Cell(1, 0), new Cell(2, 1)},
+                {new Cell(1, 0), new Cell(2, 0), new Cell(2, 1), new Cell(1, 2), new Cell(2, 2), new Cell(0, 2), new Cell(1, 1)}
+        };
+        MoveNode separateLeaf = separate.findMoveTo(new Cell(0, 0)).findMoveTo(new Cell(0, 1));
+        SimulationResults results = new SimulationResults();
+        results.reset(rewardScheme, 3, 3);
+        for (Cell[] game : games) {
+            GameState endState = separateLeaf.getGameState().getCopy();
+            for (Cell move : game) {
+                endState.update(move);
+            }
+            separateLeaf.propagateSimulatedResult(endState);
+            results.add(endState.getWinner(), endState.getLongestSequence(Piece.X).getLength(),
+                    endState.getLongestSequence(Piece.O).getLength(), endState::getPiece);
+        }
+        batched.findMoveTo(new Cell(0, 0)).findMoveTo(new Cell(0, 1)).propagateSimulatedResults(results);
+
+        assertEquals(3, batched.getNumPlays());
+        assertSameStatistics(separate, batched);
+    }
+
+    private void assertSameStatistics(MoveNode expected, MoveNode actual) {
+        assertEquals(expected.getNumPlays(), actual.getNumPlays());
+        assertEquals(expected.getNumAmafPlays(), actual.getNumAmafPlays());
+        for (Piece piece : Piece.values()) {
+            assertEquals(expected.getWins(piece), actual.getWins(piece));
+            assertEquals(expected.getExpectedReward(piece), actual.getExpectedReward(piece), 1e-9);
+            assertEquals(expected.getAmafExpectedReward(piece), actual.getAmafExpectedReward(piece), 1e-9);
+        }
+        for (MoveNode child : expected.getChildren()) {
+            assertSameStatistics(child, actual.findMoveTo(child.getMove()));
+        }
+    }
+
+    @Test
+    public void amaf_results_are_not_recorded_without_rave() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new WinLossDrawScheme());
+        MoveNode child = root.findMoveTo(new Cell(0, 0));
+        MoveNode sibling = root.findMoveTo(new Cell(1, 1));
+
+        child.propagateSimulatedResult(child.getGameState().next(new Cell(2, 2)).next(new Cell(1, 1)));
+
+        assertEquals(0, child.getNumAmafPlays());
+        assertEquals(0, sibling.getNumAmafPlays());
+    }
+
+    @Test
+    public void amaf_results_raise_exploration_score_of_move_that_wins_when_played_later() {
+        GameState startingState = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        MoveNode root = new MoveNode(startingState, null, new RaveScheme(new WinLossDrawScheme()));
+        MoveNode corner = root.findMoveTo(new Cell(0, 0));
+        MoveNode center = root.findMoveTo(new Cell(1, 1));
+        MoveNode otherCorner = root.findMoveTo(new Cell(0, 2));
+        corner.propagateSimulatedResult(corner.getGameState());
+        center.propagateSimulatedResult(center.getGameState());
+        assertEquals(corner.getExplorationScore(Piece.X), center.getExplorationScore(Piece.X), 0);
+
+        GameState crossWinsViaCenter = GameState.builder().setConnectHowMany(3).setBoard(new Piece[][]{
+                {null, Piece.O, Piece.X},
+                {Piece.O, Piece.X, null},
+                {Piece.X, null, null}
+        }).setNextPlayer(Piece.O).build();
+        otherCorner.propagateSimulatedResult(crossWinsViaCenter);
+
+        assertEquals(0, center.getExpectedReward(Piece.X), 0);
+        assertTrue(center.getExplorationScore(Piece.X) > corner.getExplorationScore(Piece.X));
+    }
 }
@@ -0,0 +1,67 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class MoveNodeTreeTests {
+
+    private MoveNodeTree createTree(int maxNodes) {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+        return new MoveNodeTree(new MoveNode(state, null, new WinLossDrawScheme()), maxNodes);
+    }
+
+    @Test
+    public void expansion_stops_at_max_nodes() {
+        MoveNodeTree tree = createTree(10);
+        MoveNode root = tree.getRoot();
+        for (int i = 0; i < 9; i++) {
+            assertNotNull(tree.expandRandom(root));
+        }
+        assertEquals(10, tree.size());
+        assertTrue(tree.isFull());
+        assertNull(tree.expandRandom(root));
+        assertNull(tree.expandRandomIn(root, root.getChildren().get(0).getGameState().getFrontier(1)));
+        assertEquals(9, root.getChildren().size());
+
+        // Actual game moves are always allowed
+        assertNotNull(tree.findMoveTo(root.getChildren().get(0), new Cell(17, 17)));
+        assertEquals(11, tree.size());
+    }
+
+    @Test
+    public void failed_expansion_does_not_count() {
+        MoveNodeTree tree = createTree(10);
+        assertNull(tree.expandRandomIn(tree.getRoot(), tree.getRoot().getGameState().getFrontier(1))); // empty board
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void nodes_are_recounted_after_pruning() {
+        MoveNodeTree tree = createTree(100);
+        MoveNode root = tree.getRoot();
+        MoveNode child = tree.findMoveTo(root, new Cell(5, 5));
+        for (int i = 0; i < 5; i++) {
+            tree.expandRandom(root);
+            MoveNode grandChild = tree.expandRandom(child);
+            tree.expandRandom(grandChild);
+        }
+        assertEquals(1 + 6 + 5 + 5, tree.size());
+
+        tree.pruneDescendantLevelsGreaterThan(child, 1);
+        assertEquals(1 + 6 + 5, tree.size());
+
+        tree.pruneOtherBranchesOnPathToRoot(child);
+        assertEquals(1 + 1 + 5, tree.size());
+
+        assertSame(child, tree.makeRoot(child));
+        assertSame(child, tree.getRoot());
+        assertEquals(1 + 5, tree.size());
+    }
+}
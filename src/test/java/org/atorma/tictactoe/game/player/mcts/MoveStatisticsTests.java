@@ -0,0 +1,60 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(FastTests.class)
+public class MoveStatisticsTests {
+
+    @Test
+    public void records_wins_rewards_and_plays() {
+        MoveStatistics stats = new MoveStatistics();
+        assertEquals(0, stats.getRewardSum(Piece.X), 0);
+
+        stats.add(Piece.X, 1, -1);
+        stats.add(Piece.O, -1000, 1000);
+        stats.add(null, 0.5, -0.25);
+
+        assertEquals(3, stats.getNumPlays());
+        assertEquals(1, stats.getWins(Piece.X));
+        assertEquals(1, stats.getWins(Piece.O));
+        assertEquals(-998.5, stats.getRewardSum(Piece.X), 0);
+        assertEquals(998.75, stats.getRewardSum(Piece.O), 0);
+    }
+
+    @Test
+    public void concurrent_updates_are_not_lost() throws Exception {
+        MoveStatistics stats = new MoveStatistics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    stats.addVirtualLoss();
+                    stats.add(Piece.X, 1, -1);
+                    stats.removeVirtualLoss();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(40000, stats.getNumPlays());
+        assertEquals(40000, stats.getWins(Piece.X));
+        assertEquals(40000, stats.getRewardSum(Piece.X), 0);
+        assertEquals(-40000, stats.getRewardSum(Piece.O), 0);
+        assertEquals(0, stats.getNumVirtualLosses());
+    }
+}
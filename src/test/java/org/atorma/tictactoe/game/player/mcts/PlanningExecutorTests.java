@@ -0,0 +1,204 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class PlanningExecutorTests {
+
+    private PlanningExecutor planningExecutor = new PlanningExecutor(2);
+
+    @After
+    public void tearDown() {
+        planningExecutor.shutdown();
+    }
+
+    @Test
+    public void runs_work_until_done() {
+        AtomicInteger count = new AtomicInteger();
+        planningExecutor.run(3, () -> count.get() < 1000, count::incrementAndGet);
+        assertTrue(count.get() >= 1000);
+        assertTrue(count.get() <= 1002);
+    }
+
+    @Test
+    public void each_task_runs_its_own_work_one_thread_at_a_time() {
+        int numTasks = 3;
+        AtomicInteger total = new AtomicInteger();
+        int[] counts = new int[numTasks];
+        AtomicInteger[] running = new AtomicInteger[numTasks];
+        AtomicInteger maxRunning = new AtomicInteger();
+        for (int i = 0; i < numTasks; i++) {
+            running[i] = new AtomicInteger();
+        }
+        long end = System.currentTimeMillis() + 5*PlanningExecutor.TIME_SLICE_MILLIS;
+        planningExecutor.run(numTasks, () -> System.currentTimeMillis() < end, task -> () -> {
+            maxRunning.accumulateAndGet(running[task].incrementAndGet(), Math::max);
+            counts[task]++;
+            total.incrementAndGet();
+            running[task].decrementAndGet();
+        });
+
+        assertEquals(1, maxRunning.get());
+        int sum = 0;
+        for (int count : counts) {
+            assertTrue(count > 0); // time slicing lets each one run
+            sum += count;
+        }
+        assertEquals(total.get(), sum); // unsynchronized counts are safe
+    }
+
+    @Test
+    public void concurrent_plannings_share_a_bounded_number_of_threads() throws Exception {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        int numPlannings = 10;
+        List<AtomicInteger> counts = new ArrayList<>();
+        List<Future<?>> results = new ArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(numPlannings);
+        long end = System.currentTimeMillis() + 10*PlanningExecutor.TIME_SLICE_MILLIS*numPlannings;
+        for (int i = 0; i < numPlannings; i++) {
+            AtomicInteger count = new AtomicInteger();
+            counts.add(count);
+            results.add(callers.submit(() -> planningExecutor.run(3, () -> System.currentTimeMillis() < end, () -> {
+                threadNames.add(Thread.currentThread().getName());
+                count.incrementAndGet();
+            })));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        callers.shutdown();
+
+        assertTrue(threadNames.size() <= 2);
+        for (AtomicInteger count : counts) { // time slicing lets each one run
+            assertTrue(count.get() > 0);
+        }
+    }
+
+    @Test
+    public void exception_in_work_fails_planning() {
+        AtomicInteger count = new AtomicInteger();
+        try {
+            planningExecutor.run(2, () -> true, () -> {
+                if (count.incrementAndGet() == 10) {
+                    throw new IllegalStateException("Test failure");
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void background_planning_runs_until_stopped() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        PlanningExecutor.BackgroundPlanning planning = planningExecutor.start(1, () -> true, count::incrementAndGet);
+        Thread.sleep(3*PlanningExecutor.TIME_SLICE_MILLIS);
+        planning.stop();
+        int countAfterStop = count.get();
+        Thread.sleep(3*PlanningExecutor.TIME_SLICE_MILLIS);
+
+        assertEquals(1, planning.getNumTasks());
+        assertTrue(countAfterStop > 0);
+        assertEquals(countAfterStop, count.get());
+    }
+
+    @Test
+    public void background_plannings_together_run_at_most_max_background_tasks() throws Exception {
+        planningExecutor.shutdown();
+        planningExecutor = new PlanningExecutor(4, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Runnable work = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            LockSupport.parkNanos(100000);
+            running.decrementAndGet();
+        };
+
+        PlanningExecutor.BackgroundPlanning planning1 = planningExecutor.start(2, () -> true, work);
+        PlanningExecutor.BackgroundPlanning planning2 = planningExecutor.start(2, () -> true, work);
+        PlanningExecutor.BackgroundPlanning planning3 = planningExecutor.start(2, () -> true, work);
+        Thread.sleep(5*PlanningExecutor.TIME_SLICE_MILLIS);
+
+        assertEquals(2, planning1.getNumTasks());
+        assertEquals(1, planning2.getNumTasks());
+        assertEquals(0, planning3.getNumTasks());
+        assertTrue(maxRunning.get() <= 3);
+
+        planning1.stop();
+        planning2.stop();
+        planning3.stop();
+        PlanningExecutor.BackgroundPlanning planning4 = planningExecutor.start(5, () -> true, () -> {});
+        assertEquals(3, planning4.getNumTasks()); // the stopped ones gave back their tasks
+        planning4.stop();
+    }
+
+    @Test
+    public void interrupted_planning_stops_work_before_returning() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger countAfterReturn = new AtomicInteger();
+        AtomicBoolean interruptRestored = new AtomicBoolean();
+        Thread caller = new Thread(() -> {
+            planningExecutor.run(2, () -> true, () -> {
+                count.incrementAndGet();
+                LockSupport.parkNanos(100000);
+            });
+            countAfterReturn.set(count.get());
+            interruptRestored.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        Thread.sleep(2*PlanningExecutor.TIME_SLICE_MILLIS);
+        caller.interrupt();
+        caller.join();
+        Thread.sleep(2*PlanningExecutor.TIME_SLICE_MILLIS);
+
+        assertTrue(countAfterReturn.get() > 0);
+        assertEquals(countAfterReturn.get(), count.get());
+        assertTrue(interruptRestored.get());
+    }
+
+    @Test(timeout = 5000)
+    public void shutdown_fails_planning_in_progress() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<?> result = caller.submit(() -> planningExecutor.run(4, () -> true, () -> { // more tasks than threads
+            count.incrementAndGet();
+            LockSupport.parkNanos(100000);
+        }));
+        while (count.get() == 0) {
+            Thread.sleep(1);
+        }
+        planningExecutor.shutdown();
+
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+        }
+        caller.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void at_least_one_thread_required() {
+        new PlanningExecutor(0);
+    }
+}
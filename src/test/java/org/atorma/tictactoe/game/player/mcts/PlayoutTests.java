@@ -0,0 +1,150 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.state.Cell;
+import org.atorma.tictactoe.game.state.GameState;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class PlayoutTests {
+
+    @Test
+    public void playouts_end_in_same_state_as_moves_played_on_game_state() {
+        int[][] sizes = {{3, 3}, {18, 18}, {7, 12}, {3, 3}};
+        for (MCTSParameters.SimulationStrategy strategy : MCTSParameters.SimulationStrategy.values()) {
+            for (int[] size : sizes) {
+                for (int game = 0; game < 20; game++) {
+                    GameState startState = GameState.builder()
+                            .setConnectHowMany(Math.min(size[0], 5))
+                            .setBoard(new Piece[size[0]][size[1]])
+                            .setNextPlayer(Piece.values()[game % 2])
+                            .build();
+                    if (game % 4 == 3) {
+                        startState.update(new Cell(size[0]/2, size[1]/2));
+                    }
+
+                    Playout playout = Playout.forCurrentThread();
+                    playout.run(startState, strategy, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+                    GameState endState = startState.getCopy();
+                    for (int i = 0; i < playout.getNumMoves(); i++) {
+                        endState.update(playout.getMove(i));
+                    }
+                    assertTrue(endState.isAtEnd());
+                    assertEquals(endState.getWinner(), playout.getWinner());
+                    for (Piece piece : Piece.values()) {
+                        assertEquals(endState.getLongestSequence(piece).getLength(), playout.getLongestSequenceLength(piece));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void random_adjacent_playout_moves_next_to_occupied_cells() {
+        Piece[][] board = new Piece[18][18];
+        board[5][5] = Piece.X;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.O).build();
+
+        Playout playout = Playout.forCurrentThread();
+        for (int i = 0; i < 50; i++) {
+            playout.run(state, MCTSParameters.SimulationStrategy.RANDOM_ADJACENT, Long.MAX_VALUE, 1);
+            assertEquals(1, playout.getNumMoves());
+            assertEquals(1, Cell.getDistance(new Cell(5, 5), playout.getMove(0)));
+        }
+    }
+
+    @Test
+    public void naive_playout_takes_winning_move() {
+        Piece[][] board = new Piece[18][18];
+        for (int col = 5; col < 9; col++) {
+            board[3][col] = Piece.X;
+            board[10][col] = Piece.O;
+        }
+        board[3][4] = Piece.O;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Playout playout = Playout.forCurrentThread();
+        playout.run(state, MCTSParameters.SimulationStrategy.NAIVE, Long.MAX_VALUE, 1);
+        assertEquals(new Cell(3, 9), playout.getMove(0));
+        assertEquals(Piece.X, playout.getWinner());
+    }
+
+    @Test
+    public void naive_playout_blocks_opponents_winning_move() {
+        Piece[][] board = new Piece[18][18];
+        for (int row = 5; row < 9; row++) {
+            board[row][row] = Piece.O;
+        }
+        board[4][4] = Piece.X;
+        board[12][2] = Piece.X;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Playout playout = Playout.forCurrentThread();
+        playout.run(state, MCTSParameters.SimulationStrategy.NAIVE, Long.MAX_VALUE, 1);
+        assertEquals(new Cell(9, 9), playout.getMove(0));
+        assertNull(playout.getWinner());
+    }
+
+    @Test
+    public void naive_playout_blocks_opponents_open_threat() {
+        Piece[][] board = new Piece[18][18];
+        board[6][7] = Piece.O;
+        board[6][8] = Piece.O;
+        board[6][9] = Piece.O;
+        board[0][0] = Piece.X;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Playout playout = Playout.forCurrentThread();
+        playout.run(state, MCTSParameters.SimulationStrategy.NAIVE, Long.MAX_VALUE, 1);
+        Cell move = playout.getMove(0);
+        assertTrue(move.equals(new Cell(6, 6)) || move.equals(new Cell(6, 10)));
+    }
+
+    @Test
+    public void naive_playout_elongates_longest_sequence() {
+        Piece[][] board = new Piece[18][18];
+        board[6][7] = Piece.X;
+        board[7][7] = Piece.X;
+        board[0][0] = Piece.O;
+        board[17][17] = Piece.O;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Playout playout = Playout.forCurrentThread();
+        playout.run(state, MCTSParameters.SimulationStrategy.NAIVE, Long.MAX_VALUE, 1);
+        Cell move = playout.getMove(0);
+        assertTrue(move.equals(new Cell(5, 7)) || move.equals(new Cell(8, 7)));
+        assertEquals(3, playout.getLongestSequenceLength(Piece.X));
+    }
+
+    @Test
+    public void playout_stops_after_max_turns() {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+
+        Playout playout = Playout.forCurrentThread();
+        playout.run(state, MCTSParameters.SimulationStrategy.UNIFORM_RANDOM, Long.MAX_VALUE, 3);
+        assertEquals(3, playout.getNumMoves());
+        assertNull(playout.getWinner());
+    }
+
+    @Test
+    public void playout_from_end_state_plays_no_moves() {
+        Piece[][] board = {
+                {Piece.X, Piece.X, Piece.X},
+                {Piece.O, Piece.O, null},
+                {null,    null,    null}
+        };
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(board).setNextPlayer(Piece.O).build();
+
+        Playout playout = Playout.forCurrentThread();
+        playout.run(state, MCTSParameters.SimulationStrategy.NAIVE, Long.MAX_VALUE, Integer.MAX_VALUE);
+        assertEquals(0, playout.getNumMoves());
+        assertEquals(Piece.X, playout.getWinner());
+        assertEquals(3, playout.getLongestSequenceLength(Piece.X));
+        assertEquals(2, playout.getLongestSequenceLength(Piece.O));
+    }
+}
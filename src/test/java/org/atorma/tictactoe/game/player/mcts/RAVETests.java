@@ -0,0 +1,35 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+
+@Category(FastTests.class)
+public class RAVETests {
+
+    @Test
+    public void without_amaf_results_reward_is_not_changed() {
+        assertEquals(0.25, RAVE.getBlendedReward(0.25, 4, 0, 0, 100), 0);
+    }
+
+    @Test
+    public void without_own_plays_reward_is_amaf_reward() {
+        assertEquals(0.5, RAVE.getBlendedReward(0, 0, 5, 10, 100), 1e-9);
+    }
+
+    @Test
+    public void own_and_amaf_rewards_weigh_equally_at_equivalence() {
+        assertEquals(0.5, RAVE.getBlendedReward(1, 100, 0, 1000, 100), 1e-9);
+    }
+
+    @Test
+    public void amaf_reward_weighs_less_as_plays_increase() {
+        double fewPlays = RAVE.getBlendedReward(0, 10, 100, 100, 100);
+        double manyPlays = RAVE.getBlendedReward(0, 1000, 100, 100, 100);
+        assertEquals(1, RAVE.getBlendedReward(0, 0, 100, 100, 100), 1e-9);
+        assertEquals(true, fewPlays > manyPlays);
+        assertEquals(true, manyPlays > 0);
+    }
+}
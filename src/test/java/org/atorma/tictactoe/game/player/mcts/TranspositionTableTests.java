@@ -0,0 +1,59 @@
+package org.atorma.tictactoe.game.player.mcts;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.state.Piece;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class TranspositionTableTests {
+
+    @Test
+    public void same_hash_returns_same_statistics() {
+        TranspositionTable table = new TranspositionTable(16);
+        MoveStatistics stats = table.getStatistics(12345L);
+        assertSame(stats, table.getStatistics(12345L));
+        assertNotSame(stats, table.getStatistics(54321L));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void capacity_is_rounded_up_to_power_of_two() {
+        assertEquals(2, new TranspositionTable(2).getCapacity());
+        assertEquals(16, new TranspositionTable(10).getCapacity());
+        assertEquals(16, new TranspositionTable(16).getCapacity());
+    }
+
+    @Test
+    public void size_is_bounded() {
+        TranspositionTable table = new TranspositionTable(8);
+        for (long hash = 0; hash < 1000; hash++) {
+            table.getStatistics(hash);
+        }
+        assertEquals(8, table.size());
+    }
+
+    @Test
+    public void position_with_most_plays_is_kept_when_bucket_is_full() {
+        TranspositionTable table = new TranspositionTable(2); // single bucket
+        MoveStatistics popular = table.getStatistics(1);
+        popular.add(Piece.X, 1, -1);
+        popular.add(Piece.X, 1, -1);
+
+        for (long hash = 2; hash < 100; hash++) {
+            table.getStatistics(hash).add(null, 0, 0);
+        }
+
+        assertSame(popular, table.getStatistics(1));
+        MoveStatistics latest = table.getStatistics(100);
+        assertSame(latest, table.getStatistics(100));
+        assertNotSame(latest, table.getStatistics(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void table_must_hold_at_least_two_positions() {
+        new TranspositionTable(1);
+    }
+}
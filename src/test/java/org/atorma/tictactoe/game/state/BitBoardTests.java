@@ -0,0 +1,150 @@
+package org.atorma.tictactoe.game.state;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.Utils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class BitBoardTests {
+
+    @Test
+    public void set_and_get_pieces() {
+        BitBoard board = new BitBoard(18, 18);
+        assertEquals(0, board.getNumPieces());
+
+        board.set(new Cell(0, 0), Piece.X);
+        board.set(new Cell(0, 17), Piece.O);
+        board.set(new Cell(17, 0), Piece.O);
+        board.set(new Cell(17, 17), Piece.X);
+        assertEquals(Piece.X, board.get(new Cell(0, 0)));
+        assertEquals(Piece.O, board.get(new Cell(0, 17)));
+        assertEquals(Piece.O, board.get(new Cell(17, 0)));
+        assertEquals(Piece.X, board.get(new Cell(17, 17)));
+        assertNull(board.get(new Cell(1, 0)));
+        assertEquals(4, board.getNumPieces());
+
+        board.set(new Cell(0, 0), Piece.O);
+        assertEquals(Piece.O, board.get(new Cell(0, 0)));
+        assertEquals(4, board.getNumPieces());
+
+        board.set(new Cell(0, 0), null);
+        assertNull(board.get(new Cell(0, 0)));
+        assertEquals(3, board.getNumPieces());
+    }
+
+    @Test
+    public void copy_is_independent_of_original() {
+        Piece[][] pieces = new Piece[5][7];
+        pieces[2][3] = Piece.X;
+        pieces[4][6] = Piece.O;
+        Board original = new BitBoard(pieces);
+
+        Board copy = original.copy();
+        copy.set(new Cell(0, 0), Piece.X);
+
+        assertEquals(3, copy.getNumPieces());
+        assertEquals(2, original.getNumPieces());
+        assertNull(original.get(new Cell(0, 0)));
+        assertEquals(Piece.X, copy.get(new Cell(2, 3)));
+        assertEquals(Piece.O, copy.get(new Cell(4, 6)));
+    }
+
+    @Test
+    public void has_same_contents_as_dense_array_board() {
+        Piece[][] pieces = new Piece[50][50];
+        for (int i = 0; i < 1000; i++) {
+            pieces[ThreadLocalRandom.current().nextInt(50)][ThreadLocalRandom.current().nextInt(50)] = Piece.values()[i % 2];
+        }
+        Board bitBoard = new BitBoard(pieces);
+        Board arrayBoard = new DenseArrayBoard(pieces);
+
+        assertEquals(arrayBoard.getNumPieces(), bitBoard.getNumPieces());
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j < 50; j++) {
+                assertEquals(arrayBoard.get(new Cell(i, j)), bitBoard.get(new Cell(i, j)));
+            }
+        }
+    }
+
+    @Test
+    public void game_state_can_be_built_with_bit_board() {
+        Piece[][] board = {
+                {Piece.O, Piece.X, Piece.O},
+                {null,    Piece.X, null},
+                {null,    null,    null}
+        };
+        GameState state = GameState.builder()
+                .setConnectHowMany(3)
+                .setBoard(board)
+                .setBoardType(GameState.BoardType.BIT)
+                .setNextPlayer(Piece.X)
+                .build();
+        assertEquals(4, state.getNumPieces());
+        assertEquals(2, state.getLongestSequence(Piece.X).getLength());
+
+        GameState next = state.next(new Cell(2, 1));
+        assertEquals(Piece.X, next.getWinner());
+        assertNull(state.getPiece(2, 1));
+        assertEquals(Piece.X, next.getPiece(2, 1));
+    }
+
+    @Test
+    public void finds_same_sequences_as_dense_array_board_in_random_games() {
+        int[][] sizes = {{3, 3}, {5, 9}, {9, 5}, {18, 18}, {7, 70}};
+        for (int[] size : sizes) {
+            for (int game = 0; game < 20; game++) {
+                GameState arrayState = GameState.builder()
+                        .setConnectHowMany(Math.min(size[0], size[1]) + 1) // no winner, play until board is full
+                        .setBoard(new Piece[size[0]][size[1]])
+                        .setNextPlayer(Piece.X)
+                        .build();
+                GameState bitState = GameState.builder()
+                        .setTemplate(arrayState)
+                        .setBoard(new Piece[size[0]][size[1]])
+                        .setBoardType(GameState.BoardType.BIT)
+                        .build();
+
+                while (!arrayState.isAtEnd()) {
+                    Cell move = Utils.pickRandom(arrayState.getAllowedMoves());
+                    arrayState.update(move);
+                    bitState.update(move);
+                    assertSameSequences(arrayState, bitState);
+                    assertEquals(arrayState.getUpdatedSequences(), bitState.getUpdatedSequences());
+                }
+                assertTrue(bitState.isAtEnd());
+            }
+        }
+    }
+
+    @Test
+    public void finds_same_longest_sequences_as_dense_array_board_from_scratch() {
+        int[][] sizes = {{3, 3}, {4, 11}, {11, 4}, {18, 18}, {50, 50}};
+        for (int[] size : sizes) {
+            for (int game = 0; game < 50; game++) {
+                Piece[][] board = new Piece[size[0]][size[1]];
+                int numPieces = ThreadLocalRandom.current().nextInt(size[0]*size[1] + 1);
+                for (int i = 0; i < numPieces; i++) {
+                    board[ThreadLocalRandom.current().nextInt(size[0])][ThreadLocalRandom.current().nextInt(size[1])] = Piece.values()[i % 2];
+                }
+
+                GameState arrayState = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+                GameState bitState = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X)
+                        .setBoardType(GameState.BoardType.BIT).build();
+                assertSameSequences(arrayState, bitState);
+                assertEquals(arrayState.getAllSequences(), bitState.getAllSequences());
+            }
+        }
+    }
+
+    private void assertSameSequences(GameState expected, GameState actual) {
+        for (Piece piece : Piece.values()) {
+            assertEquals(expected.getLongestSequence(piece), actual.getLongestSequence(piece));
+        }
+        assertEquals(expected.getWinner(), actual.getWinner());
+    }
+}
@@ -0,0 +1,134 @@
+package org.atorma.tictactoe.game.state;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.Utils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class FrontierTests {
+
+    @Test
+    public void frontier_contains_empty_cells_within_radius_of_pieces() {
+        Piece[][] board = new Piece[5][6];
+        board[0][0] = Piece.X;
+        board[0][1] = Piece.O;
+        board[4][5] = Piece.X;
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(board).setNextPlayer(Piece.O).build();
+
+        Frontier frontier = state.getFrontier(1);
+        assertEquals(Arrays.asList(
+                new Cell(0, 2), new Cell(1, 0), new Cell(1, 1), new Cell(1, 2),
+                new Cell(3, 4), new Cell(3, 5), new Cell(4, 4)), frontier.getCells());
+        assertEquals(7, frontier.size());
+        assertTrue(frontier.contains(new Cell(1, 1)));
+        assertFalse(frontier.contains(new Cell(0, 0)));
+        assertFalse(frontier.contains(new Cell(2, 2)));
+        assertFalse(frontier.contains(new Cell(-1, 0)));
+        assertFalse(frontier.contains(new Cell(4, 6)));
+
+        assertTrue(state.getFrontier(2).contains(new Cell(2, 3)));
+        assertFalse(state.getFrontier(2).contains(new Cell(0, 4)));
+        assertSame(frontier, state.getFrontier(1));
+    }
+
+    @Test
+    public void frontier_on_empty_board_is_empty() {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+        assertTrue(state.getFrontier(1).isEmpty());
+        assertEquals(Collections.emptyList(), state.getFrontier(1).getCells());
+    }
+
+    @Test
+    public void incrementally_updated_frontier_equals_frontier_computed_from_scratch() {
+        for (int radius = 1; radius <= 3; radius++) {
+            for (int game = 0; game < 10; game++) {
+                GameState state = GameState.builder()
+                        .setConnectHowMany(19) // no winner, play until board is full
+                        .setBoard(new Piece[18][11])
+                        .setBoardType(GameState.BoardType.BIT)
+                        .setNextPlayer(Piece.X)
+                        .build();
+                state.getFrontier(radius);
+
+                List<Cell> moves = new ArrayList<>();
+                while (!state.isAtEnd()) {
+                    Cell move = Utils.pickRandom(state.getAllowedMoves());
+                    state.makeMove(move);
+                    moves.add(move);
+                    assertSameAsFromScratch(state, radius);
+                }
+                for (int i = moves.size() - 1; i >= moves.size() - 30; i--) {
+                    state.undo(moves.get(i));
+                    assertSameAsFromScratch(state, radius);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void frontier_of_copy_is_independent_of_original() {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+        state.update(new Cell(5, 5));
+        Frontier original = state.getFrontier(1);
+
+        GameState copy = state.getCopy();
+        copy.update(new Cell(10, 10));
+
+        assertEquals(8, original.size());
+        assertEquals(16, copy.getFrontier(1).size());
+        assertFalse(original.contains(new Cell(10, 11)));
+    }
+
+    @Test
+    public void next_state_takes_over_frontiers() {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+        state.update(new Cell(5, 5));
+        Frontier original = state.getFrontier(1);
+
+        GameState next = state.nextWithIndexes(new Cell(10, 10));
+
+        assertSame(original, next.getFrontier(1));
+        assertEquals(16, original.size());
+        assertNotSame(original, state.getFrontier(1));
+        assertEquals(8, state.getFrontier(1).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void radius_must_be_positive() {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+        state.getFrontier(0);
+    }
+
+    private void assertSameAsFromScratch(GameState state, int radius) {
+        List<Cell> expected = new ArrayList<>();
+        for (int i = 0; i < state.getBoardRows(); i++) {
+            for (int j = 0; j < state.getBoardCols(); j++) {
+                if (state.getPiece(i, j) == null && hasPieceWithin(state, i, j, radius)) {
+                    expected.add(new Cell(i, j));
+                }
+            }
+        }
+        Frontier frontier = state.getFrontier(radius);
+        assertEquals(expected, frontier.getCells());
+        assertEquals(expected.size(), frontier.size());
+    }
+
+    private boolean hasPieceWithin(GameState state, int row, int col, int radius) {
+        for (int i = Math.max(row - radius, 0); i <= Math.min(row + radius, state.getBoardRows() - 1); i++) {
+            for (int j = Math.max(col - radius, 0); j <= Math.min(col + radius, state.getBoardCols() - 1); j++) {
+                if (state.getPiece(i, j) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
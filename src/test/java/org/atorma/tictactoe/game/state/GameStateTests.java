@@ -1,6 +1,7 @@
 package org.atorma.tictactoe.game.state;
 
 import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.Utils;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -593,6 +594,74 @@ public class GameStateTests {
     }
 
 
+    @Test
+    public void hash_depends_on_position_and_next_player_not_on_move_order() {
+        GameState start = GameState.builder().setConnectHowMany(5).setBoard(new Piece[18][18]).setNextPlayer(Piece.X).build();
+
+        GameState state1 = start.next(new Cell(5, 5)).next(new Cell(6, 6)).next(new Cell(7, 7)).next(new Cell(8, 8));
+        GameState state2 = start.next(new Cell(7, 7)).next(new Cell(8, 8)).next(new Cell(5, 5)).next(new Cell(6, 6));
+        GameState state3 = start.next(new Cell(6, 6)).next(new Cell(5, 5)).next(new Cell(7, 7)).next(new Cell(8, 8));
+        assertEquals(state1.getHash(), state2.getHash());
+        assertNotEquals(state1.getHash(), state3.getHash()); // X and O swapped in two cells
+        assertNotEquals(start.getHash(), start.next(new Cell(0, 0)).getHash());
+        assertEquals(state1.getHash(), state1.getCopy().getHash());
+
+        Piece[][] board = new Piece[18][18];
+        board[5][5] = Piece.X;
+        board[6][6] = Piece.O;
+        board[7][7] = Piece.X;
+        board[8][8] = Piece.O;
+        GameState built = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+        assertEquals(state1.getHash(), built.getHash());
+
+        GameState otherPlayer = GameState.builder().setTemplate(built).setNextPlayer(Piece.O).build();
+        assertNotEquals(built.getHash(), otherPlayer.getHash());
+        assertEquals(built.getHash(), GameState.builder().setTemplate(otherPlayer).setNextPlayer(Piece.X).build().getHash());
+    }
+
+    @Test
+    public void undo_restores_state_before_move() {
+        for (GameState.BoardType boardType : GameState.BoardType.values()) {
+            GameState state = GameState.builder().setConnectHowMany(4).setBoard(new Piece[7][7])
+                    .setBoardType(boardType).setNextPlayer(Piece.X).build();
+            List<GameState> history = new ArrayList<>();
+            List<Cell> moves = new ArrayList<>();
+            while (!state.isAtEnd()) {
+                history.add(state.getCopy());
+                Cell move = Utils.pickRandom(state.getAllowedMoves());
+                moves.add(move);
+                state.makeMove(move);
+            }
+
+            try {
+                state.undo(moves.get(0));
+                fail();
+            } catch (IllegalArgumentException e) {
+                // Only the latest move can be undone
+            }
+
+            for (int i = moves.size() - 1; i >= 0; i--) {
+                state.undo(moves.get(i));
+                GameState expected = history.get(i);
+                assertEqualBoards(getBoardAsArray(expected), getBoardAsArray(state));
+                assertEquals(expected.getNumPieces(), state.getNumPieces());
+                assertEquals(expected.getNextPlayer(), state.getNextPlayer());
+                assertEquals(expected.getLongestSequence(Piece.X), state.getLongestSequence(Piece.X));
+                assertEquals(expected.getLongestSequence(Piece.O), state.getLongestSequence(Piece.O));
+                assertEquals(expected.getHash(), state.getHash());
+                assertEquals(expected.getAllowedMoves(), state.getAllowedMoves());
+                assertTrue(state.getUpdatedSequences().isEmpty());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void move_made_with_update_cannot_be_undone() {
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        state.update(new Cell(1, 1));
+        state.undo(new Cell(1, 1));
+    }
+
     @Test
     public void test_sequence_where_winner_was_not_correctly_determined_in_game() {
         GameState state = GameState.builder()
@@ -0,0 +1,111 @@
+package org.atorma.tictactoe.game.state;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.Utils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class SequenceIndexTests {
+
+    @Test
+    public void index_has_same_sequences_as_get_all_sequences() {
+        Piece[][] board = new Piece[6][6];
+        board[1][2] = Piece.X;
+        board[2][1] = Piece.X;
+        board[2][2] = Piece.X;
+        board[3][2] = Piece.X;
+        board[0][4] = Piece.O;
+        board[0][5] = Piece.O;
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(board).setNextPlayer(Piece.X).build();
+
+        SequenceIndex index = state.getSequenceIndex();
+        assertSameAsFromScratch(state);
+        assertEquals(11, index.getSequences(Piece.X).size());
+        assertEquals(3, index.getSequences(Piece.X).get(0).getLength());
+        assertEquals(1, index.getNumSequences(Piece.X, 3));
+        assertEquals(3, index.getNumSequences(Piece.X, 2));
+        assertEquals(0, index.getNumSequences(Piece.X, 4));
+        assertEquals(0, index.getNumSequences(Piece.X, 100));
+    }
+
+    @Test
+    public void longest_sequence_with_free_end() {
+        Piece[][] board = new Piece[8][8];
+        board[0][0] = Piece.X; // blocked by the edge and O
+        board[0][1] = Piece.X;
+        board[0][2] = Piece.X;
+        board[0][3] = Piece.O;
+        board[5][5] = Piece.X;
+        board[6][5] = Piece.X;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        SequenceIndex index = state.getSequenceIndex();
+        assertEquals(new Sequence(new Cell(5, 5), new Cell(6, 5)), index.getLongestSequenceWithFreeEnd(Piece.X));
+        assertEquals(new Sequence(new Cell(0, 3), new Cell(0, 3)), index.getLongestSequenceWithFreeEnd(Piece.O));
+
+        state.update(new Cell(4, 5));
+        assertEquals(new Sequence(new Cell(4, 5), new Cell(6, 5)), index.getLongestSequenceWithFreeEnd(Piece.X));
+    }
+
+    @Test
+    public void no_sequence_with_free_end_on_full_or_empty_board() {
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(new Piece[3][3]).setNextPlayer(Piece.X).build();
+        assertNull(state.getSequenceIndex().getLongestSequenceWithFreeEnd(Piece.X));
+
+        Piece[][] board = {
+                {Piece.X, Piece.O, Piece.X},
+                {Piece.X, Piece.O, Piece.O},
+                {Piece.O, Piece.X, Piece.X}
+        };
+        state = GameState.builder().setConnectHowMany(3).setBoard(board).setNextPlayer(Piece.X).build();
+        assertNull(state.getSequenceIndex().getLongestSequenceWithFreeEnd(Piece.O));
+    }
+
+    @Test
+    public void incrementally_updated_index_equals_sequences_found_from_scratch() {
+        for (int game = 0; game < 10; game++) {
+            GameState state = GameState.builder()
+                    .setConnectHowMany(19) // no winner, play until board is full
+                    .setBoard(new Piece[18][11])
+                    .setBoardType(GameState.BoardType.BIT)
+                    .setNextPlayer(Piece.X)
+                    .build();
+            state.getSequenceIndex();
+            List<Cell> moves = new ArrayList<>();
+            while (!state.isAtEnd()) {
+                Cell move = Utils.pickRandom(state.getAllowedMoves());
+                state.makeMove(move);
+                moves.add(move);
+                assertSameAsFromScratch(state);
+            }
+            for (int i = moves.size() - 1; i >= moves.size() - 30; i--) {
+                state.undo(moves.get(i));
+                assertSameAsFromScratch(state);
+            }
+            assertSameAsFromScratch(state.nextWithIndexes(moves.get(moves.size() - 30)));
+        }
+    }
+
+    private void assertSameAsFromScratch(GameState state) {
+        for (Piece player : Piece.values()) {
+            List<Sequence> expected = state.getAllSequences().get(player);
+            List<Sequence> actual = state.getSequenceIndex().getSequences(player);
+            assertEquals(sorted(expected), sorted(actual));
+            for (int i = 1; i < actual.size(); i++) {
+                assertTrue(actual.get(i - 1).getLength() >= actual.get(i).getLength());
+            }
+        }
+    }
+
+    private List<String> sorted(List<Sequence> sequences) {
+        return sequences.stream().map(Sequence::toString).sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+    }
+}
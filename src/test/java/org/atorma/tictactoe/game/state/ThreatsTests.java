@@ -0,0 +1,192 @@
+package org.atorma.tictactoe.game.state;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.Utils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class ThreatsTests {
+
+    @Test
+    public void winning_moves_complete_sequences_also_with_gap() {
+        Piece[][] board = new Piece[10][10];
+        board[2][2] = Piece.X;
+        board[2][3] = Piece.X;
+        board[2][5] = Piece.X;
+        board[2][6] = Piece.X;
+        board[5][0] = Piece.O;
+        board[6][0] = Piece.O;
+        board[7][0] = Piece.O;
+        board[8][0] = Piece.O;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Threats threats = state.getThreats();
+        assertEquals(Collections.singletonList(new Cell(2, 4)), threats.getWinningMoves(Piece.X));
+        assertEquals(Arrays.asList(new Cell(4, 0), new Cell(9, 0)), threats.getWinningMoves(Piece.O));
+        assertTrue(threats.isWinningMove(new Cell(9, 0), Piece.O));
+        assertFalse(threats.isWinningMove(new Cell(9, 0), Piece.X));
+        assertFalse(threats.isWinningMove(new Cell(10, 0), Piece.O));
+    }
+
+    @Test
+    public void open_threat_moves_make_sequence_with_two_free_ends() {
+        Piece[][] board = new Piece[10][10];
+        board[4][4] = Piece.X;
+        board[4][5] = Piece.X;
+        board[4][6] = Piece.X;
+        board[4][2] = Piece.O;
+        board[0][0] = Piece.O;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Threats threats = state.getThreats();
+        assertEquals(Collections.singletonList(new Cell(4, 7)), threats.getOpenThreatMoves(Piece.X));
+        assertTrue(threats.isOpenThreatMove(new Cell(4, 7), Piece.X));
+        assertFalse(threats.isOpenThreatMove(new Cell(4, 3), Piece.X)); // blocked by O in (4, 2)
+        assertEquals(Collections.emptyList(), threats.getOpenThreatMoves(Piece.O));
+    }
+
+    @Test
+    public void double_threat_moves_make_two_sequences_one_short_of_win() {
+        Piece[][] board = new Piece[10][10];
+        board[4][1] = Piece.X;
+        board[4][2] = Piece.X;
+        board[4][3] = Piece.X;
+        board[1][4] = Piece.X;
+        board[2][4] = Piece.X;
+        board[3][4] = Piece.X;
+        board[4][0] = Piece.O; // (4, 4) still leaves a free end to the right
+        board[7][7] = Piece.O;
+        board[8][8] = Piece.O;
+        board[9][9] = Piece.O;
+        GameState state = GameState.builder().setConnectHowMany(5).setBoard(board).setNextPlayer(Piece.X).build();
+
+        Threats threats = state.getThreats();
+        assertEquals(Collections.singletonList(new Cell(4, 4)), threats.getDoubleThreatMoves(Piece.X));
+        assertTrue(threats.isDoubleThreatMove(new Cell(4, 4), Piece.X));
+        assertFalse(threats.isDoubleThreatMove(new Cell(0, 4), Piece.X)); // only one direction
+        assertFalse(threats.isDoubleThreatMove(new Cell(4, 4), Piece.O));
+        assertEquals(Collections.emptyList(), threats.getDoubleThreatMoves(Piece.O));
+
+        state.makeMove(new Cell(4, 4));
+        assertEquals(Arrays.asList(new Cell(0, 4), new Cell(4, 5), new Cell(5, 4)), state.getThreats().getWinningMoves(Piece.X));
+        assertEquals(Collections.emptyList(), state.getThreats().getDoubleThreatMoves(Piece.X));
+    }
+
+    @Test
+    public void incrementally_updated_threats_equal_threats_found_by_trying_moves() {
+        int[][] sizes = {{3, 3, 3}, {6, 7, 4}, {12, 12, 5}};
+        for (int[] size : sizes) {
+            for (int game = 0; game < 10; game++) {
+                GameState state = GameState.builder()
+                        .setConnectHowMany(size[2])
+                        .setBoard(new Piece[size[0]][size[1]])
+                        .setNextPlayer(Piece.X)
+                        .build();
+                state.getThreats();
+                List<Cell> moves = new ArrayList<>();
+                while (!state.isAtEnd()) {
+                    assertSameAsByTryingMoves(state);
+                    Cell move = Utils.pickRandom(state.getAllowedMoves());
+                    state.makeMove(move);
+                    moves.add(move);
+                }
+                for (int i = moves.size() - 1; i >= Math.max(moves.size() - 10, 0); i--) {
+                    state.undo(moves.get(i));
+                    assertSameAsByTryingMoves(state);
+                }
+                assertSameAsByTryingMoves(state.nextWithIndexes(moves.get(Math.max(moves.size() - 10, 0))));
+            }
+        }
+    }
+
+    @Test
+    public void threats_of_copy_are_independent_of_original() {
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(new Piece[5][5]).setNextPlayer(Piece.X).build();
+        state.update(new Cell(2, 2));
+        Threats original = state.getThreats();
+
+        GameState copy = state.getCopy();
+        copy.update(new Cell(0, 0));
+        copy.update(new Cell(2, 3));
+
+        assertEquals(Collections.emptyList(), original.getWinningMoves(Piece.X));
+        assertEquals(Arrays.asList(new Cell(2, 1), new Cell(2, 4)), copy.getThreats().getWinningMoves(Piece.X));
+    }
+
+    @Test
+    public void next_state_takes_over_threats() {
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(new Piece[5][5]).setNextPlayer(Piece.X).build();
+        state.update(new Cell(2, 2));
+        Threats original = state.getThreats();
+
+        GameState next = state.nextWithIndexes(new Cell(0, 0));
+        next.update(new Cell(2, 3));
+
+        assertSame(original, next.getThreats());
+        assertEquals(Arrays.asList(new Cell(2, 1), new Cell(2, 4)), original.getWinningMoves(Piece.X));
+        assertNotSame(original, state.getThreats());
+        assertEquals(Collections.emptyList(), state.getThreats().getWinningMoves(Piece.X));
+    }
+
+    @Test
+    public void found_threats_are_not_kept_by_state() {
+        GameState state = GameState.builder().setConnectHowMany(3).setBoard(new Piece[5][5]).setNextPlayer(Piece.X).build();
+        state.update(new Cell(2, 2));
+        state.update(new Cell(0, 0));
+        state.update(new Cell(2, 3));
+        Threats found = state.findThreats();
+
+        assertEquals(Arrays.asList(new Cell(2, 1), new Cell(2, 4)), found.getWinningMoves(Piece.X));
+        assertNotSame(found, state.findThreats());
+        assertNotSame(found, state.getThreats());
+        state.update(new Cell(2, 1));
+        assertEquals(Arrays.asList(new Cell(2, 1), new Cell(2, 4)), found.getWinningMoves(Piece.X)); // not updated
+    }
+
+    private void assertSameAsByTryingMoves(GameState state) {
+        for (Piece player : Piece.values()) {
+            List<Cell> expectedWins = new ArrayList<>();
+            List<Cell> expectedThreats = new ArrayList<>();
+            GameState playerState = GameState.builder().setTemplate(state).setNextPlayer(player).build();
+            for (Cell move : state.getAllowedMoves()) {
+                playerState.makeMove(move);
+                if (playerState.getWinner() == player) {
+                    expectedWins.add(move);
+                } else if (playerState.getUpdatedSequences().stream().anyMatch(sequence ->
+                        sequence.getLength() >= state.getConnectHowMany() - 1 && countFreeEnds(playerState, sequence) >= 2)) {
+                    expectedThreats.add(move);
+                }
+                playerState.undo(move);
+            }
+            assertEquals(expectedWins, state.getThreats().getWinningMoves(player));
+            assertEquals(expectedThreats, state.getThreats().getOpenThreatMoves(player));
+            assertEquals(state.findThreats().getDoubleThreatMoves(player), state.getThreats().getDoubleThreatMoves(player));
+        }
+    }
+
+    private int countFreeEnds(GameState state, Sequence sequence) {
+        int[][] steps = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        int count = 0;
+        for (Sequence.Direction direction : Sequence.Direction.values()) {
+            if (sequence.hasDirection(direction)) {
+                int[] step = steps[direction.ordinal()];
+                count += isFree(state, sequence.getStart().getRow() - step[0], sequence.getStart().getColumn() - step[1]) ? 1 : 0;
+                count += isFree(state, sequence.getEnd().getRow() + step[0], sequence.getEnd().getColumn() + step[1]) ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    private boolean isFree(GameState state, int row, int col) {
+        return row >= 0 && row < state.getBoardRows() && col >= 0 && col < state.getBoardCols()
+                && state.getPiece(row, col) == null;
+    }
+}
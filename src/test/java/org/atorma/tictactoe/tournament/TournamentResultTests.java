@@ -0,0 +1,77 @@
+package org.atorma.tictactoe.tournament;
+
+import org.atorma.tictactoe.FastTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class TournamentResultTests {
+
+    @Test
+    public void score_and_elo_difference() {
+        TournamentResult result = createResult(60, 20, 20);
+
+        assertEquals(100, result.getNumGames());
+        assertEquals(0.7, result.getScore(), 1e-9);
+        assertEquals(0.16, result.getScoreVariance(), 1e-9);
+        assertEquals(147.2, result.getEloDifference(), 0.1);
+        assertTrue(result.getEloErrorMargin() > 50);
+        assertTrue(result.getEloErrorMargin() < 100);
+
+        TournamentResult even = createResult(30, 40, 30);
+        assertEquals(0, even.getEloDifference(), 1e-9);
+
+        TournamentResult allWins = createResult(10, 0, 0);
+        assertEquals(Double.POSITIVE_INFINITY, allWins.getEloDifference(), 0);
+        assertEquals(Double.POSITIVE_INFINITY, allWins.getEloErrorMargin(), 0);
+    }
+
+    @Test
+    public void error_margin_shrinks_with_more_games() {
+        assertTrue(createResult(600, 200, 200).getEloErrorMargin() < createResult(60, 20, 20).getEloErrorMargin() / 3);
+    }
+
+    @Test
+    public void sprt_needs_enough_games_to_decide() {
+        assertEquals(TournamentResult.SprtDecision.CONTINUE, createResult(60, 20, 20).getSprtDecision(0, 10, 0.05, 0.05));
+        assertEquals(TournamentResult.SprtDecision.ACCEPT_H1, createResult(600, 200, 200).getSprtDecision(0, 10, 0.05, 0.05));
+        assertEquals(TournamentResult.SprtDecision.ACCEPT_H0, createResult(3000, 4000, 3000).getSprtDecision(0, 10, 0.05, 0.05));
+        assertEquals(TournamentResult.SprtDecision.ACCEPT_H0, createResult(0, 0, 10).getSprtDecision(0, 10, 0.05, 0.05));
+    }
+
+    @Test
+    public void player_stats_are_summed_over_games() {
+        TournamentResult result = new TournamentResult("A", "B");
+        TournamentResult.PlayerStats game1 = new TournamentResult.PlayerStats();
+        game1.addMove(2_000_000, 100, 50);
+        game1.addMove(4_000_000, 300, 80);
+        TournamentResult.PlayerStats game2 = new TournamentResult.PlayerStats();
+        game2.addMove(6_000_000, 200, 60);
+        result.addGame(1, game1, new TournamentResult.PlayerStats());
+        result.addGame(0.5, game2, new TournamentResult.PlayerStats());
+
+        TournamentResult.PlayerStats stats = result.getPlayer1Stats();
+        assertEquals(3, stats.getNumMoves());
+        assertEquals(4.0, stats.getAverageThinkTimeMillis(), 1e-9);
+        assertEquals(600, stats.getNumRollouts());
+        assertEquals(50000, stats.getRolloutsPerSecond(), 1e-6);
+        assertEquals(80, stats.getPeakTreeSize());
+        assertEquals(0, result.getPlayer2Stats().getNumMoves());
+    }
+
+    private TournamentResult createResult(int wins, int draws, int losses) {
+        TournamentResult result = new TournamentResult("A", "B");
+        for (int i = 0; i < wins; i++) {
+            result.addGame(1, new TournamentResult.PlayerStats(), new TournamentResult.PlayerStats());
+        }
+        for (int i = 0; i < draws; i++) {
+            result.addGame(0.5, new TournamentResult.PlayerStats(), new TournamentResult.PlayerStats());
+        }
+        for (int i = 0; i < losses; i++) {
+            result.addGame(0, new TournamentResult.PlayerStats(), new TournamentResult.PlayerStats());
+        }
+        return result;
+    }
+}
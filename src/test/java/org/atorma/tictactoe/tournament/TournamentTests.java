@@ -0,0 +1,55 @@
+package org.atorma.tictactoe.tournament;
+
+import org.atorma.tictactoe.FastTests;
+import org.atorma.tictactoe.game.player.mcts.MCTSParameters;
+import org.atorma.tictactoe.game.player.mcts.MCTSPlayer;
+import org.atorma.tictactoe.game.player.mcts.PlanningExecutor;
+import org.atorma.tictactoe.game.player.random.RandomPlayer;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.*;
+
+@Category(FastTests.class)
+public class TournamentTests {
+
+    private PlanningExecutor planningExecutor = new PlanningExecutor(2);
+
+    @After
+    public void tearDown() {
+        planningExecutor.shutdown();
+    }
+
+    @Test
+    public void plays_all_games_and_measures_mcts_player() {
+        MCTSParameters mctsParams = new MCTSParameters();
+        mctsParams.numPlanningThreads = 1;
+        mctsParams.maxRolloutsNum = 200;
+
+        TournamentParams params = new TournamentParams();
+        params.numGames = 10;
+        params.numParallelGames = 2;
+        params.boardRows = 3;
+        params.boardColumns = 3;
+        params.connectHowMany = 3;
+
+        TournamentResult result = new Tournament(() -> new MCTSPlayer(mctsParams, planningExecutor), RandomPlayer::new, params).run();
+
+        assertEquals(10, result.getNumGames());
+        assertEquals(10, result.getWins() + result.getDraws() + result.getLosses());
+        assertTrue(result.getWins() > result.getLosses());
+        assertTrue(result.getPlayer1Stats().getNumMoves() >= 10*2);
+        assertTrue(result.getPlayer1Stats().getNumRollouts() > 0);
+        assertTrue(result.getPlayer1Stats().getPeakTreeSize() > 1);
+        assertEquals(0, result.getPlayer2Stats().getNumRollouts());
+        assertTrue(result.toReport(params).contains("MCTS"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void at_least_one_game_required() {
+        TournamentParams params = new TournamentParams();
+        params.numGames = 0;
+        new Tournament(RandomPlayer::new, RandomPlayer::new, params);
+    }
+}